@@ -0,0 +1,55 @@
+package com.company.benchmark;
+
+import com.company.model.Employee;
+import com.company.parser.EmployeeCsvParser;
+import com.opencsv.bean.CsvToBeanBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming parser with the previous OpenCSV bean binding path
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvParserBenchmark {
+
+    @Param({"1000", "100000"})
+    public int employees;
+
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        csv = SyntheticOrg.csv(employees, 42);
+    }
+
+    @Benchmark
+    public Map<String, Employee> openCsv() throws IOException {
+        Map<String, Employee> result = new HashMap<>();
+        try (Reader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(csv)))) {
+            List<Employee> employeeList = new CsvToBeanBuilder<Employee>(reader)
+                    .withType(Employee.class)
+                    .withIgnoreLeadingWhiteSpace(true)
+                    .build()
+                    .parse();
+            for (Employee employee : employeeList) {
+                result.put(employee.getId(), employee);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Map<String, Employee> streaming() throws IOException {
+        return new EmployeeCsvParser().parse(new ByteArrayInputStream(csv));
+    }
+}
@@ -0,0 +1,77 @@
+package com.company.benchmark;
+
+import com.company.cache.OrgHierarchyCache;
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.OrgAnalysisDto;
+import com.company.metrics.PipelineMetrics;
+import com.company.service.AnalysisAdmission;
+import com.company.service.AnalysisExecutor;
+import com.company.service.OrgAnalyzerService;
+import com.company.validator.CsvValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full pipeline (validate, parse, hierarchy, all analyses) in large-org mode at increasing org sizes.
+ * Wall time is the score and the peak heap of every run is printed by the forked VM;
+ * -prof gc adds allocation per run. Time and heap should both grow linearly with employees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class LargeOrgBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int employees;
+
+    private MockMultipartFile file;
+    private OrgAnalyzerService service;
+
+    @Setup(Level.Invocation)
+    public void resetHeapPeaks() {
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    @TearDown(Level.Invocation)
+    public void reportHeapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.printf("peak heap for %d employees: %d MB%n", employees, peak / (1024 * 1024));
+    }
+
+    @Setup
+    public void setUp() {
+        file = new MockMultipartFile("file", "employees.csv", "text/csv", SyntheticOrg.csv(employees, 42));
+
+        AnalyzerProperties properties = new AnalyzerProperties();
+        properties.setLargeOrgMode(true);
+        properties.getCache().setEnabled(false);
+
+        service = new OrgAnalyzerService();
+        service.csvValidator = new CsvValidator(properties);
+        service.hierarchyCache = new OrgHierarchyCache(properties);
+        service.analysisExecutor = new AnalysisExecutor(properties);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service.metrics = new PipelineMetrics(registry);
+        service.admission = new AnalysisAdmission(properties, registry);
+    }
+
+    @Benchmark
+    public OrgAnalysisDto fullPipeline() {
+        return service.analyze(file, null);
+    }
+}
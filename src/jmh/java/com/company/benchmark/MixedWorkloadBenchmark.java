@@ -0,0 +1,82 @@
+package com.company.benchmark;
+
+import com.company.cache.OrgHierarchyCache;
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.OrgAnalysisDto;
+import com.company.exception.AnalysisRejectedException;
+import com.company.metrics.PipelineMetrics;
+import com.company.service.AnalysisAdmission;
+import com.company.service.AnalysisExecutor;
+import com.company.service.OrgAnalyzerService;
+import com.company.validator.CsvValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of small uploads competing with a burst of large ones: three threads keep
+ * submitting large orgs while one submits a small org, and the sampled latencies of the small
+ * thread show how much the large uploads slow it down. With admission on, at most one large
+ * upload is analysed at a time and small uploads bypass the queue; with it off every large
+ * upload competes for the CPU at once. Large uploads turned away with 429 count as operations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MixedWorkloadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean admission;
+
+    @Param({"200000"})
+    public int largeEmployees;
+
+    private MockMultipartFile large;
+    private MockMultipartFile small;
+    private OrgAnalyzerService service;
+
+    @Setup
+    public void setUp() {
+        large = new MockMultipartFile("file", "large.csv", "text/csv", SyntheticOrg.csv(largeEmployees, 42));
+        small = new MockMultipartFile("file", "small.csv", "text/csv", SyntheticOrg.csv(200, 7));
+
+        AnalyzerProperties properties = new AnalyzerProperties();
+        properties.setLargeOrgMode(true);
+        properties.getCache().setEnabled(false);
+        properties.getAdmission().setEnabled(admission);
+        properties.getAdmission().setMaxConcurrent(1);
+        properties.getAdmission().setMaxWait(Duration.ofMinutes(1));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service = new OrgAnalyzerService();
+        service.csvValidator = new CsvValidator(properties);
+        service.hierarchyCache = new OrgHierarchyCache(properties);
+        service.analysisExecutor = new AnalysisExecutor(properties);
+        service.metrics = new PipelineMetrics(registry);
+        service.admission = new AnalysisAdmission(properties, registry);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public OrgAnalysisDto large() {
+        try {
+            return service.analyze(large, null);
+        } catch (AnalysisRejectedException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public OrgAnalysisDto small() {
+        return service.analyze(small, null);
+    }
+}
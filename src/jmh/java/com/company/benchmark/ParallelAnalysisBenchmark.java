@@ -0,0 +1,80 @@
+package com.company.benchmark;
+
+import com.company.config.AnalyzerProperties;
+import com.company.model.OrgGraph;
+import com.company.model.OrgGraphFile;
+import com.company.parser.EmployeeCsvParser;
+import com.company.service.AnalysisExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Salary band and depth checks over a prebuilt org, sequential (parallelism 0) versus split
+ * by subtree across fork-join pools of increasing size. Compare scores per parallelism level
+ * to read the speedup by core count, and across storage to compare an org built on the heap
+ * with one memory-mapped from a snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class ParallelAnalysisBenchmark {
+
+    @Param({"1000000"})
+    public int employees;
+
+    @Param({"0", "1", "2", "4", "8", "16", "32"})
+    public int parallelism;
+
+    @Param({"heap", "mapped"})
+    public String storage;
+
+    private OrgGraph org;
+    private AnalysisExecutor executor;
+
+    @Setup
+    public void setUp() throws IOException {
+        org = OrgGraph.of(new EmployeeCsvParser().parse(new ByteArrayInputStream(SyntheticOrg.csv(employees, 42))));
+        if (storage.equals("mapped")) {
+            Path file = Files.createTempFile("org", ".graph");
+            file.toFile().deleteOnExit();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                OrgGraphFile.write(channel, org);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                org = OrgGraphFile.map(channel, 0);
+            }
+        }
+
+        AnalyzerProperties properties = new AnalyzerProperties();
+        properties.getParallel().setEnabled(parallelism > 0);
+        properties.getParallel().setParallelism(parallelism);
+        executor = new AnalysisExecutor(properties);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public int[] salaryBandCheck() {
+        return executor.select(org, manager -> org.subordinateCount(manager) > 0
+                && (org.salary(manager) < org.averageSubordinateSalary(manager) * 1.2
+                || org.salary(manager) > org.averageSubordinateSalary(manager) * 1.5));
+    }
+
+    @Benchmark
+    public int[] depthCheck() {
+        return executor.select(org, employee -> org.depth(employee) > 4);
+    }
+}
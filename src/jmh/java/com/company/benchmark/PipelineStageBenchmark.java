@@ -0,0 +1,100 @@
+package com.company.benchmark;
+
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.ReportingLineDto;
+import com.company.dtos.SalaryIssueDto;
+import com.company.metrics.PipelineMetrics;
+import com.company.model.Employee;
+import com.company.model.OrgGraph;
+import com.company.parser.EmployeeCsvParser;
+import com.company.service.AnalysisExecutor;
+import com.company.service.OrgAnalyzerService;
+import com.company.validator.CsvValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each stage of the upload pipeline on its own, over orgs of different shapes: parsing,
+ * employee data validation (on its own and fused with parsing, as uploads run it), hierarchy
+ * building and the salary and reporting line analyses. Every stage gets the previous stage's
+ * output prepared in setup. Depth calculation on its own is covered by ReportingLinesBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class PipelineStageBenchmark {
+
+    @Param({"100000"})
+    public int employees;
+
+    @Param({"8", "1000"})
+    public int fanOut;
+
+    @Param({"6", "1000"})
+    public int maxDepth;
+
+    private byte[] csv;
+    private Map<String, Employee> parsed;
+    private OrgGraph org;
+    private CsvValidator validator;
+    private OrgAnalyzerService service;
+
+    @Setup
+    public void setUp() throws IOException {
+        csv = SyntheticOrg.csv(employees, fanOut, maxDepth, 42);
+        parsed = new EmployeeCsvParser().parse(new ByteArrayInputStream(csv));
+        org = OrgGraph.of(parsed);
+
+        AnalyzerProperties properties = new AnalyzerProperties();
+        properties.setLargeOrgMode(true);
+        validator = new CsvValidator(properties);
+        service = new OrgAnalyzerService();
+        service.analysisExecutor = new AnalysisExecutor(properties);
+        service.metrics = new PipelineMetrics(new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public Map<String, Employee> parse() throws IOException {
+        return new EmployeeCsvParser().parse(new ByteArrayInputStream(csv));
+    }
+
+    @Benchmark
+    public Map<String, Employee> parseAndValidateRows() throws IOException {
+        Map<String, Employee> employees = new HashMap<>();
+        new EmployeeCsvParser().parse(new ByteArrayInputStream(csv), employees,
+                (employee, row) -> validator.validateEmployee(employee, employees));
+        validator.validateManagerReferences(employees);
+        return employees;
+    }
+
+    @Benchmark
+    public Map<String, Employee> validateEmployeeData() {
+        validator.validateEmployeeData(parsed);
+        return parsed;
+    }
+
+    @Benchmark
+    public OrgGraph buildHierarchy() {
+        return OrgGraph.of(parsed);
+    }
+
+    @Benchmark
+    public List<SalaryIssueDto> salaryIssues() {
+        return service.findOverpaidManagers(org);
+    }
+
+    @Benchmark
+    public List<ReportingLineDto> longReportingLines() {
+        return service.findLongReportingLines(org);
+    }
+}
@@ -0,0 +1,76 @@
+package com.company.benchmark;
+
+import com.company.config.AnalyzerProperties;
+import com.company.model.OrgGraph;
+import com.company.parser.EmployeeCsvParser;
+import com.company.snapshot.SnapshotStore;
+import com.company.validator.CsvValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to the first answer for a persisted org: opening a columnar snapshot through a fresh
+ * store (nothing resident) and querying its first root, versus rebuilding the graph from the
+ * CSV. The snapshot file sits in a warm page cache, so this measures mapping cost rather
+ * than disk reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class SnapshotOpenBenchmark {
+
+    @Param({"1000000"})
+    public int employees;
+
+    private byte[] csv;
+    private Path directory;
+    private AnalyzerProperties properties;
+    private String snapshotId;
+
+    @Setup
+    public void setUp() throws IOException {
+        csv = SyntheticOrg.csv(employees, 42);
+        directory = Files.createTempDirectory("snapshots");
+        properties = new AnalyzerProperties();
+        properties.getSnapshots().setDirectory(directory.toString());
+        snapshotId = new SnapshotStore(properties, new CsvValidator(properties)).create("benchmark", parse()).getId();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public double openSnapshot() {
+        return firstQuery(new SnapshotStore(properties, new CsvValidator(properties)).load(snapshotId));
+    }
+
+    @Benchmark
+    public double rebuildFromCsv() throws IOException {
+        return firstQuery(parse());
+    }
+
+    private OrgGraph parse() throws IOException {
+        return OrgGraph.of(new EmployeeCsvParser().parse(new ByteArrayInputStream(csv)));
+    }
+
+    private static double firstQuery(OrgGraph org) {
+        int root = org.roots()[0];
+        return org.averageSubordinateSalary(root) + org.name(root).length();
+    }
+}
@@ -0,0 +1,79 @@
+package com.company.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Deterministic generator of employee CSV files for benchmarks
+ */
+public final class SyntheticOrg {
+
+    private SyntheticOrg() {
+    }
+
+    /**
+     * CSV with the given number of employees. Every employee reports to a random earlier
+     * employee, so the result is always a single valid tree rooted at employee 1.
+     */
+    public static byte[] csv(int employees, long seed) {
+        Random random = new Random(seed);
+        StringBuilder csv = new StringBuilder(employees * 40);
+        csv.append("id,name,salary,manager_id\n");
+        for (int i = 1; i <= employees; i++) {
+            csv.append(i).append(",Employee ").append(i).append(',')
+                    .append(40000 + random.nextInt(160000)).append('.').append(random.nextInt(100)).append(',');
+            if (i > 1) {
+                csv.append(1 + random.nextInt(i - 1));
+            }
+            csv.append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * CSV with the given number of employees shaped by fan-out and depth. Each employee reports
+     * to a random earlier employee that has fewer than fanOut reports and sits above maxDepth,
+     * so fanOut 1 gives a single chain and a small maxDepth a wide, shallow org. Once no manager
+     * has room left, reports are spread over every employee above maxDepth regardless of fanOut.
+     */
+    public static byte[] csv(int employees, int fanOut, int maxDepth, long seed) {
+        Random random = new Random(seed);
+        int[] depths = new int[employees + 1];
+        int[] reports = new int[employees + 1];
+        int[] open = new int[employees + 1];
+        int[] openPositions = new int[employees + 1];
+        int openCount = 0;
+        int[] eligible = new int[employees + 1];
+        int eligibleCount = 0;
+
+        StringBuilder csv = new StringBuilder(employees * 40);
+        csv.append("id,name,salary,manager_id\n");
+        for (int i = 1; i <= employees; i++) {
+            csv.append(i).append(",Employee ").append(i).append(',')
+                    .append(40000 + random.nextInt(160000)).append('.').append(random.nextInt(100)).append(',');
+            if (i > 1) {
+                int manager;
+                if (openCount > 0) {
+                    manager = open[random.nextInt(openCount)];
+                    if (++reports[manager] == fanOut) {
+                        int last = open[--openCount];
+                        open[openPositions[manager]] = last;
+                        openPositions[last] = openPositions[manager];
+                    }
+                } else {
+                    manager = eligible[random.nextInt(eligibleCount)];
+                }
+                depths[i] = depths[manager] + 1;
+                csv.append(manager);
+            }
+            csv.append('\n');
+
+            if (depths[i] < maxDepth) {
+                eligible[eligibleCount++] = i;
+                open[openCount] = i;
+                openPositions[i] = openCount++;
+            }
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
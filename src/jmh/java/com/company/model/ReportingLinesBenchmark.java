@@ -0,0 +1,59 @@
+package com.company.model;
+
+import com.company.benchmark.SyntheticOrg;
+import com.company.parser.EmployeeCsvParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reporting line depth and subtree size calculation alone, over the linked columns of a
+ * prebuilt org. Lives next to the package-private ReportingLines it measures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class ReportingLinesBenchmark {
+
+    @Param({"100000"})
+    public int employees;
+
+    @Param({"8", "1000"})
+    public int fanOut;
+
+    @Param({"6", "1000"})
+    public int maxDepth;
+
+    private int[] parents;
+    private int[] childOffsets;
+    private int[] children;
+
+    @Setup
+    public void setUp() throws IOException {
+        OrgGraph org = OrgGraph.of(new EmployeeCsvParser().parse(
+                new ByteArrayInputStream(SyntheticOrg.csv(employees, fanOut, maxDepth, 42))));
+        int size = org.size();
+        parents = new int[size];
+        childOffsets = new int[size + 1];
+        for (int employee = 0; employee < size; employee++) {
+            parents[employee] = org.parent(employee);
+            childOffsets[employee + 1] = childOffsets[employee] + org.subordinateCount(employee);
+        }
+        children = new int[childOffsets[size]];
+        for (int employee = 0; employee < size; employee++) {
+            for (int k = 0; k < org.subordinateCount(employee); k++) {
+                children[childOffsets[employee] + k] = org.subordinate(employee, k);
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] depths() {
+        return ReportingLines.calculate(parents, childOffsets, children).depths;
+    }
+}
@@ -0,0 +1,167 @@
+package com.company;
+
+import com.company.dtos.OrgAnalysisDto;
+import com.company.dtos.ReportingLineDto;
+import com.company.dtos.SalaryIssueDto;
+import com.company.exception.InvalidDataException;
+import com.company.model.AnalysisType;
+import com.company.parser.Compression;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Analysis of one local file from the command line, for cron jobs and CI checks:
+ * <pre>
+ * java -cp org-structure-analyzer.jar -Dloader.main=com.company.AnalyzeMain \
+ *     org.springframework.boot.loader.PropertiesLauncher employees.csv --format=csv --checks=UNDERPAID
+ * </pre>
+ * The file may be compressed (.csv.gz, .csv.zst), or "-" to read plain CSV from stdin. The
+ * analysis is written to stdout as JSON, or with --format=csv as one row per issue. Other
+ * --name=value arguments are bound as settings, e.g. --analyzer.large-org-mode=true. No Spring
+ * context or web server is started.
+ * <p>
+ * Exits with 0 on success, 1 on bad usage or an invalid file, and with --fail-on-issues 2 when
+ * any issue was found.
+ */
+public class AnalyzeMain {
+
+    private static final String FORMAT_OPTION = "--format=";
+    private static final String FAIL_ON_ISSUES_OPTION = "--fail-on-issues";
+    private static final String STDIN = "-";
+
+    private static final String CSV_HEADER = "check,id,name,salary,average_subordinate_salary,expected_salary," +
+            "salary_difference,reporting_line_depth,excess";
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.in, System.out));
+    }
+
+    static int run(String[] args, InputStream stdin, PrintStream stdout) {
+        List<String> paths = new ArrayList<>();
+        String format = "json";
+        boolean failOnIssues = false;
+        Set<AnalysisType> checks = Set.of();
+        List<String> properties = new ArrayList<>();
+        try {
+            for (String arg : args) {
+                if (arg.startsWith(Headless.CHECKS_OPTION)) {
+                    checks = Headless.parseChecks(arg.substring(Headless.CHECKS_OPTION.length()));
+                } else if (arg.startsWith(FORMAT_OPTION)) {
+                    format = arg.substring(FORMAT_OPTION.length());
+                } else if (arg.equals(FAIL_ON_ISSUES_OPTION)) {
+                    failOnIssues = true;
+                } else if (arg.startsWith("--")) {
+                    properties.add(arg);
+                } else {
+                    paths.add(arg);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown check: " + e.getMessage());
+            return 1;
+        }
+        if (paths.size() != 1 || !(format.equals("json") || format.equals("csv"))) {
+            System.err.println("Usage: AnalyzeMain <employees.csv|-> [--format=json|csv] " +
+                    "[--checks=UNDERPAID,OVERPAID,LONG_REPORTING_LINES] [--fail-on-issues] [--property=value...]");
+            return 1;
+        }
+
+        String file = paths.get(0);
+        boolean fromStdin = STDIN.equals(file);
+        Compression compression = fromStdin ? Compression.NONE : Compression.forFilename(file);
+        if (compression == null) {
+            System.err.println("Only CSV files (.csv, .csv.gz, .csv.zst) are supported. Received: " + file);
+            return 1;
+        }
+
+        Headless headless = new Headless(properties);
+        OrgAnalysisDto analysis;
+        try (InputStream in = fromStdin ? stdin : Files.newInputStream(Path.of(file))) {
+            long size = fromStdin ? -1 : Files.size(Path.of(file));
+            analysis = headless.analyzerService.analyzeStream(in, size, compression, checks);
+        } catch (InvalidDataException e) {
+            System.err.println("Invalid data: " + e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            System.err.println("Failed to read " + file + ": " + e.getMessage());
+            return 1;
+        }
+
+        try {
+            Writer out = new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8));
+            if (format.equals("csv")) {
+                writeCsv(analysis, out);
+            } else {
+                headless.objectMapper.writeValue(out, analysis);
+                out.write('\n');
+            }
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Failed to write the analysis: " + e.getMessage());
+            return 1;
+        }
+        return failOnIssues && issues(analysis) > 0 ? 2 : 0;
+    }
+
+    private static int issues(OrgAnalysisDto analysis) {
+        return size(analysis.getUnderpaidManagers()) + size(analysis.getOverpaidManagers())
+                + size(analysis.getLongReportingLines());
+    }
+
+    private static int size(List<?> issues) {
+        return issues == null ? 0 : issues.size();
+    }
+
+    /**
+     * One row per issue; columns that do not apply to the issue's check are left empty
+     */
+    private static void writeCsv(OrgAnalysisDto analysis, Writer out) throws IOException {
+        out.write(CSV_HEADER);
+        out.write('\n');
+        writeSalaryIssues(AnalysisType.UNDERPAID, analysis.getUnderpaidManagers(), out);
+        writeSalaryIssues(AnalysisType.OVERPAID, analysis.getOverpaidManagers(), out);
+        if (analysis.getLongReportingLines() != null) {
+            for (ReportingLineDto issue : analysis.getLongReportingLines()) {
+                out.write(AnalysisType.LONG_REPORTING_LINES + "," + csvField(issue.getEmployeeId()) + "," +
+                        csvField(issue.getEmployeeName()) + ",,,,," + issue.getReportingLineDepth() + "," +
+                        issue.getExcess() + "\n");
+            }
+        }
+    }
+
+    private static void writeSalaryIssues(AnalysisType check, List<SalaryIssueDto> issues, Writer out)
+            throws IOException {
+        if (issues == null) {
+            return;
+        }
+        for (SalaryIssueDto issue : issues) {
+            out.write(check + "," + csvField(issue.getManagerId()) + "," + csvField(issue.getManagerName()) + "," +
+                    issue.getManagerSalary() + "," + issue.getAverageSubordinateSalary() + "," +
+                    issue.getExpectedSalary() + "," + issue.getSalaryDifference() + ",,\n");
+        }
+    }
+
+    /**
+     * Quotes a field per RFC 4180 when it holds a separator, quote or line break
+     */
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,90 @@
+package com.company;
+
+import com.company.batch.BatchAnalyzer;
+import com.company.batch.BatchSummary;
+import com.company.batch.NdjsonResultWriter;
+import com.company.model.AnalysisType;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Batch analysis from the command line, e.g. for a nightly run over every subsidiary:
+ * <pre>
+ * java -cp org-structure-analyzer.jar -Dloader.main=com.company.BatchMain \
+ *     org.springframework.boot.loader.PropertiesLauncher subsidiaries/ results.ndjson --checks=UNDERPAID,OVERPAID
+ * </pre>
+ * The input is a directory or a .zip archive of CSV files. Results are written as NDJSON to the
+ * output file, or to stdout for "-". Other --name=value arguments are bound as settings, e.g.
+ * --analyzer.large-org-mode=true. No Spring context or web server is started.
+ * <p>
+ * Exits with 0 when every file was analysed, 2 when some failed and 1 on bad usage or input.
+ */
+public class BatchMain {
+
+    private static final String STDOUT = "-";
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        List<String> paths = new ArrayList<>();
+        List<String> properties = new ArrayList<>();
+        Set<AnalysisType> checks = Set.of();
+        try {
+            for (String arg : args) {
+                if (arg.startsWith(Headless.CHECKS_OPTION)) {
+                    checks = Headless.parseChecks(arg.substring(Headless.CHECKS_OPTION.length()));
+                } else if (arg.startsWith("--")) {
+                    properties.add(arg);
+                } else {
+                    paths.add(arg);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown check: " + e.getMessage());
+            return 1;
+        }
+        if (paths.size() != 2) {
+            System.err.println("Usage: BatchMain <directory|archive.zip> <output.ndjson|-> " +
+                    "[--checks=UNDERPAID,OVERPAID,LONG_REPORTING_LINES] [--property=value...]");
+            return 1;
+        }
+
+        Path input = Path.of(paths.get(0));
+        boolean toStdout = STDOUT.equals(paths.get(1));
+        Headless headless = new Headless(properties);
+        BatchAnalyzer batchAnalyzer = headless.batchAnalyzer();
+        try (OutputStream out = toStdout
+                     ? StreamUtils.nonClosing(System.out)
+                     : new BufferedOutputStream(Files.newOutputStream(Path.of(paths.get(1))));
+             NdjsonResultWriter results = new NdjsonResultWriter(headless.objectMapper, out)) {
+            long start = System.nanoTime();
+            BatchSummary summary;
+            if (Files.isDirectory(input)) {
+                summary = batchAnalyzer.analyzeDirectory(input, checks, results);
+            } else {
+                try (InputStream archive = Files.newInputStream(input)) {
+                    summary = batchAnalyzer.analyzeZip(archive, checks, results);
+                }
+            }
+            System.err.printf("Analysed %d files, %d failed, in %d ms%n", summary.files(), summary.failed(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return summary.failed() == 0 ? 0 : 2;
+        } catch (IOException e) {
+            System.err.println("Failed to read " + input + ": " + e.getMessage());
+            return 1;
+        } finally {
+            batchAnalyzer.shutdown();
+        }
+    }
+}
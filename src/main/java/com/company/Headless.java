@@ -0,0 +1,111 @@
+package com.company;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.ConsoleAppender;
+import com.company.batch.BatchAnalyzer;
+import com.company.cache.OrgHierarchyCache;
+import com.company.config.AnalyzerProperties;
+import com.company.metrics.PipelineMetrics;
+import com.company.model.AnalysisType;
+import com.company.service.AnalysisAdmission;
+import com.company.service.AnalysisExecutor;
+import com.company.service.OrgAnalyzerService;
+import com.company.validator.CsvValidator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The analysis pipeline wired by hand for the command line tools. There is no application
+ * context, so no component scan, auto-configuration or web server: a run starts in a fraction
+ * of the time and heap of the web application, and the reachable code carries no classpath
+ * scanning for AppCDS archives or native images to trip over.
+ * <p>
+ * Settings are bound from --analyzer.* arguments, with the same names as the application
+ * properties. The hierarchy cache and admission control are off by default, as a run analyses
+ * each org once on its own.
+ */
+final class Headless {
+
+    static final String CHECKS_OPTION = "--checks=";
+
+    final AnalyzerProperties properties;
+    final CsvValidator csvValidator;
+    final OrgAnalyzerService analyzerService;
+    // results go to stdout, which must stay open
+    final ObjectMapper objectMapper = new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    Headless(List<String> propertyArguments) {
+        logToStandardError();
+
+        AnalyzerProperties defaults = new AnalyzerProperties();
+        defaults.getCache().setEnabled(false);
+        defaults.getAdmission().setEnabled(false);
+        Binder binder = new Binder(ConfigurationPropertySources.from(
+                new SimpleCommandLinePropertySource(propertyArguments.toArray(String[]::new))));
+        this.properties = binder.bindOrCreate("analyzer", Bindable.ofInstance(defaults));
+
+        // meters without a registry to publish to are no-ops
+        MeterRegistry registry = new CompositeMeterRegistry();
+        this.csvValidator = new CsvValidator(properties);
+        this.analyzerService = new OrgAnalyzerService();
+        analyzerService.csvValidator = csvValidator;
+        analyzerService.hierarchyCache = new OrgHierarchyCache(properties);
+        analyzerService.analysisExecutor = new AnalysisExecutor(properties);
+        analyzerService.metrics = new PipelineMetrics(registry);
+        analyzerService.admission = new AnalysisAdmission(properties, registry);
+    }
+
+    BatchAnalyzer batchAnalyzer() {
+        return new BatchAnalyzer(properties, analyzerService, csvValidator);
+    }
+
+    /**
+     * Analyses named in a comma separated --checks value, in any case
+     */
+    static Set<AnalysisType> parseChecks(String checks) {
+        Set<AnalysisType> selected = EnumSet.noneOf(AnalysisType.class);
+        for (String check : checks.split(",")) {
+            selected.add(AnalysisType.valueOf(check.trim().toUpperCase(Locale.ROOT)));
+        }
+        return selected;
+    }
+
+    /**
+     * Without Spring Boot's logging setup logback would print debug output to stdout, which
+     * carries the results; warnings and errors go to stderr instead
+     */
+    private static void logToStandardError() {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+        context.reset();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%level %logger{0} - %msg%n");
+        encoder.start();
+        ConsoleAppender<ILoggingEvent> appender = new ConsoleAppender<>();
+        appender.setContext(context);
+        appender.setTarget("System.err");
+        appender.setEncoder(encoder);
+        appender.start();
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.WARN);
+        root.addAppender(appender);
+    }
+}
@@ -0,0 +1,232 @@
+package com.company.batch;
+
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.BatchResultDto;
+import com.company.dtos.OrgAnalysisDto;
+import com.company.exception.InvalidDataException;
+import com.company.model.AnalysisType;
+import com.company.parser.Compression;
+import com.company.parser.EmployeeCsvParser;
+import com.company.service.OrgAnalyzerService;
+import com.company.validator.CsvValidator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Analyses many org files in one run, such as every subsidiary of a group, instead of one
+ * upload per file.
+ * <p>
+ * Runs are pipelined: the calling thread reads the input, a directory or a zip archive, and
+ * hands each CSV file to a shared pool of workers that parse, validate and analyse it. Every
+ * worker keeps one parser for all the files it handles, so parse buffers are allocated per
+ * thread rather than per file. Results go to a single sink, one at a time, in the order files
+ * finish. At most read-ahead files of a run are waiting for or in analysis, which bounds the
+ * zip entries held in memory and lets a slow sink hold back the reader.
+ * <p>
+ * A file that fails to parse or validate gets an error result; the rest of the run carries on.
+ */
+@Component
+@Slf4j
+public class BatchAnalyzer {
+
+    private final OrgAnalyzerService analyzerService;
+    private final CsvValidator csvValidator;
+    private final ExecutorService pool;
+    private final int readAhead;
+    private final ThreadLocal<EmployeeCsvParser> parsers = ThreadLocal.withInitial(EmployeeCsvParser::new);
+
+    public BatchAnalyzer(AnalyzerProperties properties, OrgAnalyzerService analyzerService,
+                         CsvValidator csvValidator) {
+        AnalyzerProperties.Batch settings = properties.getBatch();
+        this.analyzerService = analyzerService;
+        this.csvValidator = csvValidator;
+        int workers = settings.getWorkers() > 0 ? settings.getWorkers() : Runtime.getRuntime().availableProcessors();
+        this.readAhead = settings.getReadAhead() > 0 ? settings.getReadAhead() : 2 * workers;
+        this.pool = Executors.newFixedThreadPool(workers, daemonThreads("batch-worker-"));
+    }
+
+    /**
+     * Analyses every CSV file directly in the directory, in name order, passing each result
+     * to the sink as its file finishes
+     */
+    public BatchSummary analyzeDirectory(Path directory, Set<AnalysisType> analyses,
+                                         Consumer<BatchResultDto> results) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(Files::isRegularFile)
+                    .filter(file -> Compression.forFilename(file.getFileName().toString()) != null)
+                    .sorted()
+                    .toList();
+        }
+
+        Run run = new Run(analyses, results);
+        try {
+            for (Path file : files) {
+                run.submit(file.getFileName().toString(), () -> Files.newInputStream(file));
+            }
+        } finally {
+            run.await();
+        }
+        return run.summary();
+    }
+
+    /**
+     * Analyses every CSV entry of a zip archive read from the stream, passing each result to the
+     * sink as its file finishes. Other entries are skipped. The stream is read to the end of the
+     * archive but not closed.
+     */
+    public BatchSummary analyzeZip(InputStream archive, Set<AnalysisType> analyses,
+                                   Consumer<BatchResultDto> results) throws IOException {
+        Run run = new Run(analyses, results);
+        try {
+            ZipInputStream zip = new ZipInputStream(archive);
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory() || Compression.forFilename(entry.getName()) == null) {
+                    continue;
+                }
+                run.reserve();
+                byte[] content;
+                try {
+                    // entries are read one after another, so each is read in full to hand it off
+                    content = csvValidator.limitSize(zip).readAllBytes();
+                } catch (InvalidDataException e) {
+                    run.finish(BatchResultDto.builder().file(entry.getName()).error(e.getMessage()).build());
+                    continue;
+                } catch (IOException e) {
+                    run.finish(BatchResultDto.builder().file(entry.getName())
+                            .error("Failed to read the zip entry: " + e.getMessage()).build());
+                    continue;
+                }
+                run.start(entry.getName(), () -> new ByteArrayInputStream(content));
+            }
+        } finally {
+            run.await();
+        }
+        return run.summary();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private BatchResultDto analyze(String name, FileOpener opener, Set<AnalysisType> analyses) {
+        BatchResultDto.BatchResultDtoBuilder result = BatchResultDto.builder().file(name);
+        try (InputStream in = opener.open()) {
+            OrgAnalysisDto analysis = analyzerService.analyzeBatchFile(in, Compression.forFilename(name), analyses,
+                    parsers.get());
+            return result.analysis(analysis).build();
+        } catch (InvalidDataException e) {
+            return result.error(e.getMessage()).build();
+        } catch (IOException e) {
+            return result.error("Failed to read the CSV file: " + e.getMessage()).build();
+        } catch (RuntimeException e) {
+            log.error("Batch analysis of {} failed", name, e);
+            return result.error("Analysis failed: " + e.getMessage()).build();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @FunctionalInterface
+    private interface FileOpener {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Files of one run in flight and the sink their results are serialised to
+     */
+    private final class Run {
+
+        private final Set<AnalysisType> analyses;
+        private final Consumer<BatchResultDto> results;
+        private final Semaphore inFlight = new Semaphore(readAhead);
+        private final AtomicInteger files = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile RuntimeException sinkFailure;
+
+        Run(Set<AnalysisType> analyses, Consumer<BatchResultDto> results) {
+            this.analyses = analyses;
+            this.results = results;
+        }
+
+        void submit(String name, FileOpener opener) {
+            reserve();
+            start(name, opener);
+        }
+
+        /**
+         * Waits for room for one more file, failing once the sink has failed
+         */
+        void reserve() {
+            inFlight.acquireUninterruptibly();
+            if (sinkFailure != null) {
+                inFlight.release();
+                throw sinkFailure;
+            }
+        }
+
+        void start(String name, FileOpener opener) {
+            pool.execute(() -> finish(analyze(name, opener, analyses)));
+        }
+
+        void finish(BatchResultDto result) {
+            try {
+                files.incrementAndGet();
+                if (result.getError() != null) {
+                    failed.incrementAndGet();
+                }
+                synchronized (this) {
+                    if (sinkFailure == null) {
+                        results.accept(result);
+                    }
+                }
+            } catch (RuntimeException e) {
+                sinkFailure = e;
+            } finally {
+                inFlight.release();
+            }
+        }
+
+        /**
+         * Waits for every file handed to the workers, then rethrows a failure of the sink
+         */
+        void await() {
+            inFlight.acquireUninterruptibly(readAhead);
+            inFlight.release(readAhead);
+            if (sinkFailure != null) {
+                throw sinkFailure;
+            }
+        }
+
+        BatchSummary summary() {
+            return new BatchSummary(files.get(), failed.get());
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.company.batch;
+
+/**
+ * Files analysed by a batch run and how many of them failed
+ */
+public record BatchSummary(int files, int failed) {
+}
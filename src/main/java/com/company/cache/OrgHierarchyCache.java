@@ -0,0 +1,114 @@
+package com.company.cache;
+
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.CacheStatsDto;
+import com.company.model.OrgGraph;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Cache of validated, linked org hierarchies keyed by a SHA-256 digest of the uploaded file
+ */
+@Component
+@Slf4j
+public class OrgHierarchyCache {
+
+    private final boolean enabled;
+    private final BoundedLruCache<String, OrgGraph> cache;
+
+    public OrgHierarchyCache(AnalyzerProperties properties) {
+        AnalyzerProperties.Cache settings = properties.getCache();
+        this.enabled = settings.isEnabled();
+        this.cache = new BoundedLruCache<>(settings.getMaxEntries(), settings.getMaxMemoryBytes(),
+                OrgGraph::estimatedBytes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Digest of the file contents, or null when caching is disabled or the file cannot be read
+     */
+    public String digest(MultipartFile file) {
+        if (!enabled) {
+            return null;
+        }
+        try (InputStream in = file.getInputStream()) {
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.warn("Could not digest uploaded file, skipping cache", e);
+            return null;
+        }
+    }
+
+    /**
+     * Wraps content that can only be read once, such as a streamed request body, so its digest
+     * can be taken with digest(DigestInputStream) after it has been parsed. Returns null when
+     * caching is disabled.
+     */
+    public DigestInputStream digesting(InputStream in) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            return new DigestInputStream(in, sha256());
+        } catch (NoSuchAlgorithmException e) {
+            log.warn("Could not digest streamed upload, skipping cache", e);
+            return null;
+        }
+    }
+
+    /**
+     * Digest of everything read through the stream, matching digest(MultipartFile) for the same content
+     */
+    public String digest(DigestInputStream in) {
+        return in == null ? null : HexFormat.of().formatHex(in.getMessageDigest().digest());
+    }
+
+    private static MessageDigest sha256() throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256");
+    }
+
+    public OrgGraph get(String digest) {
+        return digest == null ? null : cache.get(digest);
+    }
+
+    /**
+     * Stores a fully built hierarchy. OrgGraph is read-only, so it is safe to share between requests.
+     */
+    public void put(String digest, OrgGraph org) {
+        if (digest != null) {
+            cache.put(digest, org);
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public CacheStatsDto getStats() {
+        return CacheStatsDto.builder()
+                .enabled(enabled)
+                .hits(cache.getHits())
+                .misses(cache.getMisses())
+                .evictions(cache.getEvictions())
+                .entries(cache.size())
+                .estimatedBytes(cache.getTotalWeight())
+                .build();
+    }
+}
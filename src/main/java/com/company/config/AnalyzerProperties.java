@@ -0,0 +1,217 @@
+package com.company.config;
+
+import com.company.dtos.RuleSetDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tunable settings for the analyzer, bound from the "analyzer" property prefix
+ */
+@Data
+@ConfigurationProperties(prefix = "analyzer")
+public class AnalyzerProperties {
+
+    private Cache cache = new Cache();
+
+    /**
+     * Apply largeOrgLimits instead of limits, for organisations beyond the default ceilings
+     */
+    private boolean largeOrgMode = false;
+
+    private Limits limits = new Limits(1000, DataSize.ofMegabytes(10));
+
+    private Limits largeOrgLimits = new Limits(2_000_000, DataSize.ofMegabytes(512));
+
+    private Parallel parallel = new Parallel();
+
+    private Snapshots snapshots = new Snapshots();
+
+    private Validation validation = new Validation();
+
+    private Admission admission = new Admission();
+
+    private Jobs jobs = new Jobs();
+
+    private Batch batch = new Batch();
+
+    /**
+     * Named salary band and reporting depth rule sets, e.g. one per tenant, selected per request
+     */
+    private Map<String, RuleSetDto> ruleSets = new HashMap<>();
+
+    /**
+     * Handle requests on virtual threads instead of Tomcat's platform thread pool; needs Java 21
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * Limits in force for the current processing mode
+     */
+    public Limits getEffectiveLimits() {
+        return largeOrgMode ? largeOrgLimits : limits;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limits {
+        /**
+         * Maximum number of employees accepted in one file
+         */
+        private int maxEmployees;
+
+        /**
+         * Maximum size of an uploaded file
+         */
+        private DataSize maxFileSize;
+    }
+
+    @Data
+    public static class Cache {
+        /**
+         * Whether parsed org hierarchies are cached by upload content
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of org hierarchies kept in the cache
+         */
+        private int maxEntries = 32;
+
+        /**
+         * Approximate upper bound on the heap held by cached hierarchies
+         */
+        private long maxMemoryBytes = 64L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Parallel {
+        /**
+         * Whether analyses of large orgs are split by subtree across a fork-join pool
+         */
+        private boolean enabled = false;
+
+        /**
+         * Minimum number of employees in a subtree for it to become a separate task;
+         * orgs smaller than this are always analysed sequentially
+         */
+        private int threshold = 20_000;
+
+        /**
+         * Worker threads in the pool, or 0 for one per available processor
+         */
+        private int parallelism = 0;
+    }
+
+    @Data
+    public static class Snapshots {
+        /**
+         * Directory snapshot files are written to
+         */
+        private String directory = "snapshots";
+
+        /**
+         * Maximum number of snapshots kept loaded in memory
+         */
+        private int maxResident = 16;
+
+        /**
+         * Approximate upper bound on the heap held by loaded snapshots
+         */
+        private DataSize maxResidentMemory = DataSize.ofMegabytes(256);
+
+        /**
+         * Deltas journaled for a snapshot before they are compacted into a new snapshot file
+         */
+        private int maxJournalDeltas = 10_000;
+
+        /**
+         * Size a snapshot's journal may grow to before it is compacted into a new snapshot file
+         */
+        private DataSize maxJournalSize = DataSize.ofMegabytes(16);
+    }
+
+    @Data
+    public static class Validation {
+        /**
+         * Problems listed in a validation report; further ones are only counted
+         */
+        private int maxReportedErrors = 100;
+    }
+
+    @Data
+    public static class Admission {
+        /**
+         * Whether large uploads wait for analysis capacity instead of all running at once
+         */
+        private boolean enabled = true;
+
+        /**
+         * Uploads analysed at the same time, or 0 for one per available processor
+         */
+        private int maxConcurrent = 0;
+
+        /**
+         * Uploads allowed to wait for capacity; further ones are rejected with 429 straight away
+         */
+        private int maxQueued = 16;
+
+        /**
+         * Longest an upload waits for capacity before it is rejected with 429
+         */
+        private Duration maxWait = Duration.ofSeconds(10);
+
+        /**
+         * Uploads smaller than this are cheap to analyse and bypass admission
+         */
+        private DataSize smallUploadThreshold = DataSize.ofMegabytes(1);
+    }
+
+    @Data
+    public static class Jobs {
+        /**
+         * Directory uploads of queued and running jobs are spooled to
+         */
+        private String directory = "jobs";
+
+        /**
+         * Jobs analysed at the same time
+         */
+        private int workers = 1;
+
+        /**
+         * Jobs allowed to wait for a worker; further submissions are rejected with 429
+         */
+        private int maxQueued = 32;
+
+        /**
+         * How long a finished job and its result stay available
+         */
+        private Duration ttl = Duration.ofHours(1);
+
+        /**
+         * Finished jobs kept with their results; beyond it the oldest are dropped before their TTL
+         */
+        private int maxFinished = 100;
+    }
+
+    @Data
+    public static class Batch {
+        /**
+         * Files of a batch parsed and analysed at the same time, or 0 for one per available processor
+         */
+        private int workers = 0;
+
+        /**
+         * Files of a run read ahead of the workers and not yet analysed, or 0 for twice the workers
+         */
+        private int readAhead = 0;
+    }
+}
@@ -0,0 +1,27 @@
+package com.company.config;
+
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.boot.web.servlet.MultipartConfigFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Aligns the servlet multipart limits with the analyzer file size limit of the current mode,
+ * so large-org uploads are not rejected by the container before they reach the validator
+ */
+@Configuration
+public class MultipartConfig {
+
+    // Room for the multipart boundaries and other form fields
+    private static final DataSize REQUEST_OVERHEAD = DataSize.ofMegabytes(1);
+
+    @Bean
+    public MultipartConfigElement multipartConfigElement(AnalyzerProperties properties) {
+        DataSize maxFileSize = properties.getEffectiveLimits().getMaxFileSize();
+        MultipartConfigFactory factory = new MultipartConfigFactory();
+        factory.setMaxFileSize(maxFileSize);
+        factory.setMaxRequestSize(DataSize.ofBytes(maxFileSize.toBytes() + REQUEST_OVERHEAD.toBytes()));
+        return factory.createMultipartConfig();
+    }
+}
@@ -1,16 +1,39 @@
 package com.company.controller;
 
+import com.company.dtos.OrgAnalysisDto;
 import com.company.dtos.ReportingLineDto;
+import com.company.dtos.RuleSetDto;
 import com.company.dtos.SalaryIssueDto;
+import com.company.dtos.SalaryIssuePageDto;
+import com.company.dtos.ValidationReportDto;
+import com.company.exception.InvalidDataException;
+import com.company.model.AnalysisType;
+import com.company.model.RuleSet;
+import com.company.model.SalaryIssueSort;
+import com.company.parser.Compression;
 import com.company.service.OrgAnalyzerService;
+import com.company.service.RuleSets;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -20,22 +43,54 @@ public class AnalyzerController {
 @Autowired
 public OrgAnalyzerService analyzerService;
 
+@Autowired
+public ObjectMapper objectMapper;
+
+@Autowired
+public RuleSets ruleSets;
+
+    // NDJSON output is pushed to the client after this many records
+    private static final int NDJSON_FLUSH_INTERVAL = 256;
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String RULES_HEADER = "X-Analyzer-Rules";
+
     /**
-     * Find managers who earn less than they should (based on subordinates)
+     * Find managers who earn less than they should (based on subordinates).
+     * With limit, sortBy or cursor, returns one page, worst first when sorted; the
+     * X-Next-Cursor header holds the cursor of the next page.
      */
     @PostMapping(value = "/managers/underpaid", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<List<SalaryIssueDto>> getUnderpaidManagers(
-            @RequestParam("file") MultipartFile file) {
-        return ResponseEntity.ok(analyzerService.getUnderpaidManagers(file));
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "sortBy", required = false) SalaryIssueSort sortBy,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        if (limit == null && sortBy == null && cursor == null) {
+            return ResponseEntity.ok(analyzerService.getUnderpaidManagers(file));
+        }
+        return page(analyzerService.getSalaryIssuePage(file, AnalysisType.UNDERPAID, sortBy,
+                limit != null ? limit : DEFAULT_PAGE_SIZE, cursor));
     }
 
     /**
-     * Find managers who earn more than they should (based on subordinates)
+     * Find managers who earn more than they should (based on subordinates).
+     * Paged like the underpaid managers.
      */
     @PostMapping(value = "/managers/overpaid", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<List<SalaryIssueDto>> getOverpaidManagers(
-            @RequestParam("file") MultipartFile file) {
-        return ResponseEntity.ok(analyzerService.getOverpaidManagers(file));
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "sortBy", required = false) SalaryIssueSort sortBy,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        if (limit == null && sortBy == null && cursor == null) {
+            return ResponseEntity.ok(analyzerService.getOverpaidManagers(file));
+        }
+        return page(analyzerService.getSalaryIssuePage(file, AnalysisType.OVERPAID, sortBy,
+                limit != null ? limit : DEFAULT_PAGE_SIZE, cursor));
     }
 
     /**
@@ -46,4 +101,224 @@ public OrgAnalyzerService analyzerService;
             @RequestParam("file") MultipartFile file) {
         return ResponseEntity.ok(analyzerService.getLongReportingLines(file));
     }
+
+    /**
+     * Run several analyses against a single upload of the file.
+     * Use the checks parameter to select analyses; all of them run when it is omitted.
+     * Salary bands and depth limits come from the named ruleSet or a JSON rules part when
+     * either is given, otherwise the built-in rules apply.
+     */
+    @PostMapping(value = "/analysis", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<OrgAnalysisDto> analyze(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "checks", required = false) Set<AnalysisType> checks,
+            @RequestParam(value = "ruleSet", required = false) String ruleSet,
+            @RequestPart(value = "rules", required = false) RuleSetDto rules) {
+        if (ruleSet != null && rules != null) {
+            throw new InvalidDataException("Send either a ruleSet name or rules, not both");
+        }
+        if (ruleSet != null) {
+            return ResponseEntity.ok(analyzerService.analyzeWithRules(file, checks, ruleSets.named(ruleSet)));
+        }
+        if (rules != null) {
+            return ResponseEntity.ok(analyzerService.analyzeWithRules(file, checks, ruleSets.compile(rules)));
+        }
+        return ResponseEntity.ok(analyzerService.analyze(file, checks));
+    }
+
+    /**
+     * Underpaid managers in a CSV sent as the raw request body, parsed as it arrives.
+     * Not paged: limit, sortBy and cursor need a multipart upload and are rejected here.
+     */
+    @PostMapping(value = "/managers/underpaid", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<List<SalaryIssueDto>> getUnderpaidManagers(HttpServletRequest request) {
+        rejectPaging(request);
+        return ResponseEntity.ok(analyzeBody(request, EnumSet.of(AnalysisType.UNDERPAID)).getUnderpaidManagers());
+    }
+
+    /**
+     * Overpaid managers in a CSV sent as the raw request body, parsed as it arrives.
+     * Not paged, like the underpaid managers.
+     */
+    @PostMapping(value = "/managers/overpaid", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<List<SalaryIssueDto>> getOverpaidManagers(HttpServletRequest request) {
+        rejectPaging(request);
+        return ResponseEntity.ok(analyzeBody(request, EnumSet.of(AnalysisType.OVERPAID)).getOverpaidManagers());
+    }
+
+    /**
+     * Employees with long reporting lines in a CSV sent as the raw request body, parsed as it arrives
+     */
+    @PostMapping(value = "/employees/long-reporting-lines", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<List<ReportingLineDto>> getLongReportingLines(HttpServletRequest request) {
+        return ResponseEntity.ok(
+                analyzeBody(request, EnumSet.of(AnalysisType.LONG_REPORTING_LINES)).getLongReportingLines());
+    }
+
+    /**
+     * Run several analyses against a CSV sent as the raw request body rather than a multipart
+     * upload. Rows are parsed as the body arrives, so the upload is never buffered in full;
+     * send Content-Encoding: gzip or zstd for a compressed body. The body holds the CSV, so rules
+     * come from the named ruleSet or as JSON in the X-Analyzer-Rules header.
+     */
+    @PostMapping(value = "/analysis", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<OrgAnalysisDto> analyze(
+            HttpServletRequest request,
+            @RequestParam(value = "checks", required = false) Set<AnalysisType> checks,
+            @RequestParam(value = "ruleSet", required = false) String ruleSet,
+            @RequestHeader(value = RULES_HEADER, required = false) String rules) {
+        if (request.getParameter("rules") != null) {
+            throw new InvalidDataException("Send rules for a raw text/csv body in the " + RULES_HEADER + " header");
+        }
+        if (ruleSet != null && rules != null) {
+            throw new InvalidDataException("Send either a ruleSet name or rules, not both");
+        }
+        if (ruleSet != null) {
+            return ResponseEntity.ok(analyzeBody(request, checks, ruleSets.named(ruleSet)));
+        }
+        if (rules != null) {
+            return ResponseEntity.ok(analyzeBody(request, checks, ruleSets.compile(readRules(rules))));
+        }
+        return ResponseEntity.ok(analyzeBody(request, checks));
+    }
+
+    /**
+     * Check a file without analysing it, listing every problem found (row, column and kind)
+     * in one report instead of failing on the first
+     */
+    @PostMapping(value = "/validation", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ValidationReportDto> validate(@RequestParam("file") MultipartFile file) {
+        return ResponseEntity.ok(analyzerService.validate(file));
+    }
+
+    /**
+     * Underpaid managers as NDJSON, written while the analysis runs. With limit, sortBy or
+     * cursor, writes one page as NDJSON instead, with the next page's cursor in X-Next-Cursor.
+     */
+    @PostMapping(value = "/managers/underpaid", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUnderpaidManagers(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "sortBy", required = false) SalaryIssueSort sortBy,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        if (limit == null && sortBy == null && cursor == null) {
+            return ndjson(analyzerService.streamUnderpaidManagers(file), null);
+        }
+        return ndjsonPage(analyzerService.getSalaryIssuePage(file, AnalysisType.UNDERPAID, sortBy,
+                limit != null ? limit : DEFAULT_PAGE_SIZE, cursor));
+    }
+
+    /**
+     * Overpaid managers as NDJSON, written while the analysis runs. Paged like the underpaid
+     * managers.
+     */
+    @PostMapping(value = "/managers/overpaid", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOverpaidManagers(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "sortBy", required = false) SalaryIssueSort sortBy,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        if (limit == null && sortBy == null && cursor == null) {
+            return ndjson(analyzerService.streamOverpaidManagers(file), null);
+        }
+        return ndjsonPage(analyzerService.getSalaryIssuePage(file, AnalysisType.OVERPAID, sortBy,
+                limit != null ? limit : DEFAULT_PAGE_SIZE, cursor));
+    }
+
+    /**
+     * Employees with long reporting lines as NDJSON, written while the analysis runs
+     */
+    @PostMapping(value = "/employees/long-reporting-lines", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamLongReportingLines(
+            @RequestParam("file") MultipartFile file) {
+        return ndjson(analyzerService.streamLongReportingLines(file), null);
+    }
+
+    /**
+     * The page's issues as the body, with the next page's cursor in a header while there are more
+     */
+    static ResponseEntity<List<SalaryIssueDto>> page(SalaryIssuePageDto page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getIssues());
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjsonPage(SalaryIssuePageDto page) {
+        return ndjson(page.getIssues().stream(), page.getNextCursor());
+    }
+
+    /**
+     * Raw bodies go through analyzeStream, which has no paged form, so paging parameters on a
+     * raw body fail rather than being ignored
+     */
+    private static void rejectPaging(HttpServletRequest request) {
+        for (String parameter : List.of("limit", "sortBy", "cursor")) {
+            if (request.getParameter(parameter) != null) {
+                throw new InvalidDataException("Paging (" + parameter + ") needs a multipart upload, " +
+                        "not a raw text/csv body");
+            }
+        }
+    }
+
+    private OrgAnalysisDto analyzeBody(HttpServletRequest request, Set<AnalysisType> checks) {
+        return analyzeBody(request, checks, null);
+    }
+
+    /**
+     * Analyses the raw body against the rules, or the built-in rules when rules is null
+     */
+    private OrgAnalysisDto analyzeBody(HttpServletRequest request, Set<AnalysisType> checks, RuleSet rules) {
+        Compression compression = Compression.forContentEncoding(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        try {
+            return rules == null
+                    ? analyzerService.analyzeStream(request.getInputStream(), request.getContentLengthLong(),
+                            compression, checks)
+                    : analyzerService.analyzeStreamWithRules(request.getInputStream(),
+                            request.getContentLengthLong(), compression, checks, rules);
+        } catch (IOException e) {
+            throw new InvalidDataException("Failed to read the CSV upload");
+        }
+    }
+
+    private RuleSetDto readRules(String json) {
+        try {
+            return objectMapper.readValue(json, RuleSetDto.class);
+        } catch (JsonProcessingException e) {
+            throw new InvalidDataException("Invalid " + RULES_HEADER + " header: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Writes one JSON document per line as records are pulled from the stream. Only the
+     * generator and servlet buffers are held, and a slow client blocks the writes, which in
+     * turn pauses the analysis producing the records. A non-null nextCursor is sent in the
+     * X-Next-Cursor header.
+     */
+    private <T> ResponseEntity<StreamingResponseBody> ndjson(Stream<T> records, String nextCursor) {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (records; JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                int written = 0;
+                for (Iterator<T> it = records.iterator(); it.hasNext(); ) {
+                    writer.writeValue(generator, it.next());
+                    generator.writeRaw('\n');
+                    if (++written % NDJSON_FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 }
\ No newline at end of file
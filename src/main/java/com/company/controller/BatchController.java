@@ -0,0 +1,51 @@
+package com.company.controller;
+
+import com.company.batch.BatchAnalyzer;
+import com.company.batch.NdjsonResultWriter;
+import com.company.exception.InvalidDataException;
+import com.company.model.AnalysisType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/v1/batch")
+@RequiredArgsConstructor
+public class BatchController {
+
+    private final BatchAnalyzer batchAnalyzer;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Analyse every CSV file of a zip archive, writing one NDJSON line per file as each finishes.
+     * All analyses run when checks is omitted.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> analyzeBatch(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "checks", required = false) Set<AnalysisType> checks) {
+        String filename = file.getOriginalFilename();
+        if (file.isEmpty() || filename == null || !filename.toLowerCase(Locale.ROOT).endsWith(".zip")) {
+            throw new InvalidDataException("Batches are uploaded as a .zip archive of CSV files. Received: " +
+                    (filename != null ? filename : "unknown file type"));
+        }
+
+        StreamingResponseBody body = out -> {
+            try (InputStream archive = file.getInputStream();
+                 NdjsonResultWriter results = new NdjsonResultWriter(objectMapper, out)) {
+                batchAnalyzer.analyzeZip(archive, checks, results);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
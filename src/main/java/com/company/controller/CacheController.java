@@ -0,0 +1,32 @@
+package com.company.controller;
+
+import com.company.cache.OrgHierarchyCache;
+import com.company.dtos.CacheStatsDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/cache")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final OrgHierarchyCache hierarchyCache;
+
+    /**
+     * Hit, miss and eviction counts of the parsed hierarchy cache
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<CacheStatsDto> getStats() {
+        return ResponseEntity.ok(hierarchyCache.getStats());
+    }
+
+    /**
+     * Drop all cached hierarchies
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> clear() {
+        hierarchyCache.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
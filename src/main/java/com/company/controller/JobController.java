@@ -0,0 +1,50 @@
+package com.company.controller;
+
+import com.company.dtos.JobDto;
+import com.company.job.AnalysisJobs;
+import com.company.model.AnalysisType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.net.URI;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/v1/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final AnalysisJobs analysisJobs;
+
+    /**
+     * Queue the selected analyses of a file and return at once with the job to poll.
+     * All analyses run when checks is omitted.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<JobDto> submitJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "checks", required = false) Set<AnalysisType> checks) {
+        JobDto job = analysisJobs.submit(file, checks);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/v1/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    /**
+     * Status and progress of a job, with its result once it has succeeded
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<JobDto> getJob(@PathVariable String id) {
+        return ResponseEntity.ok(analysisJobs.describe(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteJob(@PathVariable String id) {
+        analysisJobs.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+}
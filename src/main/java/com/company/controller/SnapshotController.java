@@ -0,0 +1,180 @@
+package com.company.controller;
+
+import com.company.dtos.EmployeeDeltaDto;
+import com.company.dtos.EmployeeDto;
+import com.company.dtos.EmployeePageDto;
+import com.company.dtos.ReportingLineDto;
+import com.company.dtos.SalaryIssueDto;
+import com.company.dtos.SnapshotDto;
+import com.company.dtos.SpanOfControlDto;
+import com.company.dtos.SubordinatesDto;
+import com.company.model.AnalysisType;
+import com.company.model.SalaryIssueSort;
+import com.company.service.OrgAnalyzerService;
+import com.company.service.OrgQueryService;
+import com.company.snapshot.SnapshotStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/snapshots")
+@RequiredArgsConstructor
+public class SnapshotController {
+
+    private final OrgAnalyzerService analyzerService;
+    private final SnapshotStore snapshotStore;
+    private final OrgQueryService queryService;
+
+    /**
+     * Parse and validate a CSV file once and keep it as a snapshot for later queries
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<SnapshotDto> createSnapshot(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "name", required = false) String name) {
+        SnapshotDto snapshot = snapshotStore.create(name != null ? name : file.getOriginalFilename(),
+                analyzerService.loadOrgForSnapshot(file));
+        return ResponseEntity.status(HttpStatus.CREATED).body(snapshot);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<SnapshotDto> getSnapshot(@PathVariable String id) {
+        return ResponseEntity.ok(snapshotStore.describe(id));
+    }
+
+    /**
+     * Apply hires, leavers, moves and salary changes to the snapshot without re-uploading it.
+     * Later queries of the snapshot reflect the changes.
+     */
+    @PostMapping(value = "/{id}/deltas", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SnapshotDto> applyDeltas(@PathVariable String id,
+                                                   @RequestBody List<EmployeeDeltaDto> deltas) {
+        return ResponseEntity.ok(snapshotStore.applyDeltas(id, deltas));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteSnapshot(@PathVariable String id) {
+        snapshotStore.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Find managers in the snapshot who earn less than they should, paged like the upload endpoint
+     */
+    @GetMapping("/{id}/managers/underpaid")
+    public ResponseEntity<List<SalaryIssueDto>> getUnderpaidManagers(
+            @PathVariable String id,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "sortBy", required = false) SalaryIssueSort sortBy,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        if (limit == null && sortBy == null && cursor == null) {
+            return ResponseEntity.ok(analyzerService.findUnderpaidManagers(snapshotStore.query(id)));
+        }
+        return AnalyzerController.page(analyzerService.findSalaryIssuePage(snapshotStore.query(id),
+                AnalysisType.UNDERPAID, sortBy, limit != null ? limit : AnalyzerController.DEFAULT_PAGE_SIZE, cursor));
+    }
+
+    /**
+     * Find managers in the snapshot who earn more than they should, paged like the upload endpoint
+     */
+    @GetMapping("/{id}/managers/overpaid")
+    public ResponseEntity<List<SalaryIssueDto>> getOverpaidManagers(
+            @PathVariable String id,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "sortBy", required = false) SalaryIssueSort sortBy,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        if (limit == null && sortBy == null && cursor == null) {
+            return ResponseEntity.ok(analyzerService.findOverpaidManagers(snapshotStore.query(id)));
+        }
+        return AnalyzerController.page(analyzerService.findSalaryIssuePage(snapshotStore.query(id),
+                AnalysisType.OVERPAID, sortBy, limit != null ? limit : AnalyzerController.DEFAULT_PAGE_SIZE, cursor));
+    }
+
+    /**
+     * Find employees in the snapshot with reporting lines that are too long
+     */
+    @GetMapping("/{id}/employees/long-reporting-lines")
+    public ResponseEntity<List<ReportingLineDto>> getLongReportingLines(@PathVariable String id) {
+        return ResponseEntity.ok(analyzerService.findLongReportingLines(snapshotStore.query(id)));
+    }
+
+    @GetMapping("/{id}/employees/{employeeId}")
+    public ResponseEntity<EmployeeDto> getEmployee(@PathVariable String id, @PathVariable String employeeId) {
+        return ResponseEntity.ok(queryService.employee(id, employeeId));
+    }
+
+    /**
+     * Everyone under the employee, directly or indirectly, in depth-first order, a page at a time
+     */
+    @GetMapping("/{id}/employees/{employeeId}/subordinates")
+    public ResponseEntity<SubordinatesDto> getSubordinates(
+            @PathVariable String id,
+            @PathVariable String employeeId,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return ResponseEntity.ok(queryService.subordinates(id, employeeId, offset, limit));
+    }
+
+    /**
+     * The employee and every manager above it, up to the CEO
+     */
+    @GetMapping("/{id}/employees/{employeeId}/reporting-chain")
+    public ResponseEntity<List<EmployeeDto>> getReportingChain(@PathVariable String id,
+                                                               @PathVariable String employeeId) {
+        return ResponseEntity.ok(queryService.reportingChain(id, employeeId));
+    }
+
+    /**
+     * Whether the employee is under the manager, directly or indirectly
+     */
+    @GetMapping("/{id}/employees/{employeeId}/reports-to/{managerId}")
+    public ResponseEntity<Map<String, Boolean>> reportsTo(@PathVariable String id,
+                                                          @PathVariable String employeeId,
+                                                          @PathVariable String managerId) {
+        return ResponseEntity.ok(Map.of("reportsTo", queryService.reportsTo(id, employeeId, managerId)));
+    }
+
+    /**
+     * Lowest manager of both employees; 404 if they are under different roots
+     */
+    @GetMapping("/{id}/employees/{employeeId}/common-manager")
+    public ResponseEntity<EmployeeDto> getCommonManager(@PathVariable String id,
+                                                        @PathVariable String employeeId,
+                                                        @RequestParam("with") String otherId) {
+        return ResponseEntity.of(queryService.commonManager(id, employeeId, otherId));
+    }
+
+    /**
+     * Managers with at least minDirectReports direct reports, widest span first, one page at a
+     * time like the salary issues: the X-Next-Cursor header holds the cursor of the next page
+     */
+    @GetMapping("/{id}/managers")
+    public ResponseEntity<List<EmployeeDto>> getManagers(
+            @PathVariable String id,
+            @RequestParam(value = "minDirectReports", defaultValue = "1") int minDirectReports,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        EmployeePageDto page = queryService.managersWithDirectReports(id, minDirectReports,
+                limit != null ? limit : AnalyzerController.DEFAULT_PAGE_SIZE, cursor);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(AnalyzerController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getEmployees());
+    }
+
+    /**
+     * Number of managers by how many direct reports they have
+     */
+    @GetMapping("/{id}/span-of-control")
+    public ResponseEntity<SpanOfControlDto> getSpanOfControl(@PathVariable String id) {
+        return ResponseEntity.ok(queryService.spanOfControl(id));
+    }
+}
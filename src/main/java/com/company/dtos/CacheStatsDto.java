@@ -0,0 +1,19 @@
+package com.company.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDto {
+    private boolean enabled;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int entries;
+    private long estimatedBytes;
+}
@@ -0,0 +1,23 @@
+package com.company.dtos;
+
+import com.company.model.DeltaType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One change to a stored org. ADD uses every field, REMOVE only the id, MOVE the id and
+ * managerId (empty for a new root) and SALARY the id and salary.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeDeltaDto {
+    private DeltaType op;
+    private String id;
+    private String name;
+    private Double salary;
+    private String managerId;
+}
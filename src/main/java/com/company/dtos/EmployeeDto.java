@@ -0,0 +1,19 @@
+package com.company.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeDto {
+    private String id;
+    private String name;
+    private double salary;
+    private String managerId;
+    private int reportingLineDepth;
+    private int directReports;
+}
@@ -0,0 +1,17 @@
+package com.company.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeePageDto {
+    private List<EmployeeDto> employees;
+    private String nextCursor;
+}
@@ -0,0 +1,31 @@
+package com.company.dtos;
+
+import com.company.metrics.PipelineMetrics.Stage;
+import com.company.model.JobStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobDto {
+    private String id;
+    private JobStatus status;
+    /**
+     * Pipeline stage the job is in while running
+     */
+    private Stage stage;
+    private long rowsParsed;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+    private OrgAnalysisDto result;
+}
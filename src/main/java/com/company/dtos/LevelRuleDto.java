@@ -0,0 +1,19 @@
+package com.company.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Salary band for managers at one reporting depth (0 for the CEO)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LevelRuleDto {
+    private Integer level;
+    private Double minSalaryMultiplier;
+    private Double maxSalaryMultiplier;
+}
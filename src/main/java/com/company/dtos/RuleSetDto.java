@@ -0,0 +1,28 @@
+package com.company.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Salary bands and reporting depth limits to analyse an org against. Unset defaults fall back to
+ * the built-in rules; level rules override the default band for managers at that reporting
+ * depth, and subtree rules override both for a manager and everyone under them.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleSetDto {
+    private Double minSalaryMultiplier;
+    private Double maxSalaryMultiplier;
+    private Integer maxReportingDepth;
+    @Builder.Default
+    private List<LevelRuleDto> levels = new ArrayList<>();
+    @Builder.Default
+    private List<SubtreeRuleDto> subtrees = new ArrayList<>();
+}
@@ -0,0 +1,18 @@
+package com.company.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.SortedMap;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpanOfControlDto {
+    private int managers;
+    private int maxDirectReports;
+    private SortedMap<Integer, Integer> histogram;
+}
@@ -0,0 +1,19 @@
+package com.company.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubordinatesDto {
+    private String managerId;
+    private int total;
+    private int offset;
+    private List<EmployeeDto> employees;
+}
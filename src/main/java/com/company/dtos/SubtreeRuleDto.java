@@ -0,0 +1,20 @@
+package com.company.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Salary band and/or reporting depth limit for a manager and everyone under them
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubtreeRuleDto {
+    private String managerId;
+    private Double minSalaryMultiplier;
+    private Double maxSalaryMultiplier;
+    private Integer maxReportingDepth;
+}
@@ -0,0 +1,24 @@
+package com.company.dtos;
+
+import com.company.model.ValidationErrorKind;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ValidationErrorDto {
+    /**
+     * CSV row, counting the header as row 1; absent for problems spanning rows, such as cycles
+     */
+    private Long row;
+    private String column;
+    private ValidationErrorKind kind;
+    private String employeeId;
+    private String message;
+}
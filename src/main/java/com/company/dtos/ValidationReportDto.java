@@ -0,0 +1,23 @@
+package com.company.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValidationReportDto {
+    private boolean valid;
+    private long rows;
+    private long errorCount;
+    /**
+     * The first errors found, up to the configured cap; errorCount includes the rest
+     */
+    private List<ValidationErrorDto> errors;
+    private boolean truncated;
+}
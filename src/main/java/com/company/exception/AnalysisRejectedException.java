@@ -0,0 +1,30 @@
+package com.company.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when the analysis capacity and its queue are full. Answered with 429 and a
+ * Retry-After header estimating when capacity frees up.
+ */
+public class AnalysisRejectedException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public AnalysisRejectedException(long retryAfterSeconds) {
+        super(HttpStatus.TOO_MANY_REQUESTS, "Analysis capacity is saturated, retry in " + retryAfterSeconds + "s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,11 @@
+package com.company.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class EmployeeNotFoundException extends RuntimeException {
+    public EmployeeNotFoundException(String id) {
+        super("Employee not found: " + id);
+    }
+}
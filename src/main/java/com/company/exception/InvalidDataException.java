@@ -5,4 +5,8 @@ public class InvalidDataException extends RuntimeException {
         public InvalidDataException(String message) {
             super(message);
         }
+
+        public InvalidDataException(String message, Throwable cause) {
+            super(message, cause);
+        }
     }
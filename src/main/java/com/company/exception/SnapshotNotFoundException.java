@@ -0,0 +1,11 @@
+package com.company.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class SnapshotNotFoundException extends RuntimeException {
+    public SnapshotNotFoundException(String id) {
+        super("Snapshot not found: " + id);
+    }
+}
@@ -0,0 +1,263 @@
+package com.company.job;
+
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.JobDto;
+import com.company.dtos.OrgAnalysisDto;
+import com.company.exception.AnalysisRejectedException;
+import com.company.exception.JobNotFoundException;
+import com.company.metrics.PipelineMetrics.Stage;
+import com.company.model.AnalysisType;
+import com.company.model.JobStatus;
+import com.company.service.AnalysisProgress;
+import com.company.service.OrgAnalyzerService;
+import com.company.validator.CsvValidator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Analyses run in the background, so clients do not hold a connection open for the whole
+ * parse and analysis of a large file.
+ * <p>
+ * Submitting spools the upload to the jobs directory and queues the job for a fixed pool of
+ * workers; a full queue rejects the submission with 429. Jobs report their pipeline stage and
+ * rows parsed while running. The spooled file is deleted as soon as the job finishes, and the
+ * job with its result is evicted once it has been finished for longer than the TTL, or sooner
+ * when more than the configured number of finished jobs are kept, oldest first.
+ */
+@Component
+@Slf4j
+public class AnalysisJobs {
+
+    private final OrgAnalyzerService analyzerService;
+    private final CsvValidator csvValidator;
+    private final Path directory;
+    private final Duration ttl;
+    private final int maxFinished;
+    private final int workers;
+    private final ThreadPoolExecutor pool;
+    private final ScheduledExecutorService sweeper;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    // finished jobs still kept, oldest first; guarded by itself
+    private final Deque<Job> finished = new ArrayDeque<>();
+    private final AtomicLong finishedJobs = new AtomicLong();
+    private final AtomicLong finishedJobNanos = new AtomicLong();
+
+    public AnalysisJobs(AnalyzerProperties properties, OrgAnalyzerService analyzerService,
+                        CsvValidator csvValidator) {
+        AnalyzerProperties.Jobs settings = properties.getJobs();
+        this.analyzerService = analyzerService;
+        this.csvValidator = csvValidator;
+        // absolute, as servlet parts resolve relative targets against the container's upload location
+        this.directory = Path.of(settings.getDirectory()).toAbsolutePath();
+        this.ttl = settings.getTtl();
+        this.maxFinished = Math.max(0, settings.getMaxFinished());
+        this.workers = Math.max(1, settings.getWorkers());
+        this.pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, settings.getMaxQueued())), daemonThreads("analysis-job-"));
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(daemonThreads("analysis-job-sweeper-"));
+        long sweepMillis = Math.max(1000, Math.min(ttl.toMillis() / 2, 60_000));
+        sweeper.scheduleWithFixedDelay(this::evictExpired, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Spools the upload and queues its analysis, returning the queued job. Files of the wrong
+     * type or size are rejected before anything is written to the jobs directory.
+     */
+    public JobDto submit(MultipartFile file, Set<AnalysisType> analyses) {
+        csvValidator.validateFile(file);
+
+        Job job = new Job(UUID.randomUUID().toString());
+        try {
+            Files.createDirectories(directory);
+            job.upload = new SpooledUpload(file, directory.resolve(job.id + ".csv"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spool upload for job " + job.id, e);
+        }
+
+        // the task is in place before the job can be seen, so a delete can always cancel it
+        FutureTask<Void> task = new FutureTask<>(() -> run(job, analyses), null);
+        job.future = task;
+        jobs.put(job.id, job);
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            deleteUpload(job);
+            throw new AnalysisRejectedException(retryAfterSeconds());
+        }
+        return job.toDto();
+    }
+
+    public JobDto describe(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new JobNotFoundException(id);
+        }
+        return job.toDto();
+    }
+
+    /**
+     * Forgets a job and its result. A queued job is cancelled; a running one finishes in the
+     * background and its result is dropped.
+     */
+    public void delete(String id) {
+        Job job = jobs.remove(id);
+        if (job == null) {
+            throw new JobNotFoundException(id);
+        }
+        job.future.cancel(false);
+        deleteUpload(job);
+        synchronized (finished) {
+            finished.remove(job);
+        }
+    }
+
+    private void run(Job job, Set<AnalysisType> analyses) {
+        job.startedAt = Instant.now();
+        job.status = JobStatus.RUNNING;
+        long start = System.nanoTime();
+        JobStatus status = JobStatus.FAILED;
+        try {
+            job.result = analyzerService.analyzeWithProgress(job.upload, analyses, job);
+            status = JobStatus.SUCCEEDED;
+        } catch (RuntimeException e) {
+            log.info("Job {} failed: {}", job.id, e.getMessage());
+            job.error = e.getMessage();
+        } finally {
+            deleteUpload(job);
+            finishedJobs.incrementAndGet();
+            finishedJobNanos.addAndGet(System.nanoTime() - start);
+            job.stage = null;
+            job.finishedAt = Instant.now();
+            retire(job);
+            // published last, so a finished status is always seen with its result or error
+            job.status = status;
+        }
+    }
+
+    /**
+     * Keeps a finished job, dropping the oldest finished ones beyond the cap so their results
+     * do not pile up in memory until the TTL.
+     */
+    private void retire(Job job) {
+        synchronized (finished) {
+            if (jobs.get(job.id) == job) {
+                finished.addLast(job);
+            }
+            while (finished.size() > maxFinished) {
+                Job oldest = finished.removeFirst();
+                jobs.remove(oldest.id, oldest);
+            }
+        }
+    }
+
+    /**
+     * Drops jobs finished longer than the TTL ago
+     */
+    void evictExpired() {
+        Instant cutoff = Instant.now().minus(ttl);
+        synchronized (finished) {
+            while (!finished.isEmpty() && finished.peekFirst().finishedAt.isBefore(cutoff)) {
+                Job oldest = finished.removeFirst();
+                jobs.remove(oldest.id, oldest);
+            }
+        }
+    }
+
+    private long retryAfterSeconds() {
+        long finished = finishedJobs.get();
+        long averageNanos = finished == 0 ? 0 : finishedJobNanos.get() / finished;
+        long waitNanos = averageNanos * (pool.getQueue().size() + 1) / workers;
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+    }
+
+    private static void deleteUpload(Job job) {
+        try {
+            Files.deleteIfExists(job.upload.path());
+        } catch (IOException e) {
+            log.warn("Could not delete spooled upload of job {}", job.id, e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    /**
+     * State of one job. Written by its worker and read by polling requests, hence volatile.
+     */
+    private static final class Job implements AnalysisProgress {
+
+        private final String id;
+        private final Instant submittedAt = Instant.now();
+        private final AtomicLong rowsParsed = new AtomicLong();
+        private SpooledUpload upload;
+        private volatile Future<?> future;
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile Stage stage;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String error;
+        private volatile OrgAnalysisDto result;
+
+        Job(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void stage(Stage stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        public void rowParsed() {
+            rowsParsed.incrementAndGet();
+        }
+
+        boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        JobDto toDto() {
+            return JobDto.builder()
+                    .id(id)
+                    .status(status)
+                    .stage(stage)
+                    .rowsParsed(rowsParsed.get())
+                    .submittedAt(submittedAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .result(result)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.company.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation of the upload pipeline: a timer per stage, counters of parsed rows,
+ * rejected uploads and problems found by validation reports, and the bytes allocated by the
+ * request thread per operation. Meters are
+ * registered up front so recording only costs a clock read and an atomic update.
+ */
+@Component
+public class PipelineMetrics {
+
+    public enum Stage {
+        VALIDATE_FILE,
+        DIGEST,
+        PARSE,
+        VALIDATE_EMPLOYEES,
+        BUILD_HIERARCHY,
+        VALIDATE_HIERARCHY,
+        ANALYZE;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationTracking();
+
+    private final MeterRegistry registry;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Counter parsedRows;
+    private final Counter rejectedUploads;
+    private final Counter validationErrors;
+    private final Map<String, DistributionSummary> allocations = new ConcurrentHashMap<>();
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("analyzer.pipeline.stage")
+                    .description("Time spent in one stage of the upload pipeline")
+                    .tag("stage", stage.tag())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        this.parsedRows = Counter.builder("analyzer.rows.parsed")
+                .description("Employee rows parsed from uploads")
+                .register(registry);
+        this.rejectedUploads = Counter.builder("analyzer.uploads.rejected")
+                .description("Uploads rejected because their content failed parsing or validation")
+                .register(registry);
+        this.validationErrors = Counter.builder("analyzer.validation.errors")
+                .description("Problems found in files checked by validation reports")
+                .register(registry);
+    }
+
+    public <T> T time(Stage stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            stageTimers.get(stage).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void time(Stage stage, Runnable work) {
+        long start = System.nanoTime();
+        try {
+            work.run();
+        } finally {
+            stageTimers.get(stage).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void rowsParsed(int rows) {
+        parsedRows.increment(rows);
+    }
+
+    /**
+     * An upload failed on its content. Uploads are rejected on the first bad row, so this counts
+     * uploads, not rows; validationErrors counts every problem in a validation report.
+     */
+    public void uploadRejected() {
+        rejectedUploads.increment();
+    }
+
+    public void validationErrors(long errors) {
+        validationErrors.increment(errors);
+    }
+
+    /**
+     * Runs the operation and samples the bytes the calling thread allocated while doing so.
+     * Work the operation hands to other threads is not included.
+     */
+    public <T> T measureAllocation(String operation, Supplier<T> work) {
+        if (THREADS == null) {
+            return work.get();
+        }
+        long start = THREADS.getCurrentThreadAllocatedBytes();
+        try {
+            return work.get();
+        } finally {
+            allocations.computeIfAbsent(operation, this::allocationSummary)
+                    .record(THREADS.getCurrentThreadAllocatedBytes() - start);
+        }
+    }
+
+    private DistributionSummary allocationSummary(String operation) {
+        return DistributionSummary.builder("analyzer.request.allocated")
+                .description("Bytes allocated by the request thread")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static com.sun.management.ThreadMXBean allocationTracking() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+}
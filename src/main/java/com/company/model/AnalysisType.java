@@ -0,0 +1,10 @@
+package com.company.model;
+
+/**
+ * Analyses that can be requested from a single upload
+ */
+public enum AnalysisType {
+    UNDERPAID,
+    OVERPAID,
+    LONG_REPORTING_LINES
+}
@@ -0,0 +1,11 @@
+package com.company.model;
+
+/**
+ * Changes that can be applied to a stored org without re-uploading it
+ */
+public enum DeltaType {
+    ADD,
+    REMOVE,
+    MOVE,
+    SALARY
+}
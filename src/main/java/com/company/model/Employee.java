@@ -1,8 +1,5 @@
 package com.company.model;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.opencsv.bean.CsvBindByName;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -24,22 +21,4 @@ public class Employee {
 
     @CsvBindByName(column = "manager_id")
     private String managerId;
-
-    private List<Employee> subordinates = new ArrayList<>();
-
-    private int reportingLineDepth = -1; // -1 means not calculated yet
-
-    public void addSubordinate(Employee subordinate) {
-        subordinates.add(subordinate);
-    }
-
-    public double getAverageSubordinateSalary() {
-        if (subordinates.isEmpty()) {
-            return 0;
-        }
-        return subordinates.stream()
-                .mapToDouble(Employee::getSalary)
-                .average()
-                .orElse(0);
-    }
-}
\ No newline at end of file
+}
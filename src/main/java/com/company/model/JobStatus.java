@@ -0,0 +1,11 @@
+package com.company.model;
+
+/**
+ * Lifecycle of an asynchronous analysis job
+ */
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
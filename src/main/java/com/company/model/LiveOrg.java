@@ -0,0 +1,397 @@
+package com.company.model;
+
+import com.company.exception.InvalidDataException;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Updatable org hierarchy that keeps its analysis results current as employees are added,
+ * removed, moved and re-paid.
+ * <p>
+ * Each employee keeps the running salary sum and count of its direct subordinates, and the
+ * managers outside their salary band and the employees with too long a reporting line are
+ * held in bit sets. An update only re-checks the employees whose inputs changed: the employee
+ * and its old and new managers, plus the depths of a moved subtree. So applying a change costs
+ * O(1) or O(size of the moved subtree) rather than a rebuild of the whole org.
+ * <p>
+ * Subordinates are kept in doubly linked sibling lists so they can be detached in O(1).
+ * Removed employees' indices are reused. Not thread safe; callers synchronize on the instance.
+ */
+public final class LiveOrg implements OrgView {
+
+    private static final int NONE = -1;
+
+    private final Map<String, Integer> indexById;
+    private String[] ids;
+    private String[] names;
+    private double[] salaries;
+    private int[] parents;
+    private int[] depths;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] previousSiblings;
+    private double[] subordinateSalarySums;
+    private int[] subordinateCounts;
+    private int[] free;
+    private int freeCount;
+    private int capacity;
+
+    private final BitSet underpaid = new BitSet();
+    private final BitSet overpaid = new BitSet();
+    private final BitSet longReportingLines = new BitSet();
+
+    private LiveOrg(int capacity) {
+        this.indexById = new HashMap<>(capacity * 2);
+        this.ids = new String[capacity];
+        this.names = new String[capacity];
+        this.salaries = new double[capacity];
+        this.parents = new int[capacity];
+        this.depths = new int[capacity];
+        this.firstChildren = new int[capacity];
+        this.nextSiblings = new int[capacity];
+        this.previousSiblings = new int[capacity];
+        this.subordinateSalarySums = new double[capacity];
+        this.subordinateCounts = new int[capacity];
+        this.free = new int[0];
+    }
+
+    /**
+     * Copies an org into updatable form and runs every check once. The org must be free of
+     * manager cycles, as validated orgs are.
+     */
+    public static LiveOrg of(OrgGraph org) {
+        int size = org.size();
+        LiveOrg live = new LiveOrg(Math.max(16, size));
+        live.capacity = size;
+        Arrays.fill(live.firstChildren, NONE);
+        for (int employee = 0; employee < size; employee++) {
+            live.ids[employee] = org.id(employee);
+            live.names[employee] = org.name(employee);
+            live.salaries[employee] = org.salary(employee);
+            live.parents[employee] = org.parent(employee);
+            live.depths[employee] = org.depth(employee);
+            live.indexById.put(org.id(employee), employee);
+        }
+        for (int employee = size - 1; employee >= 0; employee--) {
+            int parent = live.parents[employee];
+            live.previousSiblings[employee] = NONE;
+            live.nextSiblings[employee] = NONE;
+            if (parent != NONE) {
+                live.link(employee, parent);
+            }
+        }
+        for (int employee = 0; employee < size; employee++) {
+            live.recheck(employee);
+        }
+        return live;
+    }
+
+    /**
+     * Adds an employee reporting to the manager, or a new root when managerId is empty
+     */
+    public void add(String id, String name, double salary, String managerId) {
+        if (id == null || id.isEmpty()) {
+            throw new InvalidDataException("Employee ID is required");
+        }
+        if (indexById.containsKey(id)) {
+            throw new InvalidDataException("Duplicate employee ID: " + id);
+        }
+        validateSalary(id, salary);
+        int parent = managerId == null || managerId.isEmpty() ? NONE : indexOf(managerId);
+
+        int employee = allocate();
+        ids[employee] = id;
+        names[employee] = name;
+        salaries[employee] = salary;
+        parents[employee] = parent;
+        depths[employee] = parent == NONE ? 0 : depths[parent] + 1;
+        firstChildren[employee] = NONE;
+        nextSiblings[employee] = NONE;
+        previousSiblings[employee] = NONE;
+        subordinateSalarySums[employee] = 0;
+        subordinateCounts[employee] = 0;
+        indexById.put(id, employee);
+
+        if (parent != NONE) {
+            link(employee, parent);
+            recheck(parent);
+        }
+        recheck(employee);
+    }
+
+    /**
+     * Removes an employee. Its direct subordinates move up to report to its manager, or become
+     * roots if it had none.
+     */
+    public void remove(String id) {
+        int employee = indexOf(id);
+        int parent = parents[employee];
+        if (parent != NONE) {
+            unlink(employee);
+        }
+
+        int child = firstChildren[employee];
+        while (child != NONE) {
+            int next = nextSiblings[child];
+            parents[child] = NONE;
+            if (parent != NONE) {
+                link(child, parent);
+            } else {
+                nextSiblings[child] = NONE;
+                previousSiblings[child] = NONE;
+            }
+            shiftDepths(child, -1);
+            child = next;
+        }
+        if (parent != NONE) {
+            recheck(parent);
+        }
+
+        indexById.remove(id);
+        ids[employee] = null;
+        names[employee] = null;
+        underpaid.clear(employee);
+        overpaid.clear(employee);
+        longReportingLines.clear(employee);
+        release(employee);
+    }
+
+    /**
+     * Moves an employee and its whole subtree under a new manager, or makes it a root when
+     * managerId is empty
+     */
+    public void move(String id, String managerId) {
+        int employee = indexOf(id);
+        int parent = managerId == null || managerId.isEmpty() ? NONE : indexOf(managerId);
+        for (int ancestor = parent; ancestor != NONE; ancestor = parents[ancestor]) {
+            if (ancestor == employee) {
+                throw new InvalidDataException("Moving employee " + id + " under " + managerId
+                        + " would create a manager cycle");
+            }
+        }
+
+        int oldParent = parents[employee];
+        if (oldParent == parent) {
+            return;
+        }
+        if (oldParent != NONE) {
+            unlink(employee);
+            recheck(oldParent);
+        }
+        if (parent != NONE) {
+            link(employee, parent);
+            recheck(parent);
+        } else {
+            parents[employee] = NONE;
+        }
+        shiftDepths(employee, (parent == NONE ? 0 : depths[parent] + 1) - depths[employee]);
+    }
+
+    public void changeSalary(String id, double salary) {
+        int employee = indexOf(id);
+        validateSalary(id, salary);
+        int parent = parents[employee];
+        if (parent != NONE) {
+            subordinateSalarySums[parent] += salary - salaries[employee];
+        }
+        salaries[employee] = salary;
+        recheck(employee);
+        if (parent != NONE) {
+            recheck(parent);
+        }
+    }
+
+    public boolean contains(String id) {
+        return id != null && indexById.containsKey(id);
+    }
+
+    /**
+     * Current employees, including ones added since the org was loaded
+     */
+    public int employees() {
+        return indexById.size();
+    }
+
+    public int[] underpaidManagers() {
+        return underpaid.stream().toArray();
+    }
+
+    public int[] overpaidManagers() {
+        return overpaid.stream().toArray();
+    }
+
+    public int[] longReportingLines() {
+        return longReportingLines.stream().toArray();
+    }
+
+    @Override
+    public String id(int employee) {
+        return ids[employee];
+    }
+
+    @Override
+    public String name(int employee) {
+        return names[employee];
+    }
+
+    @Override
+    public double salary(int employee) {
+        return salaries[employee];
+    }
+
+    @Override
+    public int depth(int employee) {
+        return depths[employee];
+    }
+
+    @Override
+    public int subordinateCount(int employee) {
+        return subordinateCounts[employee];
+    }
+
+    @Override
+    public double averageSubordinateSalary(int employee) {
+        int count = subordinateCounts[employee];
+        return count == 0 ? 0 : subordinateSalarySums[employee] / count;
+    }
+
+    /**
+     * Current employees as a read-only graph, so indexes built for stored orgs can be built
+     * for an updated one too
+     */
+    public OrgGraph toGraph() {
+        Map<String, Employee> employees = new HashMap<>(indexById.size() * 2);
+        for (int employee : indexById.values()) {
+            int parent = parents[employee];
+            Employee copy = new Employee();
+            copy.setId(ids[employee]);
+            copy.setName(names[employee]);
+            copy.setSalary(salaries[employee]);
+            copy.setManagerId(parent == NONE ? null : ids[parent]);
+            employees.put(copy.getId(), copy);
+        }
+        return OrgGraph.of(employees);
+    }
+
+    /**
+     * Approximate heap retained, including the id index and strings
+     */
+    public long estimatedBytes() {
+        return 64 + (long) ids.length * 60 + (long) indexById.size() * 144;
+    }
+
+    private int indexOf(String id) {
+        Integer employee = id == null ? null : indexById.get(id);
+        if (employee == null) {
+            throw new InvalidDataException("Unknown employee ID: " + id);
+        }
+        return employee;
+    }
+
+    private static void validateSalary(String id, double salary) {
+        if (!(salary >= 0) || Double.isInfinite(salary)) {
+            throw new InvalidDataException("Invalid salary for employee " + id + ": " + salary);
+        }
+    }
+
+    private void link(int employee, int parent) {
+        parents[employee] = parent;
+        int first = firstChildren[parent];
+        nextSiblings[employee] = first;
+        previousSiblings[employee] = NONE;
+        if (first != NONE) {
+            previousSiblings[first] = employee;
+        }
+        firstChildren[parent] = employee;
+        subordinateSalarySums[parent] += salaries[employee];
+        subordinateCounts[parent]++;
+    }
+
+    private void unlink(int employee) {
+        int parent = parents[employee];
+        int previous = previousSiblings[employee];
+        int next = nextSiblings[employee];
+        if (previous != NONE) {
+            nextSiblings[previous] = next;
+        } else {
+            firstChildren[parent] = next;
+        }
+        if (next != NONE) {
+            previousSiblings[next] = previous;
+        }
+        nextSiblings[employee] = NONE;
+        previousSiblings[employee] = NONE;
+        subordinateSalarySums[parent] -= salaries[employee];
+        subordinateCounts[parent]--;
+        if (subordinateCounts[parent] == 0) {
+            // drop accumulated rounding error once there is nothing left to average
+            subordinateSalarySums[parent] = 0;
+        }
+    }
+
+    /**
+     * Adds delta to the depth of every employee in the subtree, re-checking reporting lines.
+     * Walks the sibling lists without recursion.
+     */
+    private void shiftDepths(int top, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        int employee = top;
+        while (true) {
+            depths[employee] += delta;
+            longReportingLines.set(employee, OrgRules.hasLongReportingLine(this, employee));
+
+            if (firstChildren[employee] != NONE) {
+                employee = firstChildren[employee];
+                continue;
+            }
+            while (employee != top && nextSiblings[employee] == NONE) {
+                employee = parents[employee];
+            }
+            if (employee == top) {
+                return;
+            }
+            employee = nextSiblings[employee];
+        }
+    }
+
+    private void recheck(int employee) {
+        underpaid.set(employee, OrgRules.isUnderpaid(this, employee));
+        overpaid.set(employee, OrgRules.isOverpaid(this, employee));
+        longReportingLines.set(employee, OrgRules.hasLongReportingLine(this, employee));
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return free[--freeCount];
+        }
+        if (capacity == ids.length) {
+            grow(capacity * 2);
+        }
+        return capacity++;
+    }
+
+    private void release(int employee) {
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, Math.max(16, free.length * 2));
+        }
+        free[freeCount++] = employee;
+    }
+
+    private void grow(int newCapacity) {
+        ids = Arrays.copyOf(ids, newCapacity);
+        names = Arrays.copyOf(names, newCapacity);
+        salaries = Arrays.copyOf(salaries, newCapacity);
+        parents = Arrays.copyOf(parents, newCapacity);
+        depths = Arrays.copyOf(depths, newCapacity);
+        firstChildren = Arrays.copyOf(firstChildren, newCapacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, newCapacity);
+        previousSiblings = Arrays.copyOf(previousSiblings, newCapacity);
+        subordinateSalarySums = Arrays.copyOf(subordinateSalarySums, newCapacity);
+        subordinateCounts = Arrays.copyOf(subordinateCounts, newCapacity);
+    }
+}
@@ -0,0 +1,449 @@
+package com.company.model;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, read-only org hierarchy.
+ * <p>
+ * Employees are interned to int indices and their attributes held in primitive columns: salary,
+ * parent index and reporting line depth per employee, with direct subordinates stored in
+ * CSR form (subordinates of employee i are children[childOffsets[i]] to
+ * children[childOffsets[i + 1] - 1]). Ids and names live in string pools and are only decoded
+ * for employees that end up in a result. Compared with a map of linked Employee objects this
+ * keeps a handful of objects per org rather than several per employee.
+ * <p>
+ * Columns are NIO buffers: graphs built from a CSV wrap heap arrays, while graphs opened with
+ * {@link OrgGraphFile#map} read the same columns straight out of a memory-mapped file.
+ * <p>
+ * The salary sum of each employee's direct subordinates is kept as a column, so subordinate
+ * averages are a constant-time lookup. Salary sums, minimums and maximums over whole subtrees
+ * are calculated in a single pass on first use.
+ */
+public final class OrgGraph implements OrgView {
+
+    public static final int NO_PARENT = -1;
+    public static final int UNREACHABLE = ReportingLines.UNREACHABLE;
+
+    private final StringPool ids;
+    private final StringPool names;
+    private final DoubleBuffer salaries;
+    private final DoubleBuffer subordinateSalarySums;
+    private final IntBuffer parents;
+    private final IntBuffer depths;
+    private final IntBuffer subtreeSizes;
+    private final IntBuffer childOffsets;
+    private final IntBuffer children;
+    private final IntBuffer roots;
+    private final IntBuffer unreachable;
+    private final List<int[]> cycles;
+
+    // Array views of the hot columns for heap-built graphs, null for mapped ones. Reading a
+    // plain array is measurably cheaper than going through a heap buffer.
+    private final double[] salaryArray;
+    private final double[] subordinateSalarySumArray;
+    private final int[] depthArray;
+    private final int[] childOffsetArray;
+    private final int[] childArray;
+
+    private volatile SubtreeSalaries subtreeSalaries;
+
+    OrgGraph(StringPool ids, StringPool names, DoubleBuffer salaries, DoubleBuffer subordinateSalarySums,
+             IntBuffer parents, IntBuffer depths, IntBuffer subtreeSizes, IntBuffer childOffsets, IntBuffer children,
+             IntBuffer roots, IntBuffer unreachable, List<int[]> cycles) {
+        this.ids = ids;
+        this.names = names;
+        this.salaries = salaries;
+        this.subordinateSalarySums = subordinateSalarySums;
+        this.parents = parents;
+        this.depths = depths;
+        this.subtreeSizes = subtreeSizes;
+        this.childOffsets = childOffsets;
+        this.children = children;
+        this.roots = roots;
+        this.unreachable = unreachable;
+        this.cycles = cycles;
+        this.salaryArray = salaries.hasArray() ? salaries.array() : null;
+        this.subordinateSalarySumArray = subordinateSalarySums.hasArray() ? subordinateSalarySums.array() : null;
+        this.depthArray = depths.hasArray() ? depths.array() : null;
+        this.childOffsetArray = childOffsets.hasArray() ? childOffsets.array() : null;
+        this.childArray = children.hasArray() ? children.array() : null;
+    }
+
+    private static OrgGraph onHeap(StringPool ids, StringPool names, double[] salaries, int[] parents) {
+        int[] childOffsets = new int[parents.length + 1];
+        int[] children = link(parents, childOffsets);
+        ReportingLines reportingLines = ReportingLines.calculate(parents, childOffsets, children);
+        DoubleBuffer salaryColumn = DoubleBuffer.wrap(salaries);
+        IntBuffer parentColumn = IntBuffer.wrap(parents);
+        return new OrgGraph(ids, names, salaryColumn, subordinateSalarySums(salaryColumn, parentColumn), parentColumn,
+                IntBuffer.wrap(reportingLines.depths), IntBuffer.wrap(reportingLines.subtreeSizes),
+                IntBuffer.wrap(childOffsets), IntBuffer.wrap(children), IntBuffer.wrap(reportingLines.roots),
+                IntBuffer.wrap(reportingLines.unreachable), reportingLines.cycles);
+    }
+
+    /**
+     * Builds the graph from parsed employees, linking each to its manager and calculating
+     * reporting line depths below every employee without a manager.
+     * <p>
+     * Employees are indexed in depth-first preorder (roots and siblings in the map's
+     * iteration order), so every subtree occupies the contiguous index range
+     * [i, i + subtreeSize(i)) and a manager's reports sit close to it in memory.
+     * Employees on or below a manager cycle, which no root reaches, come last.
+     */
+    public static OrgGraph of(Map<String, Employee> employees) {
+        int size = employees.size();
+        Employee[] input = employees.values().toArray(new Employee[0]);
+        Map<String, Integer> inputIndexById = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            inputIndexById.put(input[i].getId(), i);
+        }
+
+        int[] inputParents = new int[size];
+        for (int i = 0; i < size; i++) {
+            Integer parent = null;
+            String managerId = input[i].getManagerId();
+            if (managerId != null && !managerId.isEmpty()) {
+                parent = inputIndexById.get(managerId);
+            }
+            inputParents[i] = parent == null ? NO_PARENT : parent;
+        }
+        inputIndexById = null;
+
+        int[] inputChildOffsets = new int[size + 1];
+        int[] inputChildren = link(inputParents, inputChildOffsets);
+        int[] order = preorder(inputParents, inputChildOffsets, inputChildren);
+        inputChildren = null;
+
+        int[] position = new int[size];
+        for (int i = 0; i < size; i++) {
+            position[order[i]] = i;
+        }
+
+        StringPool.Builder ids = StringPool.builder(size);
+        StringPool.Builder names = StringPool.builder(size);
+        double[] salaries = new double[size];
+        int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            Employee employee = input[order[i]];
+            ids.add(employee.getId());
+            names.add(employee.getName());
+            salaries[i] = employee.getSalary();
+            int inputParent = inputParents[order[i]];
+            parents[i] = inputParent == NO_PARENT ? NO_PARENT : position[inputParent];
+        }
+        return onHeap(ids.build(), names.build(), salaries, parents);
+    }
+
+    /**
+     * Salary sum of every employee's direct subordinates, added in ascending index order
+     */
+    private static DoubleBuffer subordinateSalarySums(DoubleBuffer salaries, IntBuffer parents) {
+        double[] sums = new double[salaries.limit()];
+        for (int employee = 0; employee < sums.length; employee++) {
+            int parent = parents.get(employee);
+            if (parent != NO_PARENT) {
+                sums[parent] += salaries.get(employee);
+            }
+        }
+        return DoubleBuffer.wrap(sums);
+    }
+
+    /**
+     * Fills childOffsets and returns the CSR children array for the parent links.
+     * Each employee's subordinates are listed in ascending index order.
+     */
+    private static int[] link(int[] parents, int[] childOffsets) {
+        int size = parents.length;
+        for (int parent : parents) {
+            if (parent != NO_PARENT) {
+                childOffsets[parent + 1]++;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            childOffsets[i + 1] += childOffsets[i];
+        }
+        int[] children = new int[childOffsets[size]];
+        int[] next = new int[size];
+        for (int i = 0; i < size; i++) {
+            int parent = parents[i];
+            if (parent != NO_PARENT) {
+                children[childOffsets[parent] + next[parent]++] = i;
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Depth-first preorder of all trees using an explicit stack, followed by the employees
+     * that no root reaches
+     */
+    private static int[] preorder(int[] parents, int[] childOffsets, int[] children) {
+        int size = parents.length;
+        int[] order = new int[size];
+        boolean[] visited = new boolean[size];
+        int[] stack = new int[size];
+        int count = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (parents[root] != NO_PARENT) {
+                continue;
+            }
+            int top = 0;
+            stack[top++] = root;
+            while (top > 0) {
+                int employee = stack[--top];
+                visited[employee] = true;
+                order[count++] = employee;
+                // push in reverse so the first subordinate is visited first
+                for (int c = childOffsets[employee + 1] - 1; c >= childOffsets[employee]; c--) {
+                    stack[top++] = children[c];
+                }
+            }
+        }
+
+        for (int i = 0; i < size && count < size; i++) {
+            if (!visited[i]) {
+                order[count++] = i;
+            }
+        }
+        return order;
+    }
+
+    public int size() {
+        return salaries.limit();
+    }
+
+    @Override
+    public String id(int employee) {
+        return ids.get(employee);
+    }
+
+    /**
+     * Index of the employee with each id, or -1 for ids not in the org
+     */
+    public int[] indicesOf(String... ids) {
+        return this.ids.indicesOf(ids);
+    }
+
+    @Override
+    public String name(int employee) {
+        return names.get(employee);
+    }
+
+    @Override
+    public double salary(int employee) {
+        return salaryArray != null ? salaryArray[employee] : salaries.get(employee);
+    }
+
+    public int parent(int employee) {
+        return parents.get(employee);
+    }
+
+    /**
+     * Reporting line depth below the employee's root, or UNREACHABLE for employees on or
+     * below a manager cycle
+     */
+    @Override
+    public int depth(int employee) {
+        return depthArray != null ? depthArray[employee] : depths.get(employee);
+    }
+
+    /**
+     * Number of employees in the employee's subtree, including the employee
+     */
+    public int subtreeSize(int employee) {
+        return subtreeSizes.get(employee);
+    }
+
+    /**
+     * Employees without a manager
+     */
+    public int[] roots() {
+        return toArray(roots);
+    }
+
+    /**
+     * Employees with no reporting line to any root
+     */
+    public int[] unreachable() {
+        return toArray(unreachable);
+    }
+
+    /**
+     * Manager cycles, each listed from one member following manager references
+     */
+    public List<int[]> cycles() {
+        return cycles;
+    }
+
+    @Override
+    public int subordinateCount(int employee) {
+        return childOffset(employee + 1) - childOffset(employee);
+    }
+
+    /**
+     * The k-th direct subordinate of the employee
+     */
+    public int subordinate(int employee, int k) {
+        return child(childOffset(employee) + k);
+    }
+
+    /**
+     * Sum of the direct subordinates' salaries
+     */
+    public double subordinateSalarySum(int employee) {
+        return subordinateSalarySumArray != null
+                ? subordinateSalarySumArray[employee]
+                : subordinateSalarySums.get(employee);
+    }
+
+    @Override
+    public double averageSubordinateSalary(int employee) {
+        int count = subordinateCount(employee);
+        return count == 0 ? 0 : subordinateSalarySum(employee) / count;
+    }
+
+    /**
+     * Salary sum over the employee's whole subtree, including the employee. Employees on or
+     * below a manager cycle only count themselves.
+     */
+    public double subtreeSalarySum(int employee) {
+        return subtreeSalaries().sums[employee];
+    }
+
+    public double averageSubtreeSalary(int employee) {
+        return subtreeSalarySum(employee) / subtreeSize(employee);
+    }
+
+    public double subtreeMinSalary(int employee) {
+        return subtreeSalaries().mins[employee];
+    }
+
+    public double subtreeMaxSalary(int employee) {
+        return subtreeSalaries().maxs[employee];
+    }
+
+    private SubtreeSalaries subtreeSalaries() {
+        SubtreeSalaries result = subtreeSalaries;
+        if (result == null) {
+            synchronized (this) {
+                result = subtreeSalaries;
+                if (result == null) {
+                    result = new SubtreeSalaries(this);
+                    subtreeSalaries = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private int childOffset(int index) {
+        return childOffsetArray != null ? childOffsetArray[index] : childOffsets.get(index);
+    }
+
+    private int child(int index) {
+        return childArray != null ? childArray[index] : children.get(index);
+    }
+
+    /**
+     * Approximate heap retained by this graph, including subtree salaries once calculated.
+     * Columns of a memory-mapped graph live in the page cache rather than the heap and are not
+     * counted.
+     */
+    public long estimatedBytes() {
+        long columns = heapBytes(salaries.limit(), 8, salaries.isDirect())
+                + heapBytes(subordinateSalarySums.limit(), 8, subordinateSalarySums.isDirect())
+                + (subtreeSalaries == null ? 0 : 24L * size())
+                + heapBytes(parents.limit() + depths.limit() + subtreeSizes.limit(), 4, parents.isDirect())
+                + heapBytes(childOffsets.limit() + children.limit() + roots.limit() + unreachable.limit(), 4,
+                children.isDirect());
+        long cycleBytes = 0;
+        for (int[] cycle : cycles) {
+            cycleBytes += 16 + 4L * cycle.length;
+        }
+        return 64 + columns + cycleBytes + ids.estimatedBytes() + names.estimatedBytes();
+    }
+
+    DoubleBuffer salaries() {
+        return salaries.duplicate();
+    }
+
+    DoubleBuffer subordinateSalarySums() {
+        return subordinateSalarySums.duplicate();
+    }
+
+    IntBuffer parents() {
+        return parents.duplicate();
+    }
+
+    IntBuffer depths() {
+        return depths.duplicate();
+    }
+
+    IntBuffer subtreeSizes() {
+        return subtreeSizes.duplicate();
+    }
+
+    IntBuffer childOffsets() {
+        return childOffsets.duplicate();
+    }
+
+    IntBuffer children() {
+        return children.duplicate();
+    }
+
+    StringPool ids() {
+        return ids;
+    }
+
+    StringPool names() {
+        return names;
+    }
+
+    private static long heapBytes(long elements, int width, boolean direct) {
+        return direct ? 0 : elements * width;
+    }
+
+    private static int[] toArray(IntBuffer buffer) {
+        int[] values = new int[buffer.limit()];
+        buffer.get(0, values);
+        return values;
+    }
+
+    /**
+     * Subtree salary aggregates from one pass in reverse index order. The preorder layout puts
+     * every reachable employee after its manager, so each subtree is complete before it is
+     * folded into its manager's.
+     */
+    private static final class SubtreeSalaries {
+
+        final double[] sums;
+        final double[] mins;
+        final double[] maxs;
+
+        SubtreeSalaries(OrgGraph org) {
+            int size = org.size();
+            sums = new double[size];
+            mins = new double[size];
+            maxs = new double[size];
+            for (int employee = 0; employee < size; employee++) {
+                double salary = org.salary(employee);
+                sums[employee] = salary;
+                mins[employee] = salary;
+                maxs[employee] = salary;
+            }
+            for (int employee = size - 1; employee >= 0; employee--) {
+                int parent = org.parent(employee);
+                if (parent != NO_PARENT && org.depth(employee) != UNREACHABLE) {
+                    sums[parent] += sums[employee];
+                    mins[parent] = Math.min(mins[parent], mins[employee]);
+                    maxs[parent] = Math.max(maxs[parent], maxs[employee]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.company.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Columnar on-disk layout of an OrgGraph that can be memory-mapped and queried in place.
+ * <p>
+ * Every column of the graph is written as one little-endian section, each starting on an
+ * 8-byte boundary, after a header of element counts:
+ * <pre>
+ * int[8]   employees, children, roots, unreachable, cycles, cycle members, id bytes, name bytes
+ * double[] salaries
+ * double[] direct subordinate salary sums
+ * int[]    parents, depths, subtree sizes
+ * int[]    child offsets (employees + 1), children
+ * int[]    roots, unreachable
+ * int[]    cycle offsets (cycles + 1), cycle members
+ * int[]    id offsets (employees + 1), id bytes
+ * int[]    name offsets (employees + 1), name bytes
+ * </pre>
+ * Opening a mapped graph only reads the header and the cycles; salaries, links, depths and
+ * strings are paged in by the OS as queries touch them.
+ */
+public final class OrgGraphFile {
+
+    private static final int HEADER_INTS = 8;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private OrgGraphFile() {
+    }
+
+    /**
+     * Writes the graph at the channel's current position and returns the number of bytes written
+     */
+    public static long write(FileChannel channel, OrgGraph org) throws IOException {
+        int size = org.size();
+        IntBuffer children = org.children();
+        StringPool ids = org.ids();
+        StringPool names = org.names();
+        List<int[]> cycles = org.cycles();
+        int[] roots = org.roots();
+        int[] unreachable = org.unreachable();
+        int[] cycleOffsets = new int[cycles.size() + 1];
+        for (int c = 0; c < cycles.size(); c++) {
+            cycleOffsets[c + 1] = cycleOffsets[c] + cycles.get(c).length;
+        }
+        ByteBuffer idBytes = ids.bytes();
+        ByteBuffer nameBytes = names.bytes();
+
+        Sink sink = new Sink(channel);
+        sink.putInts(IntBuffer.wrap(new int[]{size, children.limit(), roots.length, unreachable.length,
+                cycles.size(), cycleOffsets[cycles.size()], idBytes.limit(), nameBytes.limit()}));
+        sink.putDoubles(org.salaries());
+        sink.putDoubles(org.subordinateSalarySums());
+        sink.putInts(org.parents());
+        sink.putInts(org.depths());
+        sink.putInts(org.subtreeSizes());
+        sink.putInts(org.childOffsets());
+        sink.putInts(children);
+        sink.putInts(IntBuffer.wrap(roots));
+        sink.putInts(IntBuffer.wrap(unreachable));
+        sink.putInts(IntBuffer.wrap(cycleOffsets));
+        for (int[] cycle : cycles) {
+            sink.putInts(IntBuffer.wrap(cycle), false);
+        }
+        sink.align();
+        sink.putInts(ids.offsets());
+        sink.putBytes(idBytes);
+        sink.putInts(names.offsets());
+        sink.putBytes(nameBytes);
+        return sink.finish();
+    }
+
+    /**
+     * Maps a graph written by {@link #write} starting at the given file offset. The mapping stays
+     * valid after the channel is closed.
+     */
+    public static OrgGraph map(FileChannel channel, long offset) throws IOException {
+        long length = channel.size() - offset;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Org graph section of " + length + " bytes is too large to map");
+        }
+        if (length < 4L * HEADER_INTS) {
+            throw new IOException("Truncated org graph section");
+        }
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        Source source = new Source(mapped.order(ByteOrder.LITTLE_ENDIAN));
+
+        IntBuffer header = source.ints(HEADER_INTS);
+        int size = header.get(0);
+        int childCount = header.get(1);
+        int rootCount = header.get(2);
+        int unreachableCount = header.get(3);
+        int cycleCount = header.get(4);
+        int cycleMemberCount = header.get(5);
+        int idByteCount = header.get(6);
+        int nameByteCount = header.get(7);
+
+        DoubleBuffer salaries = source.doubles(size);
+        DoubleBuffer subordinateSalarySums = source.doubles(size);
+        IntBuffer parents = source.ints(size);
+        IntBuffer depths = source.ints(size);
+        IntBuffer subtreeSizes = source.ints(size);
+        IntBuffer childOffsets = source.ints(size + 1);
+        IntBuffer children = source.ints(childCount);
+        IntBuffer roots = source.ints(rootCount);
+        IntBuffer unreachable = source.ints(unreachableCount);
+        IntBuffer cycleOffsets = source.ints(cycleCount + 1);
+        IntBuffer cycleMembers = source.ints(cycleMemberCount);
+        IntBuffer idOffsets = source.ints(size + 1);
+        StringPool ids = new StringPool(source.bytes(idByteCount), idOffsets);
+        IntBuffer nameOffsets = source.ints(size + 1);
+        StringPool names = new StringPool(source.bytes(nameByteCount), nameOffsets);
+
+        List<int[]> cycles = new ArrayList<>(cycleCount);
+        for (int c = 0; c < cycleCount; c++) {
+            int[] cycle = new int[cycleOffsets.get(c + 1) - cycleOffsets.get(c)];
+            cycleMembers.get(cycleOffsets.get(c), cycle);
+            cycles.add(cycle);
+        }
+
+        return new OrgGraph(ids, names, salaries, subordinateSalarySums, parents, depths, subtreeSizes, childOffsets, children,
+                roots, unreachable, List.copyOf(cycles));
+    }
+
+    /**
+     * Sequential little-endian writer that pads each section to 8 bytes
+     */
+    private static final class Sink {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long written;
+
+        Sink(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInts(IntBuffer values) throws IOException {
+            putInts(values, true);
+        }
+
+        void putInts(IntBuffer values, boolean align) throws IOException {
+            for (int i = 0; i < values.limit(); i++) {
+                ensure(Integer.BYTES);
+                buffer.putInt(values.get(i));
+            }
+            if (align) {
+                align();
+            }
+        }
+
+        void putDoubles(DoubleBuffer values) throws IOException {
+            for (int i = 0; i < values.limit(); i++) {
+                ensure(Double.BYTES);
+                buffer.putDouble(values.get(i));
+            }
+            align();
+        }
+
+        void putBytes(ByteBuffer values) throws IOException {
+            ByteBuffer remaining = values.duplicate().position(0);
+            while (remaining.hasRemaining()) {
+                ensure(1);
+                int chunk = Math.min(buffer.remaining(), remaining.remaining());
+                buffer.put(buffer.position(), remaining, remaining.position(), chunk);
+                buffer.position(buffer.position() + chunk);
+                remaining.position(remaining.position() + chunk);
+            }
+            align();
+        }
+
+        void align() throws IOException {
+            while ((written + buffer.position()) % 8 != 0) {
+                ensure(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        long finish() throws IOException {
+            drain();
+            return written;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Slices consecutive 8-byte aligned sections out of the mapped region
+     */
+    private static final class Source {
+
+        private final ByteBuffer mapped;
+        private int position;
+
+        Source(ByteBuffer mapped) {
+            this.mapped = mapped;
+        }
+
+        IntBuffer ints(int count) throws IOException {
+            return slice(count, Integer.BYTES).asIntBuffer();
+        }
+
+        DoubleBuffer doubles(int count) throws IOException {
+            return slice(count, Double.BYTES).asDoubleBuffer();
+        }
+
+        ByteBuffer bytes(int count) throws IOException {
+            return slice(count, 1);
+        }
+
+        private ByteBuffer slice(int count, int width) throws IOException {
+            long length = (long) count * width;
+            if (count < 0 || position + length > mapped.limit()) {
+                throw new IOException("Truncated org graph section");
+            }
+            ByteBuffer slice = mapped.slice(position, (int) length).order(ByteOrder.LITTLE_ENDIAN);
+            position += (int) ((length + 7) & ~7L);
+            return slice;
+        }
+    }
+}
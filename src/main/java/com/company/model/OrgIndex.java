@@ -0,0 +1,224 @@
+package com.company.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Query indexes over a validated OrgGraph, built once per org.
+ * <p>
+ * The graph already numbers employees in depth-first preorder, which is the entry order of an
+ * Euler tour: the subtree of employee i is the contiguous range [i, i + subtreeSize(i)), so
+ * "reports to" is two comparisons and a subtree is read without walking it. On top of that the
+ * index keeps employees sorted by id for O(log n) lookups, binary lifting tables (the 2^k-th
+ * manager of every employee) for k-th manager and lowest common manager lookups in O(log depth),
+ * and managers sorted by span of control, so "at least n direct reports" is a binary search and
+ * the span-of-control histogram is ready up front.
+ * Lifting tables only go as high as the deepest reporting line needs.
+ */
+public final class OrgIndex {
+
+    private final OrgGraph org;
+    private final int[] byId;
+    private final int[][] managers;
+    private final int[] bySpan;
+    private final SortedMap<Integer, Integer> spanOfControl;
+
+    private OrgIndex(OrgGraph org, int[] byId, int[][] managers, int[] bySpan) {
+        this.org = org;
+        this.byId = byId;
+        this.managers = managers;
+        this.bySpan = bySpan;
+        SortedMap<Integer, Integer> histogram = new TreeMap<>();
+        for (int manager : bySpan) {
+            histogram.merge(org.subordinateCount(manager), 1, Integer::sum);
+        }
+        this.spanOfControl = Collections.unmodifiableSortedMap(histogram);
+    }
+
+    /**
+     * Indexes an org without manager cycles, as validated orgs are
+     */
+    public static OrgIndex of(OrgGraph org) {
+        int size = org.size();
+        StringPool ids = org.ids();
+        int[] byId = IntStream.range(0, size).boxed()
+                .sorted(ids::compare)
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        int maxDepth = 0;
+        int[] parents = new int[size];
+        for (int employee = 0; employee < size; employee++) {
+            parents[employee] = org.parent(employee);
+            maxDepth = Math.max(maxDepth, org.depth(employee));
+        }
+        int levels = Math.max(1, 32 - Integer.numberOfLeadingZeros(maxDepth));
+        int[][] managers = new int[levels][];
+        managers[0] = parents;
+        for (int k = 1; k < levels; k++) {
+            int[] below = managers[k - 1];
+            int[] level = new int[size];
+            for (int employee = 0; employee < size; employee++) {
+                int half = below[employee];
+                level[employee] = half == OrgGraph.NO_PARENT ? OrgGraph.NO_PARENT : below[half];
+            }
+            managers[k] = level;
+        }
+
+        int[] bySpan = IntStream.range(0, size)
+                .filter(employee -> org.subordinateCount(employee) > 0)
+                .boxed()
+                .sorted((a, b) -> Integer.compare(org.subordinateCount(b), org.subordinateCount(a)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        return new OrgIndex(org, byId, managers, bySpan);
+    }
+
+    public OrgGraph org() {
+        return org;
+    }
+
+    /**
+     * Index of the employee with the id, or -1 if there is none
+     */
+    public int indexOf(String id) {
+        if (id == null || id.isEmpty()) {
+            return -1;
+        }
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        StringPool ids = org.ids();
+        int low = 0;
+        int high = byId.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int order = ids.compare(byId[middle], key);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return byId[middle];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether the employee is in the manager's subtree, directly or indirectly, or is the manager
+     */
+    public boolean isInSubtree(int manager, int employee) {
+        return manager <= employee && employee < manager + org.subtreeSize(manager);
+    }
+
+    /**
+     * First index after the manager's subtree; the subtree's employees below the manager are
+     * the indices from manager + 1 up to this, in preorder
+     */
+    public int subtreeEnd(int manager) {
+        return manager + org.subtreeSize(manager);
+    }
+
+    /**
+     * The manager k levels above the employee, or NO_PARENT if the reporting line is shorter
+     */
+    public int manager(int employee, int k) {
+        for (int level = 0; k > 0 && employee != OrgGraph.NO_PARENT; level++, k >>>= 1) {
+            if ((k & 1) != 0) {
+                if (level >= managers.length) {
+                    return OrgGraph.NO_PARENT;
+                }
+                employee = managers[level][employee];
+            }
+        }
+        return employee;
+    }
+
+    /**
+     * The employee followed by every manager up to its root
+     */
+    public int[] reportingChain(int employee) {
+        int[] chain = new int[org.depth(employee) + 1];
+        for (int i = 0; i < chain.length; i++) {
+            chain[i] = employee;
+            employee = org.parent(employee);
+        }
+        return chain;
+    }
+
+    /**
+     * Lowest employee whose subtree holds both employees (one of them if it manages the other),
+     * or NO_PARENT if they are under different roots
+     */
+    public int lowestCommonManager(int a, int b) {
+        if (isInSubtree(a, b)) {
+            return a;
+        }
+        if (isInSubtree(b, a)) {
+            return b;
+        }
+        for (int level = managers.length - 1; level >= 0; level--) {
+            int above = managers[level][a];
+            if (above != OrgGraph.NO_PARENT && !isInSubtree(above, b)) {
+                a = above;
+            }
+        }
+        return org.parent(a);
+    }
+
+    /**
+     * Managers with at least the given number of direct reports, widest span first
+     */
+    public int[] managersWithSpanAtLeast(int minDirectReports) {
+        return Arrays.copyOf(bySpan, spanRank(minDirectReports, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Managers from position from up to position to in span order: widest span first, then by
+     * index
+     */
+    public int[] managersBySpan(int from, int to) {
+        return Arrays.copyOfRange(bySpan, from, to);
+    }
+
+    /**
+     * Number of managers ranked in span order at or before a manager with the given number of
+     * direct reports and index, which is where the managers after it start
+     */
+    public int spanRank(int directReports, int employee) {
+        int low = 0;
+        int high = bySpan.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int span = org.subordinateCount(bySpan[middle]);
+            if (span > directReports || span == directReports && bySpan[middle] <= employee) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Number of managers by how many direct reports they have
+     */
+    public SortedMap<Integer, Integer> spanOfControl() {
+        return spanOfControl;
+    }
+
+    public int managerCount() {
+        return bySpan.length;
+    }
+
+    /**
+     * Approximate heap retained by the index, not counting the org itself
+     */
+    public long estimatedBytes() {
+        return 64 + 4L * byId.length + 4L * bySpan.length + (long) managers.length * (16 + 4L * org.size())
+                + 64L * spanOfControl.size();
+    }
+}
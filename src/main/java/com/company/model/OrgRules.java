@@ -0,0 +1,28 @@
+package com.company.model;
+
+/**
+ * Salary band and reporting line rules checked by every analysis
+ */
+public final class OrgRules {
+
+    public static final int MAX_ALLOWED_REPORTING_DEPTH = 4;
+    public static final double MIN_SALARY_MULTIPLIER = 1.2; // 20% more
+    public static final double MAX_SALARY_MULTIPLIER = 1.5; // 50% more
+
+    private OrgRules() {
+    }
+
+    public static boolean isUnderpaid(OrgView org, int manager) {
+        return org.subordinateCount(manager) > 0
+                && org.salary(manager) < org.averageSubordinateSalary(manager) * MIN_SALARY_MULTIPLIER;
+    }
+
+    public static boolean isOverpaid(OrgView org, int manager) {
+        return org.subordinateCount(manager) > 0
+                && org.salary(manager) > org.averageSubordinateSalary(manager) * MAX_SALARY_MULTIPLIER;
+    }
+
+    public static boolean hasLongReportingLine(OrgView org, int employee) {
+        return org.depth(employee) > MAX_ALLOWED_REPORTING_DEPTH;
+    }
+}
@@ -0,0 +1,23 @@
+package com.company.model;
+
+/**
+ * Read access to employees by index, shared by the immutable OrgGraph and the updatable LiveOrg
+ * so rules and result mapping work on either
+ */
+public interface OrgView {
+
+    String id(int employee);
+
+    String name(int employee);
+
+    double salary(int employee);
+
+    /**
+     * Reporting line depth below the employee's root
+     */
+    int depth(int employee);
+
+    int subordinateCount(int employee);
+
+    double averageSubordinateSalary(int employee);
+}
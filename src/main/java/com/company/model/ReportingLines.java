@@ -0,0 +1,123 @@
+package com.company.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Iterative reporting line depth calculation over a parent/children forest.
+ * <p>
+ * A single breadth-first sweep from every root assigns depths, using one int queue and no
+ * recursion, so arbitrarily deep chains cannot overflow the stack. Replaying the queue in
+ * reverse then accumulates subtree sizes. Employees the sweep never
+ * reaches have no path to a root, which with valid manager references only happens on or
+ * below a manager cycle; those cycles are then extracted by walking parent pointers from the
+ * unreached employees, visiting each employee at most once. Everything is O(n).
+ */
+final class ReportingLines {
+
+    static final int UNREACHABLE = -1;
+
+    final int[] depths;
+    final int[] subtreeSizes;
+    final int[] roots;
+    final int[] unreachable;
+    final List<int[]> cycles;
+
+    private ReportingLines(int[] depths, int[] subtreeSizes, int[] roots, int[] unreachable, List<int[]> cycles) {
+        this.depths = depths;
+        this.subtreeSizes = subtreeSizes;
+        this.roots = roots;
+        this.unreachable = unreachable;
+        this.cycles = cycles;
+    }
+
+    static ReportingLines calculate(int[] parents, int[] childOffsets, int[] children) {
+        int size = parents.length;
+        int[] depths = new int[size];
+        Arrays.fill(depths, UNREACHABLE);
+
+        int[] queue = new int[size];
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            if (parents[i] == OrgGraph.NO_PARENT) {
+                depths[i] = 0;
+                queue[tail++] = i;
+            }
+        }
+        int[] roots = Arrays.copyOf(queue, tail);
+
+        for (int head = 0; head < tail; head++) {
+            int employee = queue[head];
+            int childDepth = depths[employee] + 1;
+            for (int c = childOffsets[employee]; c < childOffsets[employee + 1]; c++) {
+                int child = children[c];
+                depths[child] = childDepth;
+                queue[tail++] = child;
+            }
+        }
+
+        // Reverse breadth-first order visits every employee before its manager
+        int[] subtreeSizes = new int[size];
+        Arrays.fill(subtreeSizes, 1);
+        for (int q = tail - 1; q >= 0; q--) {
+            int employee = queue[q];
+            if (parents[employee] != OrgGraph.NO_PARENT) {
+                subtreeSizes[parents[employee]] += subtreeSizes[employee];
+            }
+        }
+
+        if (tail == size) {
+            return new ReportingLines(depths, subtreeSizes, roots, new int[0], List.of());
+        }
+
+        int[] unreachable = new int[size - tail];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (depths[i] == UNREACHABLE) {
+                unreachable[count++] = i;
+            }
+        }
+        return new ReportingLines(depths, subtreeSizes, roots, unreachable, findCycles(parents, unreachable));
+    }
+
+    /**
+     * Follows parent pointers from each unreachable employee, stamping the walk with its start.
+     * Meeting the current stamp again closes a cycle; meeting an older stamp means the rest of
+     * the path has already been explored.
+     */
+    private static List<int[]> findCycles(int[] parents, int[] unreachable) {
+        List<int[]> cycles = new ArrayList<>();
+        int[] stamps = new int[parents.length];
+
+        for (int start : unreachable) {
+            if (stamps[start] != 0) {
+                continue;
+            }
+            int stamp = start + 1;
+            int employee = start;
+            while (employee != OrgGraph.NO_PARENT && stamps[employee] == 0) {
+                stamps[employee] = stamp;
+                employee = parents[employee];
+            }
+            if (employee != OrgGraph.NO_PARENT && stamps[employee] == stamp) {
+                cycles.add(cycleFrom(parents, employee));
+            }
+        }
+        return List.copyOf(cycles);
+    }
+
+    private static int[] cycleFrom(int[] parents, int first) {
+        int length = 1;
+        for (int employee = parents[first]; employee != first; employee = parents[employee]) {
+            length++;
+        }
+        int[] cycle = new int[length];
+        int employee = first;
+        for (int i = 0; i < length; i++) {
+            cycle[i] = employee;
+            employee = parents[employee];
+        }
+        return cycle;
+    }
+}
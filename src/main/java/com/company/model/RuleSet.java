@@ -0,0 +1,252 @@
+package com.company.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Salary bands and reporting depth limits compiled into flat arrays: a default band and depth
+ * limit, bands by manager reporting depth, and bands or depth limits for whole subtrees.
+ * <p>
+ * Every rule is checked in one pass over the org in index order. Subtrees are contiguous index
+ * ranges in the graph's preorder layout, so subtree rules are kept on stacks that are pushed
+ * when the pass reaches a rule's manager and popped once it leaves the subtree; the innermost
+ * subtree rule wins, then the level band, then the default. The pass costs the same however
+ * many rules there are, apart from finding each subtree rule's manager once.
+ * <p>
+ * Instances are immutable and shared between requests; the hash identifies equal rule sets.
+ */
+public final class RuleSet {
+
+    public static final RuleSet DEFAULT = builder(OrgRules.MIN_SALARY_MULTIPLIER, OrgRules.MAX_SALARY_MULTIPLIER,
+            OrgRules.MAX_ALLOWED_REPORTING_DEPTH).build("default");
+
+    private static final int INHERIT = -1;
+
+    private final String hash;
+    private final double minMultiplier;
+    private final double maxMultiplier;
+    private final int maxDepth;
+    // by manager depth, NaN where no level rule is set
+    private final double[] levelMinMultipliers;
+    private final double[] levelMaxMultipliers;
+    // one entry per subtree rule; NaN bands and INHERIT depths leave that part to outer rules
+    private final String[] subtreeManagers;
+    private final double[] subtreeMinMultipliers;
+    private final double[] subtreeMaxMultipliers;
+    private final int[] subtreeMaxDepths;
+
+    private RuleSet(Builder builder, String hash) {
+        this.hash = hash;
+        this.minMultiplier = builder.minMultiplier;
+        this.maxMultiplier = builder.maxMultiplier;
+        this.maxDepth = builder.maxDepth;
+        this.levelMinMultipliers = builder.levelMinMultipliers;
+        this.levelMaxMultipliers = builder.levelMaxMultipliers;
+        int subtrees = builder.subtreeManagers.size();
+        this.subtreeManagers = builder.subtreeManagers.toArray(new String[0]);
+        this.subtreeMinMultipliers = Arrays.copyOf(builder.subtreeMinMultipliers, subtrees);
+        this.subtreeMaxMultipliers = Arrays.copyOf(builder.subtreeMaxMultipliers, subtrees);
+        this.subtreeMaxDepths = Arrays.copyOf(builder.subtreeMaxDepths, subtrees);
+    }
+
+    public static Builder builder(double minMultiplier, double maxMultiplier, int maxDepth) {
+        return new Builder(minMultiplier, maxMultiplier, maxDepth);
+    }
+
+    public String hash() {
+        return hash;
+    }
+
+    /**
+     * Managers outside their band and employees beyond their depth limit, each in index order.
+     * Subtree rules whose manager is not in the org are ignored.
+     */
+    public Findings evaluate(OrgGraph org) {
+        int[] managers = org.indicesOf(subtreeManagers);
+        Integer[] byPosition = new Integer[managers.length];
+        int resolved = 0;
+        for (int rule = 0; rule < managers.length; rule++) {
+            if (managers[rule] >= 0) {
+                byPosition[resolved++] = rule;
+            }
+        }
+        Arrays.sort(byPosition, 0, resolved, (a, b) -> Integer.compare(managers[a], managers[b]));
+
+        int[] bandRules = new int[resolved];
+        int[] depthRules = new int[resolved];
+        int[] ends = new int[managers.length];
+        int bandTop = 0;
+        int depthTop = 0;
+        int nextRule = 0;
+        Findings findings = new Findings();
+
+        for (int employee = 0; employee < org.size(); employee++) {
+            while (bandTop > 0 && employee >= ends[bandRules[bandTop - 1]]) {
+                bandTop--;
+            }
+            while (depthTop > 0 && employee >= ends[depthRules[depthTop - 1]]) {
+                depthTop--;
+            }
+            while (nextRule < resolved && managers[byPosition[nextRule]] == employee) {
+                int rule = byPosition[nextRule++];
+                ends[rule] = employee + org.subtreeSize(employee);
+                if (!Double.isNaN(subtreeMinMultipliers[rule])) {
+                    bandRules[bandTop++] = rule;
+                }
+                if (subtreeMaxDepths[rule] != INHERIT) {
+                    depthRules[depthTop++] = rule;
+                }
+            }
+
+            int depth = org.depth(employee);
+            int depthLimit = depthTop > 0 ? subtreeMaxDepths[depthRules[depthTop - 1]] : maxDepth;
+            if (depth > depthLimit) {
+                findings.longReportingLines.add(employee, depthLimit);
+            }
+
+            if (org.subordinateCount(employee) == 0) {
+                continue;
+            }
+            double min;
+            double max;
+            if (bandTop > 0) {
+                min = subtreeMinMultipliers[bandRules[bandTop - 1]];
+                max = subtreeMaxMultipliers[bandRules[bandTop - 1]];
+            } else if (depth < levelMinMultipliers.length && !Double.isNaN(levelMinMultipliers[depth])) {
+                min = levelMinMultipliers[depth];
+                max = levelMaxMultipliers[depth];
+            } else {
+                min = minMultiplier;
+                max = maxMultiplier;
+            }
+            double average = org.averageSubordinateSalary(employee);
+            double salary = org.salary(employee);
+            if (salary < average * min) {
+                findings.underpaid.add(employee, average * min);
+            } else if (salary > average * max) {
+                findings.overpaid.add(employee, average * max);
+            }
+        }
+        return findings;
+    }
+
+    /**
+     * Results of one evaluation
+     */
+    public static final class Findings {
+
+        private final Matches underpaid = new Matches();
+        private final Matches overpaid = new Matches();
+        private final Matches longReportingLines = new Matches();
+
+        /**
+         * Underpaid managers with the lowest salary of their band
+         */
+        public Matches underpaid() {
+            return underpaid;
+        }
+
+        /**
+         * Overpaid managers with the highest salary of their band
+         */
+        public Matches overpaid() {
+            return overpaid;
+        }
+
+        /**
+         * Employees with too long a reporting line with the depth limit they exceed
+         */
+        public Matches longReportingLines() {
+            return longReportingLines;
+        }
+    }
+
+    /**
+     * Matching employees in index order, each with the limit it broke
+     */
+    public static final class Matches {
+
+        private int[] employees = new int[16];
+        private double[] limits = new double[16];
+        private int size;
+
+        void add(int employee, double limit) {
+            if (size == employees.length) {
+                employees = Arrays.copyOf(employees, size * 2);
+                limits = Arrays.copyOf(limits, size * 2);
+            }
+            employees[size] = employee;
+            limits[size++] = limit;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int employee(int i) {
+            return employees[i];
+        }
+
+        public double limit(int i) {
+            return limits[i];
+        }
+    }
+
+    public static final class Builder {
+
+        private final double minMultiplier;
+        private final double maxMultiplier;
+        private final int maxDepth;
+        private double[] levelMinMultipliers = new double[0];
+        private double[] levelMaxMultipliers = new double[0];
+        private final List<String> subtreeManagers = new ArrayList<>();
+        private double[] subtreeMinMultipliers = new double[4];
+        private double[] subtreeMaxMultipliers = new double[4];
+        private int[] subtreeMaxDepths = new int[4];
+
+        private Builder(double minMultiplier, double maxMultiplier, int maxDepth) {
+            this.minMultiplier = minMultiplier;
+            this.maxMultiplier = maxMultiplier;
+            this.maxDepth = maxDepth;
+        }
+
+        /**
+         * Band for managers at the reporting depth
+         */
+        public Builder level(int depth, double minMultiplier, double maxMultiplier) {
+            if (depth >= levelMinMultipliers.length) {
+                int length = levelMinMultipliers.length;
+                levelMinMultipliers = Arrays.copyOf(levelMinMultipliers, depth + 1);
+                levelMaxMultipliers = Arrays.copyOf(levelMaxMultipliers, depth + 1);
+                Arrays.fill(levelMinMultipliers, length, depth + 1, Double.NaN);
+                Arrays.fill(levelMaxMultipliers, length, depth + 1, Double.NaN);
+            }
+            levelMinMultipliers[depth] = minMultiplier;
+            levelMaxMultipliers[depth] = maxMultiplier;
+            return this;
+        }
+
+        /**
+         * Band and depth limit for the manager and everyone under them. A NaN band or null
+         * depth limit leaves that part to the enclosing rules.
+         */
+        public Builder subtree(String managerId, double minMultiplier, double maxMultiplier, Integer maxDepth) {
+            int rule = subtreeManagers.size();
+            if (rule == subtreeMaxDepths.length) {
+                subtreeMinMultipliers = Arrays.copyOf(subtreeMinMultipliers, rule * 2);
+                subtreeMaxMultipliers = Arrays.copyOf(subtreeMaxMultipliers, rule * 2);
+                subtreeMaxDepths = Arrays.copyOf(subtreeMaxDepths, rule * 2);
+            }
+            subtreeManagers.add(managerId);
+            subtreeMinMultipliers[rule] = minMultiplier;
+            subtreeMaxMultipliers[rule] = maxMultiplier;
+            subtreeMaxDepths[rule] = maxDepth == null ? INHERIT : maxDepth;
+            return this;
+        }
+
+        public RuleSet build(String hash) {
+            return new RuleSet(this, hash);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.company.model;
+
+/**
+ * Orders in which salary issues can be ranked, most severe first
+ */
+public enum SalaryIssueSort {
+    /**
+     * By the salary difference from the band, in currency
+     */
+    ABSOLUTE,
+    /**
+     * By the salary difference as a fraction of the expected salary
+     */
+    RELATIVE
+}
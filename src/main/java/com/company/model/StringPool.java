@@ -0,0 +1,168 @@
+package com.company.model;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Read-only pool of strings stored back to back as UTF-8, addressed by index and only decoded
+ * when read. The bytes and offsets are held in buffers, so a pool can live on the heap or
+ * directly in a memory-mapped file.
+ */
+public final class StringPool {
+
+    private final ByteBuffer bytes;
+    private final IntBuffer offsets;
+
+    StringPool(ByteBuffer bytes, IntBuffer offsets) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+    public static Builder builder(int expectedStrings) {
+        return new Builder(expectedStrings);
+    }
+
+    /**
+     * Value at the index, or null if an empty value was stored
+     */
+    public String get(int index) {
+        int start = offsets.get(index);
+        int length = offsets.get(index + 1) - start;
+        if (length == 0) {
+            return null;
+        }
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        byte[] encoded = new byte[length];
+        bytes.get(start, encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    public int size() {
+        return offsets.limit() - 1;
+    }
+
+    /**
+     * Index of each value in the pool, or -1 for values it does not hold, found in one pass over
+     * the pool that compares bytes only against values of the same encoded length
+     */
+    int[] indicesOf(String[] values) {
+        int[] found = new int[values.length];
+        Arrays.fill(found, -1);
+        byte[][] keys = new byte[values.length][];
+        int maxLength = 0;
+        for (int v = 0; v < values.length; v++) {
+            keys[v] = values[v] == null ? new byte[0] : values[v].getBytes(StandardCharsets.UTF_8);
+            maxLength = Math.max(maxLength, keys[v].length);
+        }
+        int[] byLength = new int[maxLength + 2];
+        for (byte[] key : keys) {
+            byLength[key.length + 1]++;
+        }
+        for (int length = 0; length <= maxLength; length++) {
+            byLength[length + 1] += byLength[length];
+        }
+        int[] sorted = new int[values.length];
+        int[] next = Arrays.copyOf(byLength, maxLength + 1);
+        for (int v = 0; v < values.length; v++) {
+            sorted[next[keys[v].length]++] = v;
+        }
+
+        for (int index = 0; index < size(); index++) {
+            int length = offsets.get(index + 1) - offsets.get(index);
+            if (length == 0 || length > maxLength) {
+                continue;
+            }
+            for (int k = byLength[length]; k < byLength[length + 1]; k++) {
+                int v = sorted[k];
+                if (found[v] == -1 && compare(index, keys[v]) == 0) {
+                    found[v] = index;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Orders two values by their UTF-8 bytes, which is code point order, without decoding them
+     */
+    int compare(int a, int b) {
+        return compare(a, bytes, offsets.get(b), offsets.get(b + 1) - offsets.get(b));
+    }
+
+    /**
+     * Orders the value at the index against a UTF-8 encoded key
+     */
+    int compare(int index, byte[] key) {
+        return compare(index, ByteBuffer.wrap(key), 0, key.length);
+    }
+
+    private int compare(int index, ByteBuffer other, int otherStart, int otherLength) {
+        int start = offsets.get(index);
+        int length = offsets.get(index + 1) - start;
+        int common = Math.min(length, otherLength);
+        for (int i = 0; i < common; i++) {
+            int difference = Byte.toUnsignedInt(bytes.get(start + i)) - Byte.toUnsignedInt(other.get(otherStart + i));
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - otherLength;
+    }
+
+    ByteBuffer bytes() {
+        return bytes.duplicate();
+    }
+
+    IntBuffer offsets() {
+        return offsets.duplicate();
+    }
+
+    /**
+     * Heap retained by this pool; mapped pools live outside the heap
+     */
+    public long estimatedBytes() {
+        return 32L + (bytes.isDirect() ? 0 : bytes.capacity()) + (offsets.isDirect() ? 0 : 4L * offsets.capacity());
+    }
+
+    public static final class Builder {
+
+        private byte[] bytes;
+        private int[] offsets;
+        private int size;
+
+        private Builder(int expectedStrings) {
+            this.bytes = new byte[Math.max(16, expectedStrings * 8)];
+            this.offsets = new int[expectedStrings + 1];
+        }
+
+        /**
+         * Appends a value and returns its index. Null is stored as an empty string.
+         */
+        public int add(String value) {
+            byte[] encoded = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            int start = offsets[size];
+            if (start + encoded.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, start + encoded.length));
+            }
+            System.arraycopy(encoded, 0, bytes, start, encoded.length);
+
+            if (size + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[size + 1] = start + encoded.length;
+            return size++;
+        }
+
+        /**
+         * Pool of the values added so far, trimmed to size
+         */
+        public StringPool build() {
+            return new StringPool(ByteBuffer.wrap(Arrays.copyOf(bytes, offsets[size])),
+                    IntBuffer.wrap(Arrays.copyOf(offsets, size + 1)));
+        }
+    }
+}
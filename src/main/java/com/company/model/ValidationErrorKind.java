@@ -0,0 +1,18 @@
+package com.company.model;
+
+/**
+ * Kinds of problem reported when validating an upload
+ */
+public enum ValidationErrorKind {
+    MALFORMED_ROW,
+    MISSING_ID,
+    DUPLICATE_ID,
+    MISSING_NAME,
+    INVALID_SALARY,
+    NEGATIVE_SALARY,
+    SELF_MANAGER,
+    UNKNOWN_MANAGER,
+    MANAGER_CYCLE,
+    TOO_MANY_EMPLOYEES,
+    NO_EMPLOYEES
+}
@@ -0,0 +1,74 @@
+package com.company.parser;
+
+import com.company.exception.InvalidDataException;
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression of a CSV upload, recognised from the file name or the Content-Encoding of a raw
+ * body. Compressed content is decompressed as it is read, so the plain CSV is never held.
+ */
+public enum Compression {
+    NONE(".csv"),
+    GZIP(".csv.gz"),
+    ZSTD(".csv.zst");
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final String extension;
+
+    Compression(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Compression of a file by its extension, or null if it is not a CSV file
+     */
+    public static Compression forFilename(String filename) {
+        if (filename == null) {
+            return null;
+        }
+        String name = filename.toLowerCase(Locale.ROOT);
+        for (Compression compression : new Compression[]{GZIP, ZSTD, NONE}) {
+            if (name.endsWith(compression.extension)) {
+                return compression;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compression named by a Content-Encoding header; no header means plain content
+     */
+    public static Compression forContentEncoding(String encoding) {
+        if (encoding == null || encoding.isBlank() || encoding.equalsIgnoreCase("identity")) {
+            return NONE;
+        }
+        switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip", "x-gzip":
+                return GZIP;
+            case "zstd":
+                return ZSTD;
+            default:
+                throw new InvalidDataException("Unsupported Content-Encoding: " + encoding);
+        }
+    }
+
+    /**
+     * Plain CSV read from the content. A corrupt header fails here; corrupt data fails when read.
+     */
+    public InputStream decompress(InputStream in) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPInputStream(in, GZIP_BUFFER_SIZE);
+            case ZSTD:
+                return new ZstdInputStream(in);
+            default:
+                return in;
+        }
+    }
+}
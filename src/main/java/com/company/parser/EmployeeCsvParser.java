@@ -0,0 +1,329 @@
+package com.company.parser;
+
+import com.company.model.Employee;
+import com.company.model.ValidationErrorKind;
+import com.company.validator.ValidationReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Streaming parser for the id/name/salary/manager_id employee CSV schema.
+ * <p>
+ * Reads UTF-8 bytes straight from the input stream, resolves header positions once and
+ * inserts each row into the id map as soon as it is complete, so no intermediate bean list
+ * is built. Salaries are parsed from the raw field bytes; only id, name and manager id are
+ * decoded to strings, and columns outside the schema are skipped without allocation.
+ * Quoted fields follow RFC 4180, and leading whitespace of unquoted fields is ignored.
+ * <p>
+ * Each row can be checked as it completes, and a row whose id is missing or already in the map
+ * is rejected rather than replacing the earlier employee. Problems go to a ValidationReport:
+ * the default fail-fast report stops at the first one, a collecting report lets parsing skip
+ * the bad row and carry on.
+ */
+public class EmployeeCsvParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int COLUMN_IGNORED = -1;
+    private static final int COLUMN_ID = 0;
+    private static final int COLUMN_NAME = 1;
+    private static final int COLUMN_SALARY = 2;
+    private static final int COLUMN_MANAGER_ID = 3;
+
+    // Powers of ten that are exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private byte[] field = new byte[256];
+    private int fieldLength;
+
+    private int[] columns = new int[8];
+    private int headerSize = -1;
+
+    private ObjLongConsumer<Employee> rowValidator;
+    private ValidationReport report;
+    private Employee current;
+    private int fieldIndex;
+    private long row;
+    private long dataRows;
+    private boolean storing;
+
+    /**
+     * Parses all rows into a map keyed by employee id
+     */
+    public Map<String, Employee> parse(InputStream in) throws IOException {
+        Map<String, Employee> employees = new HashMap<>();
+        parse(in, employees);
+        return employees;
+    }
+
+    /**
+     * Parses all rows, inserting each employee into the given map as it is read
+     */
+    public void parse(InputStream in, Map<String, Employee> employees) throws IOException {
+        parse(in, employees, (employee, row) -> {
+        });
+    }
+
+    /**
+     * Parses all rows, passing each employee and its CSV row number to the row validator before
+     * inserting it into the given map. The validator rejects a row by throwing.
+     */
+    public void parse(InputStream in, Map<String, Employee> employees, ObjLongConsumer<Employee> rowValidator)
+            throws IOException {
+        parse(in, employees, rowValidator, ValidationReport.failFast());
+    }
+
+    /**
+     * Parses all rows, sending malformed rows, missing and duplicate ids and invalid salaries to
+     * the report. Rows that cannot be keyed are left out of the map.
+     */
+    public void parse(InputStream in, Map<String, Employee> employees, ObjLongConsumer<Employee> rowValidator,
+                      ValidationReport report) throws IOException {
+        this.rowValidator = rowValidator;
+        this.report = report;
+        headerSize = -1;
+        row = 0;
+        dataRows = 0;
+        storing = true;
+        startRow();
+
+        boolean inQuotes = false;
+        boolean quotedField = false;
+        boolean pendingQuote = false;
+        boolean leading = true;
+        boolean firstChunk = true;
+
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            int start = 0;
+            if (firstChunk) {
+                firstChunk = false;
+                start = skipByteOrderMark(read);
+            }
+
+            for (int i = start; i < read; i++) {
+                byte b = buffer[i];
+
+                if (inQuotes) {
+                    if (pendingQuote) {
+                        pendingQuote = false;
+                        if (b == '"') {
+                            append(b);
+                            continue;
+                        }
+                        inQuotes = false;
+                    } else if (b == '"') {
+                        pendingQuote = true;
+                        continue;
+                    } else {
+                        append(b);
+                        continue;
+                    }
+                }
+
+                if (b == ',') {
+                    endField(quotedField);
+                    quotedField = false;
+                    leading = true;
+                } else if (b == '\n') {
+                    endField(quotedField);
+                    endRow(employees);
+                    quotedField = false;
+                    leading = true;
+                } else if (b == '\r') {
+                    // CRLF line endings: the newline that follows ends the row
+                } else if (b == '"' && leading) {
+                    inQuotes = true;
+                    quotedField = true;
+                    leading = false;
+                } else if (leading && (b == ' ' || b == '\t')) {
+                    // ignore leading whitespace
+                } else {
+                    leading = false;
+                    append(b);
+                }
+            }
+        }
+
+        if (inQuotes && !pendingQuote) {
+            report.reject(row + 1, null, ValidationErrorKind.MALFORMED_ROW, null,
+                    "Unterminated quoted field in CSV row " + (row + 1));
+            return;
+        }
+        if (fieldIndex > 0 || fieldLength > 0 || quotedField) {
+            endField(quotedField);
+            endRow(employees);
+        }
+    }
+
+    /**
+     * Stops adding rows to the map for the rest of the current parse, e.g. once a row limit has
+     * been reported. Later rows are still counted and passed to the row validator, but are not
+     * kept, so they cannot be reported as duplicates either.
+     */
+    public void stopStoring() {
+        storing = false;
+    }
+
+    /**
+     * Rows read by the last parse, not counting the header and blank lines
+     */
+    public long rows() {
+        return dataRows;
+    }
+
+    private int skipByteOrderMark(int read) {
+        if (read >= 3 && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF) {
+            return 3;
+        }
+        return 0;
+    }
+
+    private void append(byte b) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = b;
+    }
+
+    private void startRow() {
+        current = new Employee();
+        fieldIndex = 0;
+        fieldLength = 0;
+    }
+
+    private void endField(boolean quoted) {
+        if (headerSize < 0) {
+            readHeaderField();
+        } else if (fieldIndex < headerSize) {
+            switch (columns[fieldIndex]) {
+                case COLUMN_ID -> current.setId(fieldAsString());
+                case COLUMN_NAME -> current.setName(fieldAsString());
+                case COLUMN_SALARY -> current.setSalary(parseSalary());
+                case COLUMN_MANAGER_ID -> current.setManagerId(fieldAsString());
+                default -> {
+                }
+            }
+        }
+        fieldIndex++;
+        fieldLength = 0;
+    }
+
+    private void endRow(Map<String, Employee> employees) {
+        row++;
+        if (headerSize < 0) {
+            headerSize = fieldIndex;
+        } else if (fieldIndex == 1 && isBlank(current)) {
+            // blank line
+        } else if (fieldIndex != headerSize) {
+            dataRows++;
+            report.reject(row, null, ValidationErrorKind.MALFORMED_ROW, null, "CSV row " + row + " has " +
+                    fieldIndex + " fields but the header defines " + headerSize);
+        } else if (current.getId() == null) {
+            dataRows++;
+            report.reject(row, "id", ValidationErrorKind.MISSING_ID, null, "Employee ID is missing in CSV row " + row);
+        } else {
+            dataRows++;
+            rowValidator.accept(current, row);
+            if (storing && employees.putIfAbsent(current.getId(), current) != null) {
+                report.reject(row, "id", ValidationErrorKind.DUPLICATE_ID, current.getId(),
+                        "Duplicate employee ID " + current.getId() + " in CSV row " + row);
+            }
+        }
+        startRow();
+    }
+
+    private void readHeaderField() {
+        if (fieldIndex == columns.length) {
+            columns = Arrays.copyOf(columns, columns.length * 2);
+        }
+        String name = fieldAsString();
+        columns[fieldIndex] = name == null ? COLUMN_IGNORED : switch (name.trim().toLowerCase()) {
+            case "id" -> COLUMN_ID;
+            case "name" -> COLUMN_NAME;
+            case "salary" -> COLUMN_SALARY;
+            case "manager_id" -> COLUMN_MANAGER_ID;
+            default -> COLUMN_IGNORED;
+        };
+    }
+
+    private static boolean isBlank(Employee employee) {
+        return employee.getId() == null && employee.getName() == null && employee.getManagerId() == null
+                && employee.getSalary() == 0;
+    }
+
+    private String fieldAsString() {
+        return fieldLength == 0 ? null : new String(field, 0, fieldLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses plain decimal salaries directly from the field bytes. Values with at most 15
+     * significant digits are exact after a single division by a power of ten; anything else
+     * (exponents, very long values) falls back to Double.parseDouble.
+     */
+    private double parseSalary() {
+        if (fieldLength == 0) {
+            return 0;
+        }
+
+        int i = 0;
+        boolean negative = false;
+        if (field[0] == '-' || field[0] == '+') {
+            negative = field[0] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        boolean anyDigit = false;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        boolean plain = i < fieldLength;
+
+        for (; i < fieldLength && plain; i++) {
+            byte b = field[i];
+            if (b >= '0' && b <= '9') {
+                anyDigit = true;
+                if (mantissa != 0 || b != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (inFraction) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                plain = false;
+            }
+        }
+
+        if (plain && anyDigit && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+
+        String text = new String(field, 0, fieldLength, StandardCharsets.US_ASCII).trim();
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            report.reject(row + 1, "salary", ValidationErrorKind.INVALID_SALARY, current.getId(),
+                    "Invalid salary value '" + text + "' in CSV row " + (row + 1));
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.company.service;
+
+import com.company.config.AnalyzerProperties;
+import com.company.exception.AnalysisRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounds how many uploads are parsed and analysed at once, so a burst of large uploads cannot
+ * take every CPU from the requests behind it.
+ * <p>
+ * Uploads below analyzer.admission.small-upload-threshold cost little and run straight away.
+ * Larger ones take a permit from a fair semaphore and wait for it in arrival order. A request
+ * is rejected with AnalysisRejectedException when the queue is already full or no permit frees
+ * up within max-wait. The Retry-After hint is the queue ahead of it times the average run time,
+ * spread over the permits.
+ */
+@Component
+public class AnalysisAdmission {
+
+    // Weight of the latest run in the moving average of run times
+    private static final double RUN_TIME_SMOOTHING = 0.2;
+
+    private final boolean enabled;
+    private final long smallUploadBytes;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong averageRunNanos = new AtomicLong();
+    private final Counter rejected;
+
+    public AnalysisAdmission(AnalyzerProperties properties, MeterRegistry registry) {
+        AnalyzerProperties.Admission settings = properties.getAdmission();
+        this.enabled = settings.isEnabled();
+        this.smallUploadBytes = settings.getSmallUploadThreshold().toBytes();
+        this.maxConcurrent = settings.getMaxConcurrent() > 0
+                ? settings.getMaxConcurrent()
+                : Runtime.getRuntime().availableProcessors();
+        this.maxQueued = Math.max(0, settings.getMaxQueued());
+        this.maxWaitNanos = settings.getMaxWait().toNanos();
+        this.permits = new Semaphore(maxConcurrent, true);
+
+        Gauge.builder("analyzer.admission.active", active, AtomicInteger::get)
+                .description("Uploads being analysed under admission control")
+                .register(registry);
+        Gauge.builder("analyzer.admission.queued", queued, AtomicInteger::get)
+                .description("Uploads waiting for analysis capacity")
+                .register(registry);
+        this.rejected = Counter.builder("analyzer.admission.rejected")
+                .description("Uploads turned away with 429 because analysis capacity was saturated")
+                .register(registry);
+    }
+
+    /**
+     * Runs the work on an upload of the given size once capacity allows
+     */
+    public <T> T admit(long uploadBytes, Supplier<T> work) {
+        if (!enabled || uploadBytes < smallUploadBytes) {
+            return work.get();
+        }
+
+        acquire();
+        active.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            recordRunTime(System.nanoTime() - start);
+            active.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        try {
+            // the timed forms honour fairness, unlike tryAcquire(), so no request barges past the queue
+            if (permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+            if (queued.incrementAndGet() > maxQueued) {
+                queued.decrementAndGet();
+                reject();
+            }
+            try {
+                if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                    reject();
+                }
+            } finally {
+                queued.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject();
+        }
+    }
+
+    private void reject() {
+        rejected.increment();
+        long waitNanos = averageRunNanos.get() * (queued.get() + 1) / maxConcurrent;
+        throw new AnalysisRejectedException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)));
+    }
+
+    private void recordRunTime(long nanos) {
+        averageRunNanos.updateAndGet(average -> average == 0
+                ? nanos
+                : (long) (average + RUN_TIME_SMOOTHING * (nanos - average)));
+    }
+}
@@ -0,0 +1,142 @@
+package com.company.service;
+
+import com.company.config.AnalyzerProperties;
+import com.company.model.OrgGraph;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+/**
+ * Runs per-employee checks over an org, either as a plain loop or split by subtree on a
+ * fork-join pool. Both paths return matching employees in index order, so results are
+ * identical whichever one runs.
+ */
+@Component
+public class AnalysisExecutor {
+
+    private final boolean parallel;
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    public AnalysisExecutor(AnalyzerProperties properties) {
+        AnalyzerProperties.Parallel settings = properties.getParallel();
+        this.parallel = settings.isEnabled();
+        this.threshold = Math.max(1, settings.getThreshold());
+        this.pool = parallel
+                ? new ForkJoinPool(settings.getParallelism() > 0
+                        ? settings.getParallelism()
+                        : Runtime.getRuntime().availableProcessors())
+                : null;
+    }
+
+    /**
+     * Indices of the employees matching the check, in ascending order
+     */
+    public int[] select(OrgGraph org, IntPredicate check) {
+        if (!parallel || org.size() < threshold) {
+            return scan(check, 0, org.size()).toArray();
+        }
+        return pool.invoke(new SubtreeTask(org, check, 0, org.size())).toArray();
+    }
+
+    private static Indices scan(IntPredicate check, int start, int end) {
+        Indices found = new Indices();
+        for (int employee = start; employee < end; employee++) {
+            if (check.test(employee)) {
+                found.add(employee);
+            }
+        }
+        return found;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Checks a run of whole sibling subtrees. OrgGraph indexes employees in preorder, so the
+     * run is a contiguous index range that can be scanned sequentially once it is below the
+     * threshold. Larger runs are split at a subtree boundary near the middle, and a run that is
+     * a single subtree checks its head and continues with the subtrees of its subordinates.
+     */
+    private final class SubtreeTask extends RecursiveTask<Indices> {
+
+        private final OrgGraph org;
+        private final IntPredicate check;
+        private final int start;
+        private final int end;
+
+        SubtreeTask(OrgGraph org, IntPredicate check, int start, int end) {
+            this.org = org;
+            this.check = check;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Indices compute() {
+            Indices found = new Indices();
+            int from = start;
+            while (end - from > threshold && from + org.subtreeSize(from) >= end) {
+                if (check.test(from)) {
+                    found.add(from);
+                }
+                from++;
+            }
+            if (end - from <= threshold) {
+                found.addAll(scan(check, from, end));
+                return found;
+            }
+
+            int split = subtreeBoundaryNear(from, from + (end - from) / 2);
+            SubtreeTask right = new SubtreeTask(org, check, split, end);
+            right.fork();
+            found.addAll(new SubtreeTask(org, check, from, split).compute());
+            found.addAll(right.join());
+            return found;
+        }
+
+        private int subtreeBoundaryNear(int from, int middle) {
+            int boundary = from + org.subtreeSize(from);
+            while (boundary < middle) {
+                int next = boundary + org.subtreeSize(boundary);
+                if (next > middle) {
+                    break;
+                }
+                boundary = next;
+            }
+            return boundary;
+        }
+    }
+
+    private static final class Indices {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(Indices other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
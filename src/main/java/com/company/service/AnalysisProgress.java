@@ -0,0 +1,23 @@
+package com.company.service;
+
+import com.company.metrics.PipelineMetrics.Stage;
+
+/**
+ * Receives progress of an upload through the pipeline, from the thread doing the work
+ */
+public interface AnalysisProgress {
+
+    AnalysisProgress NONE = new AnalysisProgress() {
+        @Override
+        public void stage(Stage stage) {
+        }
+
+        @Override
+        public void rowParsed() {
+        }
+    };
+
+    void stage(Stage stage);
+
+    void rowParsed();
+}
@@ -0,0 +1,45 @@
+package com.company.service;
+
+import com.company.exception.InvalidDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last issue or manager of a page: its ranking score and employee index,
+ * tagged with what was being paged so a cursor cannot be replayed against another query. Pages
+ * resume strictly after this position, so they stay stable however the pages are sized.
+ */
+record IssueCursor(String query, double score, int employee) {
+
+    /**
+     * Whether a candidate ranks after the cursor position
+     */
+    boolean isBefore(double candidateScore, int candidate) {
+        return TopEmployees.precedes(score, employee, candidateScore, candidate);
+    }
+
+    String encode() {
+        String value = query + ":" + Long.toHexString(Double.doubleToLongBits(score)) + ":" + employee;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Cursor for the query, or null for the first page
+     */
+    static IssueCursor decode(String cursor, String query) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3 || !parts[0].equals(query)) {
+                throw new InvalidDataException("Cursor does not belong to this query");
+            }
+            return new IssueCursor(query, Double.longBitsToDouble(Long.parseUnsignedLong(parts[1], 16)),
+                    Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDataException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -1,179 +1,672 @@
 package com.company.service;
 
 
+import com.company.cache.OrgHierarchyCache;
+import com.company.dtos.OrgAnalysisDto;
 import com.company.dtos.ReportingLineDto;
 import com.company.dtos.SalaryIssueDto;
+import com.company.dtos.SalaryIssuePageDto;
+import com.company.dtos.ValidationReportDto;
+import com.company.exception.InvalidDataException;
+import com.company.metrics.PipelineMetrics;
+import com.company.metrics.PipelineMetrics.Stage;
+import com.company.model.AnalysisType;
 import com.company.model.Employee;
+import com.company.model.LiveOrg;
+import com.company.model.OrgGraph;
+import com.company.model.OrgView;
+import com.company.model.RuleSet;
+import com.company.model.SalaryIssueSort;
+import com.company.parser.Compression;
+import com.company.parser.EmployeeCsvParser;
 import com.company.validator.CsvValidator;
-import com.opencsv.bean.CsvToBeanBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.Validator;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import static com.company.model.OrgRules.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class OrgAnalyzerService {
 
-    private static final int MAX_ALLOWED_REPORTING_DEPTH = 4;
-    private static final double MIN_SALARY_MULTIPLIER = 1.2; // 20% more
-    private static final double MAX_SALARY_MULTIPLIER = 1.5; // 50% more
-
     @Autowired
     public CsvValidator csvValidator;
 
+    @Autowired
+    public OrgHierarchyCache hierarchyCache;
+
+    @Autowired
+    public AnalysisExecutor analysisExecutor;
+
+    @Autowired
+    public PipelineMetrics metrics;
+
+    @Autowired
+    public AnalysisAdmission admission;
+
     /**
      * Get underpaid managers
      */
     public List<SalaryIssueDto> getUnderpaidManagers(MultipartFile file) {
-        csvValidator.validateFile(file);
-        Map<String, Employee> employees = parseEmployeesFromFile(file);
-        csvValidator.validateEmployeeData(employees);
-        buildHierarchy(employees);
-        List<SalaryIssueDto> results= identifySalaryIssues(employees);
-        return results.stream()
-                .filter(issue -> issue.getSalaryDifference() < 0)
-                .collect(Collectors.toList());
+        return process("underpaid", file, () -> findUnderpaidManagers(loadOrg(file)));
+    }
+
+    /**
+     * Get underpaid managers of an already loaded org
+     */
+    public List<SalaryIssueDto> findUnderpaidManagers(OrgView org) {
+        return findSalaryIssues(org, AnalysisType.UNDERPAID);
     }
 
     /**
      * Get overpaid managers
      */
     public List<SalaryIssueDto> getOverpaidManagers(MultipartFile file) {
-        csvValidator.validateFile(file);
-        Map<String, Employee> employees = parseEmployeesFromFile(file);
-        csvValidator.validateEmployeeData(employees);
-        buildHierarchy(employees);
-        List<SalaryIssueDto> results= identifySalaryIssues(employees);
-        return results.stream()
-                .filter(issue -> issue.getSalaryDifference() > 0)
-                .collect(Collectors.toList());
+        return process("overpaid", file, () -> findOverpaidManagers(loadOrg(file)));
+    }
+
+    /**
+     * Get overpaid managers of an already loaded org
+     */
+    public List<SalaryIssueDto> findOverpaidManagers(OrgView org) {
+        return findSalaryIssues(org, AnalysisType.OVERPAID);
+    }
+
+    /**
+     * A page of underpaid or overpaid managers. Ranked most severe first when sortBy is given,
+     * otherwise in file order; the next page starts after the cursor returned with this one.
+     */
+    public SalaryIssuePageDto getSalaryIssuePage(MultipartFile file, AnalysisType type, SalaryIssueSort sortBy,
+                                                 int limit, String cursor) {
+        return process(type.name().toLowerCase() + "-page", file,
+                () -> findSalaryIssuePage(loadOrg(file), type, sortBy, limit, cursor));
+    }
+
+    /**
+     * A page of underpaid or overpaid managers of an already loaded org. Only the managers on
+     * the page are kept while scanning, in a heap bounded by the limit, so time is linear in
+     * the org and memory in the page whatever the number of issues.
+     */
+    public SalaryIssuePageDto findSalaryIssuePage(OrgView view, AnalysisType type, SalaryIssueSort sortBy,
+                                                  int limit, String cursor) {
+        if (type != AnalysisType.UNDERPAID && type != AnalysisType.OVERPAID) {
+            throw new InvalidDataException("Not a salary analysis: " + type);
+        }
+        if (limit < 1) {
+            throw new InvalidDataException("limit must be at least 1");
+        }
+        String query = type + "/" + (sortBy == null ? "FILE" : sortBy);
+        IssueCursor after = IssueCursor.decode(cursor, query);
+        TopEmployees page = new TopEmployees(Math.min(limit, OrgQueryService.MAX_PAGE_SIZE));
+
+        if (view instanceof LiveOrg live) {
+            synchronized (live) {
+                int[] managers = type == AnalysisType.UNDERPAID ? live.underpaidManagers() : live.overpaidManagers();
+                for (int manager : managers) {
+                    offer(page, after, manager, rank(live, manager, sortBy));
+                }
+                return toPage(live, page, query, sortBy);
+            }
+        }
+        OrgGraph org = (OrgGraph) view;
+        IntPredicate rule = salaryRule(org, type);
+        metrics.time(Stage.ANALYZE, () -> {
+            for (int manager = 0; manager < org.size(); manager++) {
+                if (rule.test(manager)) {
+                    offer(page, after, manager, rank(org, manager, sortBy));
+                }
+            }
+        });
+        return toPage(org, page, query, sortBy);
     }
 
     /**
      * Get employees with long reporting lines
      */
     public List<ReportingLineDto> getLongReportingLines(MultipartFile file) {
-        csvValidator.validateFile(file);
-        Map<String, Employee> employees = parseEmployeesFromFile(file);
-        csvValidator.validateEmployeeData(employees);
-        buildHierarchy(employees);
-        Employee ceo = findCEO(employees);
+        return process("long-reporting-lines", file, () -> findLongReportingLines(loadOrg(file)));
+    }
+
+    /**
+     * Get employees with long reporting lines in an already loaded org
+     */
+    public List<ReportingLineDto> findLongReportingLines(OrgView org) {
+        return identifyReportingLineIssues(org);
+    }
+
+    /**
+     * Underpaid managers, produced one at a time as the returned stream is consumed.
+     * The file is parsed and validated before this method returns.
+     */
+    public Stream<SalaryIssueDto> streamUnderpaidManagers(MultipartFile file) {
+        OrgGraph org = process("underpaid-stream", file, () -> loadOrg(file));
+        return IntStream.range(0, org.size())
+                .filter(manager -> isUnderpaid(org, manager))
+                .mapToObj(manager -> toSalaryIssue(org, manager));
+    }
+
+    /**
+     * Overpaid managers, produced one at a time as the returned stream is consumed.
+     * The file is parsed and validated before this method returns.
+     */
+    public Stream<SalaryIssueDto> streamOverpaidManagers(MultipartFile file) {
+        OrgGraph org = process("overpaid-stream", file, () -> loadOrg(file));
+        return IntStream.range(0, org.size())
+                .filter(manager -> isOverpaid(org, manager))
+                .mapToObj(manager -> toSalaryIssue(org, manager));
+    }
+
+    /**
+     * Employees with long reporting lines, produced one at a time as the returned stream is consumed.
+     * The file is parsed and validated before this method returns.
+     */
+    public Stream<ReportingLineDto> streamLongReportingLines(MultipartFile file) {
+        OrgGraph org = process("long-reporting-lines-stream", file, () -> loadOrg(file));
+        return IntStream.range(0, org.size())
+                .filter(employee -> hasLongReportingLine(org, employee))
+                .mapToObj(employee -> toReportingLineIssue(org, employee));
+    }
+
+    /**
+     * Check the whole file and report every problem found in it, rather than failing on the
+     * first. Only problems with the file itself, such as its type or size, are thrown.
+     */
+    public ValidationReportDto validate(MultipartFile file) {
+        return process("validation", file, () -> {
+            metrics.time(Stage.VALIDATE_FILE, () -> csvValidator.validateFile(file));
+            try (InputStream in = openUpload(file)) {
+                ValidationReportDto report = csvValidator.validateAll(in);
+                metrics.validationErrors(report.getErrorCount());
+                return report;
+            } catch (IOException e) {
+                log.error("Error reading CSV file", e);
+                throw new InvalidDataException("Failed to read the CSV file", e);
+            }
+        });
+    }
 
-        if (ceo != null) {
-            calculateReportingLineDepths(ceo, 0);
+    /**
+     * Run the selected analyses against a single parse of the file.
+     * Analyses that are not selected are skipped entirely; an empty selection runs all of them.
+     */
+    public OrgAnalysisDto analyze(MultipartFile file, Set<AnalysisType> analyses) {
+        return process("analysis", file, () -> analyze(loadOrg(file), analyses));
+    }
+
+    /**
+     * Run the selected analyses against the given salary bands and depth limits instead of the
+     * built-in ones. All rules are checked in one pass over the org, however many there are.
+     */
+    public OrgAnalysisDto analyzeWithRules(MultipartFile file, Set<AnalysisType> analyses, RuleSet rules) {
+        return process("analysis-rules", file, () -> analyze(loadOrg(file), analyses, rules));
+    }
+
+    /**
+     * Run the selected analyses against a CSV read straight from a stream, such as a raw request
+     * body, parsing rows as they arrive instead of buffering the upload first. The stream may be
+     * compressed; the size limit applies to the decompressed content. Compressed uploads and
+     * uploads of unknown (negative) length are admitted as large ones.
+     */
+    public OrgAnalysisDto analyzeStream(InputStream body, long contentLength, Compression compression,
+                                        Set<AnalysisType> analyses) {
+        return processStream("analysis-stream", contentLength, compression,
+                () -> analyze(loadOrg(body, compression), analyses));
+    }
+
+    /**
+     * Run the selected analyses against a CSV read straight from a stream, like analyzeStream,
+     * checking the given salary bands and depth limits instead of the built-in ones
+     */
+    public OrgAnalysisDto analyzeStreamWithRules(InputStream body, long contentLength, Compression compression,
+                                                 Set<AnalysisType> analyses, RuleSet rules) {
+        return processStream("analysis-stream-rules", contentLength, compression,
+                () -> analyze(loadOrg(body, compression), analyses, rules));
+    }
+
+    /**
+     * Run the selected analyses like analyze, reporting the current stage and rows parsed to
+     * the progress as the work goes. Not subject to admission control: callers such as the job
+     * workers bound their own concurrency.
+     */
+    public OrgAnalysisDto analyzeWithProgress(MultipartFile file, Set<AnalysisType> analyses,
+                                              AnalysisProgress progress) {
+        return metrics.measureAllocation("analysis-job", () -> {
+            OrgGraph org = loadOrg(file, progress);
+            progress.stage(Stage.ANALYZE);
+            return analyze(org, analyses);
+        });
+    }
+
+    /**
+     * Run the selected analyses against one org file of a batch, parsing with the caller's parser
+     * so its buffers are reused from file to file. Batch workers bound their own concurrency, so
+     * admission control does not apply, and the orgs are not cached, where a nightly run would
+     * only evict the hierarchies of interactive uploads.
+     */
+    public OrgAnalysisDto analyzeBatchFile(InputStream in, Compression compression, Set<AnalysisType> analyses,
+                                           EmployeeCsvParser parser) {
+        Map<String, Employee> employees;
+        try (InputStream limited = csvValidator.limitSize(compression.decompress(in))) {
+            employees = metrics.time(Stage.PARSE, () -> parseBatchFile(limited, parser));
+        } catch (IOException e) {
+            metrics.uploadRejected();
+            throw new InvalidDataException("Failed to read the CSV file: " + e.getMessage(), e);
+        } catch (InvalidDataException e) {
+            metrics.uploadRejected();
+            throw e;
+        }
+        return analyze(linkOrg(employees, null, AnalysisProgress.NONE), analyses);
+    }
+
+    private OrgAnalysisDto analyze(OrgGraph org, Set<AnalysisType> analyses, RuleSet rules) {
+        Set<AnalysisType> selected = selection(analyses);
+        RuleSet.Findings findings = metrics.time(Stage.ANALYZE, () -> rules.evaluate(org));
+
+        OrgAnalysisDto.OrgAnalysisDtoBuilder result = OrgAnalysisDto.builder();
+        if (selected.contains(AnalysisType.UNDERPAID)) {
+            result.underpaidManagers(toSalaryIssues(org, findings.underpaid()));
+        }
+        if (selected.contains(AnalysisType.OVERPAID)) {
+            result.overpaidManagers(toSalaryIssues(org, findings.overpaid()));
         }
+        if (selected.contains(AnalysisType.LONG_REPORTING_LINES)) {
+            result.longReportingLines(toReportingLineIssues(org, findings.longReportingLines()));
+        }
+        return result.build();
+    }
 
-        return identifyReportingLineIssues(employees);
+    private static Set<AnalysisType> selection(Set<AnalysisType> analyses) {
+        return analyses == null || analyses.isEmpty()
+                ? EnumSet.allOf(AnalysisType.class)
+                : EnumSet.copyOf(analyses);
     }
 
+    private OrgAnalysisDto analyze(OrgGraph org, Set<AnalysisType> analyses) {
+        Set<AnalysisType> selected = selection(analyses);
 
+        OrgAnalysisDto.OrgAnalysisDtoBuilder result = OrgAnalysisDto.builder();
 
-    private Map<String, Employee> parseEmployeesFromFile(MultipartFile file) {
-        Map<String, Employee> employees = new HashMap<>();
+        if (selected.contains(AnalysisType.UNDERPAID) || selected.contains(AnalysisType.OVERPAID)) {
+            List<SalaryIssueDto> underpaid = new ArrayList<>();
+            List<SalaryIssueDto> overpaid = new ArrayList<>();
+            for (SalaryIssueDto issue : identifySalaryIssues(org)) {
+                if (issue.getSalaryDifference() < 0) {
+                    underpaid.add(issue);
+                } else if (issue.getSalaryDifference() > 0) {
+                    overpaid.add(issue);
+                }
+            }
+            if (selected.contains(AnalysisType.UNDERPAID)) {
+                result.underpaidManagers(underpaid);
+            }
+            if (selected.contains(AnalysisType.OVERPAID)) {
+                result.overpaidManagers(overpaid);
+            }
+        }
+
+        if (selected.contains(AnalysisType.LONG_REPORTING_LINES)) {
+            result.longReportingLines(identifyReportingLineIssues(org));
+        }
+
+        return result.build();
+    }
+
+    /**
+     * Validated, linked hierarchy of an upload to be stored as a snapshot, admitted and metered
+     * like the analyses
+     */
+    public OrgGraph loadOrgForSnapshot(MultipartFile file) {
+        return process("snapshot", file, () -> loadOrg(file));
+    }
 
-        try (Reader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            List<Employee> employeeList = new CsvToBeanBuilder<Employee>(reader)
-                    .withType(Employee.class)
-                    .withIgnoreLeadingWhiteSpace(true)
-                    .build()
-                    .parse();
+    /**
+     * Validated, linked hierarchy with reporting line depths calculated.
+     * Identical uploads are served from the cache without parsing or validating again.
+     */
+    private OrgGraph loadOrg(MultipartFile file) {
+        return loadOrg(file, AnalysisProgress.NONE);
+    }
 
-            for (Employee employee : employeeList) {
-                employees.put(employee.getId(), employee);
+    private OrgGraph loadOrg(MultipartFile file, AnalysisProgress progress) {
+        progress.stage(Stage.VALIDATE_FILE);
+        metrics.time(Stage.VALIDATE_FILE, () -> csvValidator.validateFile(file));
+
+        // orgs are cached under a digest of the decompressed content, whichever way it arrived: a
+        // plain upload is digested up front so a hit skips parsing, a compressed one as it is parsed
+        boolean compressed = Compression.forFilename(file.getOriginalFilename()) != Compression.NONE;
+        String digest = null;
+        if (!compressed) {
+            progress.stage(Stage.DIGEST);
+            digest = metrics.time(Stage.DIGEST, () -> hierarchyCache.digest(file));
+            OrgGraph cached = hierarchyCache.get(digest);
+            if (cached != null) {
+                return cached;
             }
-        } catch (Exception e) {
-            log.error("Error parsing CSV file", e);
         }
 
+        ParsedUpload parsed;
+        try {
+            progress.stage(Stage.PARSE);
+            parsed = metrics.time(Stage.PARSE, () -> parseEmployeesFromFile(file, compressed, progress));
+        } catch (InvalidDataException e) {
+            metrics.uploadRejected();
+            throw e;
+        }
+        if (compressed) {
+            digest = parsed.digest();
+            OrgGraph cached = hierarchyCache.get(digest);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return linkOrg(parsed.employees(), digest, progress);
+    }
+
+    /**
+     * Validated, linked hierarchy parsed from a stream while it is read, such as a request body,
+     * so the upload is never held in full. The content is digested on the way through, so an org
+     * already cached for it is reused and a new one is cached for later uploads.
+     */
+    private OrgGraph loadOrg(InputStream body, Compression compression) {
+        Map<String, Employee> employees;
+        String digest;
+        try (InputStream in = csvValidator.limitSize(compression.decompress(body))) {
+            DigestInputStream digesting = hierarchyCache.digesting(in);
+            employees = metrics.time(Stage.PARSE, () -> parseEmployeesFromStream(digesting != null ? digesting : in));
+            digest = hierarchyCache.digest(digesting);
+        } catch (IOException e) {
+            metrics.uploadRejected();
+            throw new InvalidDataException("Failed to read the CSV upload: " + e.getMessage(), e);
+        } catch (InvalidDataException e) {
+            metrics.uploadRejected();
+            throw e;
+        }
+
+        OrgGraph cached = hierarchyCache.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+        return linkOrg(employees, digest, AnalysisProgress.NONE);
+    }
+
+    /**
+     * Resolves manager references of parsed employees and links them into a validated
+     * hierarchy, which is cached under the digest
+     */
+    private OrgGraph linkOrg(Map<String, Employee> employees, String digest, AnalysisProgress progress) {
+        metrics.rowsParsed(employees.size());
+        try {
+            progress.stage(Stage.VALIDATE_EMPLOYEES);
+            metrics.time(Stage.VALIDATE_EMPLOYEES, () -> csvValidator.validateManagerReferences(employees));
+        } catch (InvalidDataException e) {
+            metrics.uploadRejected();
+            throw e;
+        }
+        progress.stage(Stage.BUILD_HIERARCHY);
+        OrgGraph org = metrics.time(Stage.BUILD_HIERARCHY, () -> OrgGraph.of(employees));
+        progress.stage(Stage.VALIDATE_HIERARCHY);
+        metrics.time(Stage.VALIDATE_HIERARCHY, () -> csvValidator.validateHierarchy(org));
+
+        hierarchyCache.put(digest, org);
+        return org;
+    }
+
+    /**
+     * Runs work on an upload once admission allows, sampling the bytes it allocates
+     */
+    private <T> T process(String operation, MultipartFile file, Supplier<T> work) {
+        return metrics.measureAllocation(operation,
+                () -> admission.admit(file == null ? 0 : file.getSize(), work));
+    }
+
+    /**
+     * Runs work on a streamed upload once admission allows, like process. Compressed streams and
+     * streams of unknown (negative) length are admitted as large ones.
+     */
+    private <T> T processStream(String operation, long contentLength, Compression compression, Supplier<T> work) {
+        return metrics.measureAllocation(operation, () -> admission.admit(
+                compression != Compression.NONE || contentLength < 0 ? Long.MAX_VALUE : contentLength, work));
+    }
+
+    /**
+     * Contents of an uploaded file, decompressed as it is read if the file is compressed. The
+     * size of a plain file has already been checked; decompressed content is limited as it is read.
+     */
+    private InputStream openUpload(MultipartFile file) throws IOException {
+        return decompressUpload(file, file.getInputStream());
+    }
+
+    private InputStream decompressUpload(MultipartFile file, InputStream in) throws IOException {
+        Compression compression = Compression.forFilename(file.getOriginalFilename());
+        if (compression == null || compression == Compression.NONE) {
+            return in;
+        }
+        try {
+            return csvValidator.limitSize(compression.decompress(in));
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Parses an uploaded file, digesting its decompressed content on the way through when asked
+     * to. Failing to open or read the content, such as a corrupt or truncated compressed file,
+     * rejects the upload like a bad raw body.
+     */
+    private ParsedUpload parseEmployeesFromFile(MultipartFile file, boolean digestContent,
+                                                AnalysisProgress progress) {
+        try (InputStream in = openUpload(file)) {
+            DigestInputStream digesting = digestContent ? hierarchyCache.digesting(in) : null;
+            Map<String, Employee> employees = parseEmployees(digesting != null ? digesting : in, progress);
+            return new ParsedUpload(employees, hierarchyCache.digest(digesting));
+        } catch (IOException e) {
+            throw new InvalidDataException("Failed to read the CSV file: " + e.getMessage(), e);
+        }
+    }
+
+    private Map<String, Employee> parseEmployeesFromStream(InputStream in) {
+        try {
+            return parseEmployees(in, AnalysisProgress.NONE);
+        } catch (IOException e) {
+            throw new InvalidDataException("Failed to read the CSV upload: " + e.getMessage(), e);
+        }
+    }
+
+    private Map<String, Employee> parseBatchFile(InputStream in, EmployeeCsvParser parser) {
+        try {
+            return parseEmployees(in, parser, AnalysisProgress.NONE);
+        } catch (IOException e) {
+            throw new InvalidDataException("Failed to read the CSV file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses the CSV, validating each row and rejecting duplicate ids as it is read. Manager
+     * references are resolved once all rows are in.
+     */
+    private Map<String, Employee> parseEmployees(InputStream in, AnalysisProgress progress) throws IOException {
+        return parseEmployees(in, new EmployeeCsvParser(), progress);
+    }
+
+    private Map<String, Employee> parseEmployees(InputStream in, EmployeeCsvParser parser, AnalysisProgress progress)
+            throws IOException {
+        Map<String, Employee> employees = new HashMap<>();
+        parser.parse(in, employees, (employee, row) -> {
+            csvValidator.validateEmployee(employee, employees);
+            progress.rowParsed();
+        });
         return employees;
     }
 
-    private void buildHierarchy(Map<String, Employee> employees) {
-        for (Employee employee : employees.values()) {
-            String managerId = employee.getManagerId();
-            if (managerId != null && !managerId.isEmpty()) {
-                Employee manager = employees.get(managerId);
-                if (manager != null) {
-                    manager.addSubordinate(employee);
-                }
+    /**
+     * Scans an OrgGraph for salary issues; an updated LiveOrg already tracks them
+     */
+    private List<SalaryIssueDto> findSalaryIssues(OrgView view, AnalysisType type) {
+        if (view instanceof LiveOrg live) {
+            synchronized (live) {
+                return toSalaryIssues(live,
+                        type == AnalysisType.UNDERPAID ? live.underpaidManagers() : live.overpaidManagers());
             }
         }
+        OrgGraph org = (OrgGraph) view;
+        IntPredicate rule = salaryRule(org, type);
+        int[] managers = metrics.time(Stage.ANALYZE, () -> analysisExecutor.select(org, rule));
+        return toSalaryIssues(org, managers);
     }
 
-    private Employee findCEO(Map<String, Employee> employees) {
-        for (Employee employee : employees.values()) {
-            if (employee.getManagerId() == null || employee.getManagerId().isEmpty()) {
-                return employee;
-            }
+    private static IntPredicate salaryRule(OrgView org, AnalysisType type) {
+        return type == AnalysisType.UNDERPAID
+                ? manager -> isUnderpaid(org, manager)
+                : manager -> isOverpaid(org, manager);
+    }
+
+    /**
+     * Ranking score of a salary issue: how far the salary is outside the band, in currency or
+     * relative to the expected salary. Without a sort order, earlier employees rank first.
+     */
+    private static double rank(OrgView org, int manager, SalaryIssueSort sortBy) {
+        if (sortBy == null) {
+            return -manager;
         }
-        return null;
-    }
-
-    private void calculateReportingLineDepths(Employee employee, int depth) {
-        employee.setReportingLineDepth(depth);
-        for (Employee subordinate : employee.getSubordinates()) {
-            calculateReportingLineDepths(subordinate, depth + 1);
-        }
-    }
-
-    private List<SalaryIssueDto> identifySalaryIssues(Map<String, Employee> employees) {
-        List<SalaryIssueDto> issues = new ArrayList<>();
-
-        for (Employee employee : employees.values()) {
-            if (!employee.getSubordinates().isEmpty()) {
-                double avgSubordinateSalary = employee.getAverageSubordinateSalary();
-                double minRequiredSalary = avgSubordinateSalary * MIN_SALARY_MULTIPLIER;
-                double maxAllowedSalary = avgSubordinateSalary * MAX_SALARY_MULTIPLIER;
-
-                if (employee.getSalary() < minRequiredSalary) {
-                    issues.add(SalaryIssueDto.builder()
-                            .managerId(employee.getId())
-                            .managerName(employee.getName())
-                            .managerSalary(employee.getSalary())
-                            .averageSubordinateSalary(avgSubordinateSalary)
-                            .expectedSalary(minRequiredSalary)
-                            .salaryDifference(employee.getSalary() - minRequiredSalary)
-                            .build());
-                } else if (employee.getSalary() > maxAllowedSalary) {
-                    issues.add(SalaryIssueDto.builder()
-                            .managerId(employee.getId())
-                            .managerName(employee.getName())
-                            .managerSalary(employee.getSalary())
-                            .averageSubordinateSalary(avgSubordinateSalary)
-                            .expectedSalary(maxAllowedSalary)
-                            .salaryDifference(employee.getSalary() - maxAllowedSalary)
-                            .build());
-                }
+        double expected = expectedSalary(org, manager);
+        double difference = Math.abs(org.salary(manager) - expected);
+        return sortBy == SalaryIssueSort.ABSOLUTE ? difference : difference / expected;
+    }
+
+    private static void offer(TopEmployees page, IssueCursor after, int manager, double score) {
+        if (after == null || after.isBefore(score, manager)) {
+            page.offer(manager, score);
+        }
+    }
+
+    private static SalaryIssuePageDto toPage(OrgView org, TopEmployees page, String query, SalaryIssueSort sortBy) {
+        int[] managers = page.ranked();
+        String nextCursor = null;
+        if (page.isFull() && managers.length > 0) {
+            int last = managers[managers.length - 1];
+            nextCursor = new IssueCursor(query, rank(org, last, sortBy), last).encode();
+        }
+        return SalaryIssuePageDto.builder()
+                .issues(toSalaryIssues(org, managers))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private List<SalaryIssueDto> identifySalaryIssues(OrgView view) {
+        if (view instanceof LiveOrg live) {
+            synchronized (live) {
+                int[] managers = IntStream.concat(Arrays.stream(live.underpaidManagers()),
+                        Arrays.stream(live.overpaidManagers())).sorted().toArray();
+                return toSalaryIssues(live, managers);
             }
         }
+        OrgGraph org = (OrgGraph) view;
+        int[] managers = metrics.time(Stage.ANALYZE,
+                () -> analysisExecutor.select(org, manager -> isUnderpaid(org, manager) || isOverpaid(org, manager)));
+        return toSalaryIssues(org, managers);
+    }
 
+    private static List<SalaryIssueDto> toSalaryIssues(OrgView org, int[] managers) {
+        List<SalaryIssueDto> issues = new ArrayList<>(managers.length);
+        for (int manager : managers) {
+            issues.add(toSalaryIssue(org, manager));
+        }
         return issues;
     }
 
-    private List<ReportingLineDto> identifyReportingLineIssues(Map<String, Employee> employees) {
-        List<ReportingLineDto> issues = new ArrayList<>();
+    /**
+     * Nearest salary within the manager's band
+     */
+    private static double expectedSalary(OrgView org, int manager) {
+        double salary = org.salary(manager);
+        double avgSubordinateSalary = org.averageSubordinateSalary(manager);
+        double minRequiredSalary = avgSubordinateSalary * MIN_SALARY_MULTIPLIER;
+        double maxAllowedSalary = avgSubordinateSalary * MAX_SALARY_MULTIPLIER;
+        return salary < minRequiredSalary ? minRequiredSalary : maxAllowedSalary;
+    }
+
+    private static List<SalaryIssueDto> toSalaryIssues(OrgView org, RuleSet.Matches matches) {
+        List<SalaryIssueDto> issues = new ArrayList<>(matches.size());
+        for (int i = 0; i < matches.size(); i++) {
+            issues.add(toSalaryIssue(org, matches.employee(i), matches.limit(i)));
+        }
+        return issues;
+    }
+
+    private static SalaryIssueDto toSalaryIssue(OrgView org, int manager) {
+        return toSalaryIssue(org, manager, expectedSalary(org, manager));
+    }
+
+    private static SalaryIssueDto toSalaryIssue(OrgView org, int manager, double expectedSalary) {
+        double salary = org.salary(manager);
+        double avgSubordinateSalary = org.averageSubordinateSalary(manager);
+
+        return SalaryIssueDto.builder()
+                .managerId(org.id(manager))
+                .managerName(org.name(manager))
+                .managerSalary(salary)
+                .averageSubordinateSalary(avgSubordinateSalary)
+                .expectedSalary(expectedSalary)
+                .salaryDifference(salary - expectedSalary)
+                .build();
+    }
 
-        for (Employee employee : employees.values()) {
-            int depth = employee.getReportingLineDepth();
-            if (depth > MAX_ALLOWED_REPORTING_DEPTH) {
-                issues.add(ReportingLineDto.builder()
-                        .employeeId(employee.getId())
-                        .employeeName(employee.getName())
-                        .reportingLineDepth(depth)
-                        .excess(depth - MAX_ALLOWED_REPORTING_DEPTH)
-                        .build());
+    private List<ReportingLineDto> identifyReportingLineIssues(OrgView view) {
+        if (view instanceof LiveOrg live) {
+            synchronized (live) {
+                return toReportingLineIssues(live, live.longReportingLines());
             }
         }
+        OrgGraph org = (OrgGraph) view;
+        int[] employees = metrics.time(Stage.ANALYZE,
+                () -> analysisExecutor.select(org, employee -> hasLongReportingLine(org, employee)));
+        return toReportingLineIssues(org, employees);
+    }
+
+    private static List<ReportingLineDto> toReportingLineIssues(OrgView org, RuleSet.Matches matches) {
+        List<ReportingLineDto> issues = new ArrayList<>(matches.size());
+        for (int i = 0; i < matches.size(); i++) {
+            issues.add(toReportingLineIssue(org, matches.employee(i), (int) matches.limit(i)));
+        }
+        return issues;
+    }
 
+    private static List<ReportingLineDto> toReportingLineIssues(OrgView org, int[] employees) {
+        List<ReportingLineDto> issues = new ArrayList<>(employees.length);
+        for (int employee : employees) {
+            issues.add(toReportingLineIssue(org, employee));
+        }
         return issues;
     }
 
+    private static ReportingLineDto toReportingLineIssue(OrgView org, int employee) {
+        return toReportingLineIssue(org, employee, MAX_ALLOWED_REPORTING_DEPTH);
+    }
+
+    private static ReportingLineDto toReportingLineIssue(OrgView org, int employee, int maxDepth) {
+        int depth = org.depth(employee);
+        return ReportingLineDto.builder()
+                .employeeId(org.id(employee))
+                .employeeName(org.name(employee))
+                .reportingLineDepth(depth)
+                .excess(depth - maxDepth)
+                .build();
+    }
+
+
+    private record ParsedUpload(Map<String, Employee> employees, String digest) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.company.service;
+
+import com.company.dtos.EmployeeDto;
+import com.company.dtos.EmployeePageDto;
+import com.company.dtos.SpanOfControlDto;
+import com.company.dtos.SubordinatesDto;
+import com.company.exception.EmployeeNotFoundException;
+import com.company.exception.InvalidDataException;
+import com.company.model.OrgGraph;
+import com.company.model.OrgIndex;
+import com.company.snapshot.SnapshotStore;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Structural queries over stored snapshots, answered from the snapshot's OrgIndex: who is under
+ * a manager, the reporting chain of an employee, common managers and span of control. Only the
+ * employees returned are decoded.
+ */
+@Service
+public class OrgQueryService {
+
+    public static final int MAX_PAGE_SIZE = 10_000;
+
+    private final SnapshotStore snapshotStore;
+
+    public OrgQueryService(SnapshotStore snapshotStore) {
+        this.snapshotStore = snapshotStore;
+    }
+
+    public EmployeeDto employee(String snapshotId, String employeeId) {
+        OrgIndex index = snapshotStore.index(snapshotId);
+        return toEmployee(index.org(), indexOf(index, employeeId));
+    }
+
+    /**
+     * Everyone under the manager, directly or indirectly, in depth-first order. The subtree is a
+     * contiguous index range, so a page costs only the employees on it.
+     */
+    public SubordinatesDto subordinates(String snapshotId, String managerId, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new InvalidDataException("offset and limit must not be negative");
+        }
+        OrgIndex index = snapshotStore.index(snapshotId);
+        int manager = indexOf(index, managerId);
+        int end = index.subtreeEnd(manager);
+        int first = (int) Math.min((long) manager + 1 + offset, end);
+        int last = (int) Math.min((long) first + Math.min(limit, MAX_PAGE_SIZE), end);
+
+        List<EmployeeDto> employees = new ArrayList<>(last - first);
+        for (int employee = first; employee < last; employee++) {
+            employees.add(toEmployee(index.org(), employee));
+        }
+        return SubordinatesDto.builder()
+                .managerId(managerId)
+                .total(end - manager - 1)
+                .offset(offset)
+                .employees(employees)
+                .build();
+    }
+
+    /**
+     * The employee followed by each manager above it, up to the root
+     */
+    public List<EmployeeDto> reportingChain(String snapshotId, String employeeId) {
+        OrgIndex index = snapshotStore.index(snapshotId);
+        return toEmployees(index.org(), index.reportingChain(indexOf(index, employeeId)));
+    }
+
+    /**
+     * Whether the employee is under the manager, directly or indirectly
+     */
+    public boolean reportsTo(String snapshotId, String employeeId, String managerId) {
+        OrgIndex index = snapshotStore.index(snapshotId);
+        int employee = indexOf(index, employeeId);
+        int manager = indexOf(index, managerId);
+        return employee != manager && index.isInSubtree(manager, employee);
+    }
+
+    /**
+     * Lowest manager both employees are under (or one of them, if it manages the other), empty
+     * if they are under different roots
+     */
+    public Optional<EmployeeDto> commonManager(String snapshotId, String employeeId, String otherId) {
+        OrgIndex index = snapshotStore.index(snapshotId);
+        int manager = index.lowestCommonManager(indexOf(index, employeeId), indexOf(index, otherId));
+        return manager == OrgGraph.NO_PARENT ? Optional.empty() : Optional.of(toEmployee(index.org(), manager));
+    }
+
+    /**
+     * A page of managers with at least the given number of direct reports, widest span first;
+     * the next page starts after the cursor returned with this one. The index keeps managers in
+     * that order, so a page costs a binary search and the managers on it.
+     */
+    public EmployeePageDto managersWithDirectReports(String snapshotId, int minDirectReports, int limit,
+                                                     String cursor) {
+        if (limit < 1) {
+            throw new InvalidDataException("limit must be at least 1");
+        }
+        int min = Math.max(1, minDirectReports);
+        String query = "MANAGERS/" + min;
+        IssueCursor after = IssueCursor.decode(cursor, query);
+        OrgIndex index = snapshotStore.index(snapshotId);
+        int end = index.spanRank(min, Integer.MAX_VALUE);
+        int first = after == null ? 0 : Math.min(index.spanRank((int) after.score(), after.employee()), end);
+        int last = first + Math.min(Math.min(limit, MAX_PAGE_SIZE), end - first);
+
+        int[] managers = index.managersBySpan(first, last);
+        String nextCursor = null;
+        if (last < end) {
+            int manager = managers[managers.length - 1];
+            nextCursor = new IssueCursor(query, index.org().subordinateCount(manager), manager).encode();
+        }
+        return EmployeePageDto.builder()
+                .employees(toEmployees(index.org(), managers))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    public SpanOfControlDto spanOfControl(String snapshotId) {
+        OrgIndex index = snapshotStore.index(snapshotId);
+        return SpanOfControlDto.builder()
+                .managers(index.managerCount())
+                .maxDirectReports(index.spanOfControl().isEmpty() ? 0 : index.spanOfControl().lastKey())
+                .histogram(index.spanOfControl())
+                .build();
+    }
+
+    private static int indexOf(OrgIndex index, String employeeId) {
+        int employee = index.indexOf(employeeId);
+        if (employee < 0) {
+            throw new EmployeeNotFoundException(employeeId);
+        }
+        return employee;
+    }
+
+    private static List<EmployeeDto> toEmployees(OrgGraph org, int[] employees) {
+        return Arrays.stream(employees)
+                .mapToObj(employee -> toEmployee(org, employee))
+                .collect(Collectors.toList());
+    }
+
+    private static EmployeeDto toEmployee(OrgGraph org, int employee) {
+        int manager = org.parent(employee);
+        return EmployeeDto.builder()
+                .id(org.id(employee))
+                .name(org.name(employee))
+                .salary(org.salary(employee))
+                .managerId(manager == OrgGraph.NO_PARENT ? null : org.id(manager))
+                .reportingLineDepth(org.depth(employee))
+                .directReports(org.subordinateCount(employee))
+                .build();
+    }
+}
@@ -0,0 +1,198 @@
+package com.company.service;
+
+import com.company.cache.BoundedLruCache;
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.LevelRuleDto;
+import com.company.dtos.RuleSetDto;
+import com.company.dtos.SubtreeRuleDto;
+import com.company.exception.InvalidDataException;
+import com.company.model.OrgRules;
+import com.company.model.RuleSet;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validates rule sets and compiles them into RuleSets, once per distinct rule set: compiled sets
+ * are cached by a hash of their canonical form, so a tenant or client sending the same rules
+ * again reuses the plan. Named rule sets from analyzer.rule-sets are compiled at startup, so a
+ * bad configuration fails the boot rather than the first request.
+ */
+@Component
+public class RuleSets {
+
+    static final int MAX_RULES = 1000;
+    static final int MAX_LEVEL = 1000;
+    private static final int MAX_CACHED = 64;
+
+    private final Map<String, RuleSet> named = new HashMap<>();
+    private final BoundedLruCache<String, RuleSet> compiled =
+            new BoundedLruCache<>(MAX_CACHED, Long.MAX_VALUE, rules -> 1);
+
+    public RuleSets(AnalyzerProperties properties) {
+        properties.getRuleSets().forEach((name, rules) -> {
+            try {
+                named.put(name, compile(rules));
+            } catch (InvalidDataException e) {
+                throw new IllegalStateException("Invalid rule set analyzer.rule-sets." + name + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * A rule set configured under analyzer.rule-sets
+     */
+    public RuleSet named(String name) {
+        RuleSet rules = named.get(name);
+        if (rules == null) {
+            throw new InvalidDataException("Unknown rule set: " + name);
+        }
+        return rules;
+    }
+
+    /**
+     * Validates the rules and returns the cached plan of an equal rule set, compiling one only
+     * when none is cached
+     */
+    public RuleSet compile(RuleSetDto rules) {
+        double min = orDefault(rules.getMinSalaryMultiplier(), OrgRules.MIN_SALARY_MULTIPLIER);
+        double max = orDefault(rules.getMaxSalaryMultiplier(), OrgRules.MAX_SALARY_MULTIPLIER);
+        int maxDepth = rules.getMaxReportingDepth() == null
+                ? OrgRules.MAX_ALLOWED_REPORTING_DEPTH
+                : rules.getMaxReportingDepth();
+        validateBand("default", min, max);
+        validateDepth("default", maxDepth);
+
+        List<LevelRuleDto> levels = new ArrayList<>(orEmpty(rules.getLevels()));
+        List<SubtreeRuleDto> subtrees = new ArrayList<>(orEmpty(rules.getSubtrees()));
+        if (levels.size() + subtrees.size() > MAX_RULES) {
+            throw new InvalidDataException("A rule set may have at most " + MAX_RULES + " level and subtree rules");
+        }
+        for (LevelRuleDto level : levels) {
+            if (level == null || level.getLevel() == null) {
+                throw new InvalidDataException("Level rule needs a level");
+            }
+        }
+        for (SubtreeRuleDto subtree : subtrees) {
+            if (subtree == null || subtree.getManagerId() == null || subtree.getManagerId().isEmpty()) {
+                throw new InvalidDataException("Subtree rule needs a managerId");
+            }
+        }
+        levels.sort(Comparator.comparing(LevelRuleDto::getLevel));
+        subtrees.sort(Comparator.comparing(SubtreeRuleDto::getManagerId));
+
+        String hash = sha256(canonicalForm(min, max, maxDepth, levels, subtrees));
+        RuleSet cached = compiled.get(hash);
+        if (cached != null) {
+            return cached;
+        }
+
+        RuleSet.Builder builder = RuleSet.builder(min, max, maxDepth);
+        for (LevelRuleDto level : levels) {
+            builder.level(level.getLevel(), level.getMinSalaryMultiplier(), level.getMaxSalaryMultiplier());
+        }
+        for (SubtreeRuleDto subtree : subtrees) {
+            boolean band = subtree.getMinSalaryMultiplier() != null;
+            builder.subtree(subtree.getManagerId(),
+                    band ? subtree.getMinSalaryMultiplier() : Double.NaN,
+                    band ? subtree.getMaxSalaryMultiplier() : Double.NaN,
+                    subtree.getMaxReportingDepth());
+        }
+        RuleSet ruleSet = builder.build(hash);
+        compiled.put(hash, ruleSet);
+        return ruleSet;
+    }
+
+    /**
+     * Validates the sorted rules and writes them in one canonical form, so equal rule sets in
+     * any order share a hash
+     */
+    private static String canonicalForm(double min, double max, int maxDepth, List<LevelRuleDto> levels,
+                                        List<SubtreeRuleDto> subtrees) {
+        StringBuilder canonical = new StringBuilder()
+                .append("default:").append(min).append(',').append(max).append(',').append(maxDepth);
+
+        Set<Integer> seenLevels = new HashSet<>();
+        for (LevelRuleDto level : levels) {
+            String name = "level " + level.getLevel();
+            if (level.getLevel() < 0 || level.getLevel() > MAX_LEVEL) {
+                throw new InvalidDataException("Level must be between 0 and " + MAX_LEVEL + ": " + level.getLevel());
+            }
+            if (!seenLevels.add(level.getLevel())) {
+                throw new InvalidDataException("Duplicate rule for " + name);
+            }
+            if (level.getMinSalaryMultiplier() == null || level.getMaxSalaryMultiplier() == null) {
+                throw new InvalidDataException("Rule for " + name + " needs both salary multipliers");
+            }
+            validateBand(name, level.getMinSalaryMultiplier(), level.getMaxSalaryMultiplier());
+            canonical.append(";level:").append(level.getLevel()).append(',')
+                    .append(level.getMinSalaryMultiplier()).append(',').append(level.getMaxSalaryMultiplier());
+        }
+
+        Set<String> seenManagers = new HashSet<>();
+        for (SubtreeRuleDto subtree : subtrees) {
+            String managerId = subtree.getManagerId();
+            String name = "subtree of " + managerId;
+            if (!seenManagers.add(managerId)) {
+                throw new InvalidDataException("Duplicate rule for " + name);
+            }
+            boolean band = subtree.getMinSalaryMultiplier() != null || subtree.getMaxSalaryMultiplier() != null;
+            if (band && (subtree.getMinSalaryMultiplier() == null || subtree.getMaxSalaryMultiplier() == null)) {
+                throw new InvalidDataException("Rule for " + name + " needs both salary multipliers or neither");
+            }
+            if (!band && subtree.getMaxReportingDepth() == null) {
+                throw new InvalidDataException("Rule for " + name + " sets neither a salary band nor a depth limit");
+            }
+            if (band) {
+                validateBand(name, subtree.getMinSalaryMultiplier(), subtree.getMaxSalaryMultiplier());
+            }
+            if (subtree.getMaxReportingDepth() != null) {
+                validateDepth(name, subtree.getMaxReportingDepth());
+            }
+            canonical.append(";subtree:").append(managerId.length()).append(':').append(managerId).append(',')
+                    .append(subtree.getMinSalaryMultiplier()).append(',').append(subtree.getMaxSalaryMultiplier())
+                    .append(',').append(subtree.getMaxReportingDepth());
+        }
+        return canonical.toString();
+    }
+
+    private static void validateBand(String name, double min, double max) {
+        if (!Double.isFinite(min) || !Double.isFinite(max) || min < 0 || max < min) {
+            throw new InvalidDataException("Salary band of " + name + " must have 0 <= min <= max multipliers, got "
+                    + min + " and " + max);
+        }
+    }
+
+    private static void validateDepth(String name, int maxDepth) {
+        if (maxDepth < 0) {
+            throw new InvalidDataException("Depth limit of " + name + " must not be negative: " + maxDepth);
+        }
+    }
+
+    private static double orDefault(Double value, double fallback) {
+        return value == null ? fallback : value;
+    }
+
+    private static <T> List<T> orEmpty(List<T> rules) {
+        return rules == null ? List.of() : rules;
+    }
+
+    private static String sha256(String canonical) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
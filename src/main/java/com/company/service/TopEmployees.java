@@ -0,0 +1,101 @@
+package com.company.service;
+
+import java.util.Arrays;
+
+/**
+ * The first k employees in ranking order (highest score first, ties by ascending index) out of
+ * those offered, kept in a bounded binary heap of primitives. Offering n employees takes
+ * O(n log k) time and O(k) memory, however many are offered.
+ */
+final class TopEmployees {
+
+    private final int[] employees;
+    private final double[] scores;
+    private int size;
+
+    TopEmployees(int k) {
+        this.employees = new int[k];
+        this.scores = new double[k];
+    }
+
+    /**
+     * Whether a ranks before b
+     */
+    static boolean precedes(double scoreA, int a, double scoreB, int b) {
+        int order = Double.compare(scoreB, scoreA);
+        return order < 0 || order == 0 && a < b;
+    }
+
+    void offer(int employee, double score) {
+        if (size < employees.length) {
+            employees[size] = employee;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && precedes(score, employee, scores[0], employees[0])) {
+            employees[0] = employee;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Whether k employees have been kept, so there may be more after the last
+     */
+    boolean isFull() {
+        return size == employees.length;
+    }
+
+    /**
+     * Kept employees in ranking order
+     */
+    int[] ranked() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> precedes(scores[a], employees[a], scores[b], employees[b]) ? -1 : 1);
+        int[] ranked = new int[size];
+        for (int i = 0; i < size; i++) {
+            ranked[i] = employees[order[i]];
+        }
+        return ranked;
+    }
+
+    // The root is the kept employee that ranks last, so it is the one a better candidate replaces
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!precedes(scores[parent], employees[parent], scores[i], employees[i])) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int last = i;
+            for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                if (precedes(scores[last], employees[last], scores[child], employees[child])) {
+                    last = child;
+                }
+            }
+            if (last == i) {
+                return;
+            }
+            swap(i, last);
+            i = last;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int employee = employees[a];
+        employees[a] = employees[b];
+        employees[b] = employee;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
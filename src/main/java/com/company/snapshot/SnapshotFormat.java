@@ -0,0 +1,100 @@
+package com.company.snapshot;
+
+import com.company.dtos.SnapshotDto;
+import com.company.model.OrgGraph;
+import com.company.model.OrgGraphFile;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Binary snapshot file: a header followed by the org graph.
+ * <pre>
+ * int    magic "ORGS"
+ * int    format version
+ * UTF    snapshot name
+ * long   creation time, epoch millis
+ * int    employee count
+ * long   file offset of the graph
+ * </pre>
+ * The header is padded to an 8-byte boundary and followed by the graph in the
+ * {@link OrgGraphFile} columnar layout, so it can be memory-mapped and queried without
+ * deserialising it.
+ */
+final class SnapshotFormat {
+
+    private static final int MAGIC = 0x4F52_4753; // "ORGS"
+    private static final int VERSION = 1;
+
+    private SnapshotFormat() {
+    }
+
+    static void write(Path path, SnapshotDto snapshot, OrgGraph org) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(snapshot.getName());
+        out.writeLong(snapshot.getCreatedAt().toEpochMilli());
+        out.writeInt(org.size());
+        long graphOffset = (out.size() + Long.BYTES + 7) & ~7L;
+        out.writeLong(graphOffset);
+        while (out.size() < graphOffset) {
+            out.writeByte(0);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE)) {
+            ByteBuffer headerBytes = ByteBuffer.wrap(header.toByteArray());
+            while (headerBytes.hasRemaining()) {
+                channel.write(headerBytes);
+            }
+            OrgGraphFile.write(channel, org);
+            channel.force(false);
+        }
+    }
+
+    static SnapshotDto readHeader(Path path, String id) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            return readHeader(in, id).snapshot();
+        }
+    }
+
+    /**
+     * Maps the org of a snapshot file
+     */
+    static OrgGraph readOrg(Path path) throws IOException {
+        Header header;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            header = readHeader(in, null);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return OrgGraphFile.map(channel, header.graphOffset());
+        }
+    }
+
+    private static Header readHeader(DataInputStream in, String id) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an org snapshot file");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot format version " + version);
+        }
+        SnapshotDto snapshot = SnapshotDto.builder()
+                .id(id)
+                .name(in.readUTF())
+                .createdAt(Instant.ofEpochMilli(in.readLong()))
+                .employees(in.readInt())
+                .build();
+        return new Header(snapshot, in.readLong());
+    }
+
+    private record Header(SnapshotDto snapshot, long graphOffset) {
+    }
+}
@@ -0,0 +1,106 @@
+package com.company.snapshot;
+
+import com.company.dtos.EmployeeDeltaDto;
+import com.company.exception.InvalidDataException;
+import com.company.model.DeltaType;
+import com.company.model.LiveOrg;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Append-only log of the deltas applied to a snapshot, replayed over the snapshot's org when it
+ * is next loaded, until the store compacts it into a new snapshot. One record per delta:
+ * <pre>
+ * byte   delta type ordinal
+ * UTF    employee id
+ * UTF    name, empty if not given
+ * double salary, NaN if not given
+ * UTF    manager id, empty for none
+ * </pre>
+ */
+final class SnapshotJournal {
+
+    private static final DeltaType[] TYPES = DeltaType.values();
+
+    private SnapshotJournal() {
+    }
+
+    static void append(Path path, List<EmployeeDeltaDto> deltas) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            for (EmployeeDeltaDto delta : deltas) {
+                out.writeByte(delta.getOp().ordinal());
+                out.writeUTF(delta.getId());
+                out.writeUTF(nonNull(delta.getName()));
+                out.writeDouble(delta.getSalary() == null ? Double.NaN : delta.getSalary());
+                out.writeUTF(nonNull(delta.getManagerId()));
+            }
+            out.flush();
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Applies the journal's deltas to the org and returns how many there were
+     */
+    static int replay(Path path, LiveOrg org) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int replayed = 0;
+            int op;
+            while ((op = in.read()) != -1) {
+                if (op >= TYPES.length) {
+                    throw new IOException("Unknown delta type " + op + " in " + path);
+                }
+                EmployeeDeltaDto delta = EmployeeDeltaDto.builder()
+                        .op(TYPES[op])
+                        .id(in.readUTF())
+                        .name(emptyToNull(in.readUTF()))
+                        .build();
+                double salary = in.readDouble();
+                delta.setSalary(Double.isNaN(salary) ? null : salary);
+                delta.setManagerId(in.readUTF());
+                try {
+                    apply(org, delta);
+                } catch (InvalidDataException e) {
+                    throw new IOException("Journal " + path + " does not apply to its snapshot", e);
+                }
+                replayed++;
+            }
+            return replayed;
+        }
+    }
+
+    static void apply(LiveOrg org, EmployeeDeltaDto delta) {
+        if (delta.getOp() == null) {
+            throw new InvalidDataException("Delta for employee " + delta.getId() + " has no op");
+        }
+        switch (delta.getOp()) {
+            case ADD -> org.add(delta.getId(), delta.getName(), requireSalary(delta), delta.getManagerId());
+            case REMOVE -> org.remove(delta.getId());
+            case MOVE -> org.move(delta.getId(), delta.getManagerId());
+            case SALARY -> org.changeSalary(delta.getId(), requireSalary(delta));
+        }
+    }
+
+    private static double requireSalary(EmployeeDeltaDto delta) {
+        if (delta.getSalary() == null) {
+            throw new InvalidDataException("Salary is required to " + delta.getOp() + " employee " + delta.getId());
+        }
+        return delta.getSalary();
+    }
+
+    private static String nonNull(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
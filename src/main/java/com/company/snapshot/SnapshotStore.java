@@ -0,0 +1,361 @@
+package com.company.snapshot;
+
+import com.company.cache.BoundedLruCache;
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.EmployeeDeltaDto;
+import com.company.dtos.SnapshotDto;
+import com.company.exception.SnapshotNotFoundException;
+import com.company.model.DeltaType;
+import com.company.model.Employee;
+import com.company.model.LiveOrg;
+import com.company.model.OrgGraph;
+import com.company.model.OrgIndex;
+import com.company.model.OrgView;
+import com.company.validator.CsvValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Named org snapshots persisted to local disk. Snapshots are memory-mapped lazily on first
+ * query and kept resident in an LRU bounded by the configured memory budget; mapped columns
+ * live in the page cache rather than on the heap.
+ * <p>
+ * Deltas applied to a snapshot are appended to a journal next to it and applied to an
+ * updatable copy of its org, which is then kept resident in a second LRU. An evicted copy is
+ * rebuilt by replaying the journal over the snapshot. Once the journal holds more deltas or
+ * bytes than configured, the updated org is written as the snapshot's new file and the journal
+ * is deleted, so replays stay short. The new file is written next to the snapshot and only
+ * moved over it after the journal is gone; a compaction interrupted by a restart is finished or
+ * discarded when the store starts.
+ * <p>
+ * Query indexes are built on first use, for the updated copy once deltas have been applied,
+ * and kept in a third LRU until the snapshot changes.
+ */
+@Component
+@Slf4j
+public class SnapshotStore {
+
+    private static final String EXTENSION = ".snap";
+    private static final String JOURNAL_EXTENSION = ".journal";
+    private static final String COMPACTED_EXTENSION = ".compacted";
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    private final Path directory;
+    private final CsvValidator csvValidator;
+    private final int maxJournalDeltas;
+    private final long maxJournalBytes;
+    private final Map<String, Integer> journalDeltas = new ConcurrentHashMap<>();
+    private final BoundedLruCache<String, OrgGraph> resident;
+    private final BoundedLruCache<String, LiveOrg> live;
+    private final BoundedLruCache<String, OrgIndex> indexes;
+
+    public SnapshotStore(AnalyzerProperties properties, CsvValidator csvValidator) {
+        AnalyzerProperties.Snapshots settings = properties.getSnapshots();
+        this.directory = Path.of(settings.getDirectory());
+        this.csvValidator = csvValidator;
+        this.maxJournalDeltas = settings.getMaxJournalDeltas();
+        this.maxJournalBytes = settings.getMaxJournalSize().toBytes();
+        this.resident = new BoundedLruCache<>(settings.getMaxResident(), settings.getMaxResidentMemory().toBytes(),
+                OrgGraph::estimatedBytes);
+        this.live = new BoundedLruCache<>(settings.getMaxResident(), settings.getMaxResidentMemory().toBytes(),
+                LiveOrg::estimatedBytes);
+        this.indexes = new BoundedLruCache<>(settings.getMaxResident(), settings.getMaxResidentMemory().toBytes(),
+                index -> index.estimatedBytes() + index.org().estimatedBytes());
+        recoverCompactions();
+    }
+
+    /**
+     * Persists the org under a new snapshot id. The snapshot is kept resident as a mapping of
+     * the written file, leaving the uploaded heap graph free to be collected.
+     */
+    public SnapshotDto create(String name, OrgGraph org) {
+        SnapshotDto snapshot = SnapshotDto.builder()
+                .id(UUID.randomUUID().toString())
+                .name(name == null ? "" : name)
+                .employees(org.size())
+                .createdAt(Instant.now())
+                .build();
+
+        OrgGraph mapped;
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, snapshot.getId(), ".tmp");
+            try {
+                SnapshotFormat.write(temp, snapshot, org);
+                Files.move(temp, path(snapshot.getId()), StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            mapped = SnapshotFormat.readOrg(path(snapshot.getId()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write snapshot " + snapshot.getId(), e);
+        }
+
+        resident.put(snapshot.getId(), mapped);
+        log.info("Created snapshot {} ({}) with {} employees", snapshot.getId(), snapshot.getName(), org.size());
+        return snapshot;
+    }
+
+    public SnapshotDto describe(String id) {
+        Path path = existingPath(id);
+        SnapshotDto snapshot;
+        try {
+            snapshot = SnapshotFormat.readHeader(path, id);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read snapshot " + id, e);
+        }
+        if (hasDeltas(id)) {
+            LiveOrg org = live(id);
+            synchronized (org) {
+                snapshot.setEmployees(org.employees());
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * The snapshot's org for queries: its updated copy once deltas have been applied, otherwise
+     * the org as stored
+     */
+    public OrgView query(String id) {
+        existingPath(id);
+        return hasDeltas(id) ? live(id) : load(id);
+    }
+
+    /**
+     * Query indexes over the snapshot's current org, built on first use
+     */
+    public OrgIndex index(String id) {
+        OrgIndex index = indexes.get(id);
+        return index != null ? index : buildIndex(id);
+    }
+
+    /**
+     * Builds while holding the store, so deltas cannot be applied underneath and leave a stale
+     * index cached
+     */
+    private synchronized OrgIndex buildIndex(String id) {
+        OrgIndex index = indexes.get(id);
+        if (index != null) {
+            return index;
+        }
+
+        existingPath(id);
+        if (hasDeltas(id)) {
+            LiveOrg org = live(id);
+            synchronized (org) {
+                index = OrgIndex.of(org.toGraph());
+            }
+        } else {
+            index = OrgIndex.of(load(id));
+        }
+        indexes.put(id, index);
+        return index;
+    }
+
+    /**
+     * Applies the deltas in order and records them in the snapshot's journal. Each delta only
+     * re-checks the employees it affects. Hires are validated like CSV rows, including the
+     * employee limit, so a snapshot never holds an employee an upload would reject. If a delta is
+     * rejected, the ones before it stay applied.
+     */
+    public synchronized SnapshotDto applyDeltas(String id, List<EmployeeDeltaDto> deltas) {
+        LiveOrg org = live(id);
+        List<EmployeeDeltaDto> applied = new ArrayList<>(deltas.size());
+        indexes.remove(id);
+        try {
+            synchronized (org) {
+                for (EmployeeDeltaDto delta : deltas) {
+                    // a duplicate ID is left to LiveOrg.add to report rather than counted against the limit
+                    if (delta.getOp() == DeltaType.ADD && !org.contains(delta.getId())) {
+                        csvValidator.validateNewEmployee(toEmployee(delta), org.employees());
+                    }
+                    SnapshotJournal.apply(org, delta);
+                    applied.add(delta);
+                }
+            }
+        } finally {
+            if (!applied.isEmpty()) {
+                try {
+                    SnapshotJournal.append(journalPath(id), applied);
+                } catch (IOException e) {
+                    // the resident copy is ahead of the journal now, so drop it
+                    live.remove(id);
+                    journalDeltas.remove(id);
+                    throw new UncheckedIOException("Could not write journal of snapshot " + id, e);
+                }
+                journalDeltas.merge(id, applied.size(), Integer::sum);
+            }
+        }
+        log.debug("Applied {} deltas to snapshot {}", applied.size(), id);
+        compactIfLarge(id, org);
+        return describe(id);
+    }
+
+    /**
+     * Writes the updated org as the snapshot's file and deletes the journal once the journal is
+     * over either limit. Until the journal is deleted the deltas are safe in it, so a failure
+     * writing the new file is only logged and the compaction retried on the next deltas.
+     */
+    private void compactIfLarge(String id, LiveOrg org) {
+        Path journal = journalPath(id);
+        Path compacted = compactedPath(id);
+        try {
+            if (journalDeltas.getOrDefault(id, 0) <= maxJournalDeltas && Files.size(journal) <= maxJournalBytes) {
+                return;
+            }
+            SnapshotDto snapshot = SnapshotFormat.readHeader(path(id), id);
+            synchronized (org) {
+                SnapshotFormat.write(compacted, snapshot, org.toGraph());
+            }
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(compacted);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            log.warn("Could not compact journal of snapshot {}", id, e);
+            return;
+        }
+        try {
+            Files.delete(journal);
+            Files.move(compacted, path(id), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // the compacted file is all that holds the deltas now; the next start moves it in place
+            throw new UncheckedIOException("Could not replace snapshot " + id + " with its compacted file", e);
+        }
+        journalDeltas.remove(id);
+        // served from a mapping of the new file from now on, like a snapshot without deltas
+        live.remove(id);
+        resident.remove(id);
+        log.info("Compacted journal of snapshot {}", id);
+    }
+
+    /**
+     * Finishes compactions a restart interrupted: a compacted file next to a journal may be
+     * incomplete and is dropped, one whose journal is gone already holds every delta.
+     */
+    private void recoverCompactions() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> compacted = Files.newDirectoryStream(directory, "*" + COMPACTED_EXTENSION)) {
+            for (Path path : compacted) {
+                String file = path.getFileName().toString();
+                String id = file.substring(0, file.length() - COMPACTED_EXTENSION.length());
+                if (Files.exists(journalPath(id))) {
+                    Files.delete(path);
+                } else {
+                    Files.move(path, path(id), StandardCopyOption.ATOMIC_MOVE);
+                    log.info("Finished compacting journal of snapshot {}", id);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover compacted snapshots in " + directory, e);
+        }
+    }
+
+    /**
+     * The snapshot's org, mapped from disk if it is not resident
+     */
+    public OrgGraph load(String id) {
+        OrgGraph org = resident.get(id);
+        if (org != null) {
+            return org;
+        }
+
+        Path path = existingPath(id);
+        try {
+            org = SnapshotFormat.readOrg(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read snapshot " + id, e);
+        }
+        resident.put(id, org);
+        return org;
+    }
+
+    public synchronized void delete(String id) {
+        Path path = existingPath(id);
+        try {
+            Files.delete(path);
+            Files.deleteIfExists(journalPath(id));
+            journalDeltas.remove(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete snapshot " + id, e);
+        }
+        resident.remove(id);
+        live.remove(id);
+        indexes.remove(id);
+    }
+
+    private boolean hasDeltas(String id) {
+        return live.get(id) != null || Files.exists(journalPath(id));
+    }
+
+    /**
+     * The updatable copy of the snapshot's org, built from the snapshot and its journal if it
+     * is not resident
+     */
+    private synchronized LiveOrg live(String id) {
+        LiveOrg org = live.get(id);
+        if (org != null) {
+            return org;
+        }
+
+        org = LiveOrg.of(load(id));
+        Path journal = journalPath(id);
+        if (Files.exists(journal)) {
+            try {
+                journalDeltas.put(id, SnapshotJournal.replay(journal, org));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not replay journal of snapshot " + id, e);
+            }
+        }
+        live.put(id, org);
+        return org;
+    }
+
+    private Path journalPath(String id) {
+        return directory.resolve(id + JOURNAL_EXTENSION);
+    }
+
+    private Path compactedPath(String id) {
+        return directory.resolve(id + COMPACTED_EXTENSION);
+    }
+
+    private Path existingPath(String id) {
+        if (id == null || !ID_PATTERN.matcher(id).matches() || !Files.exists(path(id))) {
+            throw new SnapshotNotFoundException(id);
+        }
+        return path(id);
+    }
+
+    private Path path(String id) {
+        return directory.resolve(id + EXTENSION);
+    }
+
+    private static Employee toEmployee(EmployeeDeltaDto delta) {
+        Employee employee = new Employee();
+        employee.setId(delta.getId());
+        employee.setName(delta.getName());
+        if (delta.getSalary() != null) {
+            employee.setSalary(delta.getSalary());
+        }
+        employee.setManagerId(delta.getManagerId());
+        return employee;
+    }
+}
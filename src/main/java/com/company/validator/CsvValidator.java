@@ -1,14 +1,22 @@
 package com.company.validator;
 
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.ValidationReportDto;
 import com.company.exception.InvalidDataException;
 import com.company.model.Employee;
+import com.company.model.OrgGraph;
+import com.company.model.ValidationErrorKind;
+import com.company.parser.Compression;
+import com.company.parser.EmployeeCsvParser;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
 
 /**
  * Validator for CSV data and organizational structure
@@ -17,8 +25,18 @@ import java.util.Set;
 @Slf4j
 public class CsvValidator {
 
+    private static final int MAX_REPORTED_CYCLE_LENGTH = 10;
+
+    private final AnalyzerProperties properties;
+
+    public CsvValidator(AnalyzerProperties properties) {
+        this.properties = properties;
+    }
+
     /**
-     * Validates uploaded CSV file format
+     * Validates uploaded CSV file format. Files may be gzip (.csv.gz) or zstd (.csv.zst)
+     * compressed, in which case the size limit applies here to the compressed upload and to the
+     * decompressed content as it is read, see limitSize.
      */
     public void validateFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
@@ -26,85 +44,258 @@ public class CsvValidator {
         }
 
         String filename = file.getOriginalFilename();
-        if (filename == null || !filename.toLowerCase().endsWith(".csv")) {
-            throw new InvalidDataException("Only CSV files are supported. Received: " +
+        if (Compression.forFilename(filename) == null) {
+            throw new InvalidDataException("Only CSV files (.csv, .csv.gz, .csv.zst) are supported. Received: " +
                     (filename != null ? filename : "unknown file type"));
         }
 
-        if (file.getSize() > 10 * 1024 * 1024) { // 10MB
-            throw new InvalidDataException("File size exceeds the maximum allowed limit of 10MB");
+        DataSize maxFileSize = properties.getEffectiveLimits().getMaxFileSize();
+        if (file.getSize() > maxFileSize.toBytes()) {
+            throw new InvalidDataException("File size exceeds the maximum allowed limit of " +
+                    maxFileSize.toMegabytes() + "MB");
         }
     }
 
     /**
-     * Validates employee data after parsing
+     * Limits an upload read as a stream, whose size is not known up front, such as a raw body or
+     * decompressed content, to the maximum file size. Reading past the limit fails with
+     * InvalidDataException, so a small compressed upload cannot expand without bound.
+     */
+    public InputStream limitSize(InputStream in) {
+        return new SizeLimitedInputStream(in, properties.getEffectiveLimits().getMaxFileSize());
+    }
+
+    /**
+     * Validates a fully built employee map in one pass: the employee limit, each employee's
+     * fields and every manager reference
      */
     public void validateEmployeeData(Map<String, Employee> employees) {
-        if (employees == null) {
-            throw new InvalidDataException("Failed to parse employee data");
+        validateNotEmpty(employees);
+
+        int maxEmployees = properties.getEffectiveLimits().getMaxEmployees();
+        if (employees.size() > maxEmployees) {
+            throw new InvalidDataException("CSV file contains " + employees.size() +
+                    " employees, which exceeds the maximum limit of " + maxEmployees);
         }
 
-        if (employees.isEmpty()) {
-            throw new InvalidDataException("No employee data found in the CSV file");
+        ValidationReport report = ValidationReport.failFast();
+        for (Employee employee : employees.values()) {
+            checkEmployee(employee, 0, report);
+            checkManagerReference(employees, employee, report);
         }
+    }
 
-        if (employees.size() > 1000) {
-            throw new InvalidDataException("CSV file contains " + employees.size() +
-                    " employees, which exceeds the maximum limit of 1000");
+    /**
+     * Validates one row while the file is parsed, before it is added to the employees already
+     * read. Rejects the file as soon as it goes over the employee limit; a row repeating an ID
+     * already read adds no employee, so it is left to the parser to report as a duplicate.
+     */
+    public void validateEmployee(Employee employee, Map<String, Employee> employeesRead) {
+        int maxEmployees = properties.getEffectiveLimits().getMaxEmployees();
+        if (employeesRead.size() >= maxEmployees && !employeesRead.containsKey(employee.getId())) {
+            throw new InvalidDataException("CSV file contains more than " + maxEmployees +
+                    " employees, which exceeds the maximum limit of " + maxEmployees);
         }
 
+        checkEmployee(employee, 0, ValidationReport.failFast());
+    }
 
-        if (employees.size() < countUniqueIds(employees)) {
-            throw new InvalidDataException("CSV file contains duplicate employee IDs");
+    /**
+     * Validates an employee added to an org already loaded, such as a hire applied to a
+     * snapshot: the same checks as a CSV row, with the employee limit applied to the org it joins
+     */
+    public void validateNewEmployee(Employee employee, int employees) {
+        checkEmployee(employee, 0, ValidationReport.failFast());
+
+        int maxEmployees = properties.getEffectiveLimits().getMaxEmployees();
+        if (employees >= maxEmployees) {
+            throw new InvalidDataException("Org already has " + employees +
+                    " employees, which is the maximum limit of " + maxEmployees);
         }
+    }
 
+    /**
+     * Resolves manager references once every row has been read and checked by
+     * validateEmployee(Employee, Map)
+     */
+    public void validateManagerReferences(Map<String, Employee> employees) {
+        validateNotEmpty(employees);
 
+        ValidationReport report = ValidationReport.failFast();
         for (Employee employee : employees.values()) {
-            validateEmployee(employee);
+            checkManagerReference(employees, employee, report);
+        }
+    }
+
+    /**
+     * Reads the whole file once and reports every problem in it instead of stopping at the
+     * first. Rows are checked as they are parsed; references to managers not seen yet are
+     * remembered with their rows and resolved at the end, and manager cycles are found by
+     * linking the hierarchy. Only the first analyzer.validation.max-reported-errors problems
+     * are kept. Rows past the employee limit are counted and checked on their own, but not kept,
+     * so memory stays bounded by the limit.
+     */
+    public ValidationReportDto validateAll(InputStream in) throws IOException {
+        ValidationReport report = ValidationReport.collecting(properties.getValidation().getMaxReportedErrors());
+        int maxEmployees = properties.getEffectiveLimits().getMaxEmployees();
+        Map<String, Employee> employees = new HashMap<>();
+        Map<String, List<ManagerReference>> awaitingManager = new HashMap<>();
+
+        EmployeeCsvParser parser = new EmployeeCsvParser();
+        boolean[] overLimit = {false};
+        parser.parse(in, employees, (employee, row) -> {
+            if (!overLimit[0] && employees.size() == maxEmployees && !employees.containsKey(employee.getId())) {
+                report.reject(row, null, ValidationErrorKind.TOO_MANY_EMPLOYEES, employee.getId(),
+                        "CSV file contains more than " + maxEmployees +
+                                " employees, which exceeds the maximum limit of " + maxEmployees);
+                // keep counting and checking rows, but hold no more than the limit in memory
+                overLimit[0] = true;
+                parser.stopStoring();
+            }
+            checkEmployee(employee, row, report);
+            awaitingManager.remove(employee.getId());
+            String managerId = employee.getManagerId();
+            if (!overLimit[0] && managerId != null && !managerId.isEmpty() && !employees.containsKey(managerId)
+                    && !managerId.equals(employee.getId())) {
+                awaitingManager.computeIfAbsent(managerId, id -> new ArrayList<>())
+                        .add(new ManagerReference(row, employee));
+            }
+        }, report);
+
+        if (employees.isEmpty() && report.errorCount() == 0) {
+            report.reject(0, null, ValidationErrorKind.NO_EMPLOYEES, null, "No employee data found in the CSV file");
+        }
+        awaitingManager.values().stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingLong(ManagerReference::row))
+                .forEach(reference -> {
+                    Employee employee = reference.employee();
+                    report.reject(reference.row(), "manager_id", ValidationErrorKind.UNKNOWN_MANAGER, employee.getId(),
+                            "Employee " + employee.getName() + " (ID: " + employee.getId() +
+                                    ") references a non-existent manager with ID: " + employee.getManagerId());
+                });
+
+        OrgGraph org = OrgGraph.of(employees);
+        for (int[] cycle : org.cycles()) {
+            if (cycle.length > 1) {
+                report.reject(0, "manager_id", ValidationErrorKind.MANAGER_CYCLE, org.id(cycle[0]),
+                        "Manager cycle: " + cyclePath(org, cycle));
+            }
         }
 
+        return report.toDto(parser.rows());
+    }
+
+    /**
+     * Validates the linked hierarchy: every employee must have a reporting line to an employee
+     * without a manager, which fails for manager cycles such as 1 -> 2 -> 3 -> 1
+     */
+    public void validateHierarchy(OrgGraph org) {
+        if (org.cycles().isEmpty()) {
+            return;
+        }
 
-        validateManagerReferences(employees);
+        throw new InvalidDataException("CSV file contains " + org.cycles().size() +
+                " manager cycle(s), leaving " + org.unreachable().length +
+                " employees without a reporting line to the CEO. First cycle: " + cyclePath(org, org.cycles().get(0)));
     }
 
+    private static String cyclePath(OrgGraph org, int[] cycle) {
+        StringJoiner path = new StringJoiner(" -> ");
+        for (int i = 0; i < Math.min(cycle.length, MAX_REPORTED_CYCLE_LENGTH); i++) {
+            path.add(org.id(cycle[i]));
+        }
+        path.add(cycle.length > MAX_REPORTED_CYCLE_LENGTH ? "..." : org.id(cycle[0]));
+        return path.toString();
+    }
 
+    private static final class SizeLimitedInputStream extends FilterInputStream {
 
+        private final DataSize limit;
+        private long remaining;
 
-    private int countUniqueIds(Map<String, Employee> employees) {
-        Set<String> uniqueIds = new HashSet<>();
-        for (Employee employee : employees.values()) {
-            uniqueIds.add(employee.getId());
+        SizeLimitedInputStream(InputStream in, DataSize limit) {
+            super(in);
+            this.limit = limit;
+            this.remaining = limit.toBytes();
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int bytes) {
+            remaining -= bytes;
+            if (remaining < 0) {
+                throw new InvalidDataException("File size exceeds the maximum allowed limit of " +
+                        limit.toMegabytes() + "MB");
+            }
         }
-        return uniqueIds.size();
     }
 
-    private void validateEmployee(Employee employee) {
+    private record ManagerReference(long row, Employee employee) {
+    }
+
+    private static void validateNotEmpty(Map<String, Employee> employees) {
+        if (employees == null) {
+            throw new InvalidDataException("Failed to parse employee data");
+        }
+
+        if (employees.isEmpty()) {
+            throw new InvalidDataException("No employee data found in the CSV file");
+        }
+    }
+
+    private static void checkEmployee(Employee employee, long row, ValidationReport report) {
         if (employee.getId() == null || employee.getId().isEmpty()) {
-            throw new InvalidDataException("Employee ID is missing");
+            report.reject(row, "id", ValidationErrorKind.MISSING_ID, null, "Employee ID is missing");
+            return;
         }
 
         if (employee.getName() == null || employee.getName().isEmpty()) {
-            throw new InvalidDataException("Employee name is missing for ID: " + employee.getId());
+            report.reject(row, "name", ValidationErrorKind.MISSING_NAME, employee.getId(),
+                    "Employee name is missing for ID: " + employee.getId());
         }
 
-        if (employee.getSalary() < 0) {
-            throw new InvalidDataException("Invalid negative salary value for employee " +
-                    employee.getName() + " (ID: " + employee.getId() + ")");
+        double salary = employee.getSalary();
+        if (salary < 0) {
+            report.reject(row, "salary", ValidationErrorKind.NEGATIVE_SALARY, employee.getId(),
+                    "Invalid negative salary value for employee " + employee.getName() +
+                            " (ID: " + employee.getId() + ")");
+        } else if (!(salary >= 0) || Double.isInfinite(salary)) {
+            // NaN and Infinity parse as numbers, but are rejected like when a delta sets them
+            report.reject(row, "salary", ValidationErrorKind.INVALID_SALARY, employee.getId(),
+                    "Invalid salary value " + salary + " for employee " + employee.getName() +
+                            " (ID: " + employee.getId() + ")");
         }
-    }
 
-    private void validateManagerReferences(Map<String, Employee> employees) {
-        for (Employee employee : employees.values()) {
-            String managerId = employee.getManagerId();
-            if (managerId != null && !managerId.isEmpty() && !employees.containsKey(managerId)) {
-                throw new InvalidDataException("Employee " + employee.getName() + " (ID: " + employee.getId() +
-                        ") references a non-existent manager with ID: " + managerId);
-            }
+        if (employee.getId().equals(employee.getManagerId())) {
+            report.reject(row, "manager_id", ValidationErrorKind.SELF_MANAGER, employee.getId(),
+                    "Employee " + employee.getName() + " (ID: " + employee.getId() + ") cannot be their own manager");
+        }
+    }
 
-            if (managerId != null && managerId.equals(employee.getId())) {
-                throw new InvalidDataException("Employee " + employee.getName() + " (ID: " + employee.getId() +
-                        ") cannot be their own manager");
-            }
+    private static void checkManagerReference(Map<String, Employee> employees, Employee employee,
+                                              ValidationReport report) {
+        String managerId = employee.getManagerId();
+        if (managerId != null && !managerId.isEmpty() && !employees.containsKey(managerId)) {
+            report.reject(0, "manager_id", ValidationErrorKind.UNKNOWN_MANAGER, employee.getId(),
+                    "Employee " + employee.getName() + " (ID: " + employee.getId() +
+                            ") references a non-existent manager with ID: " + managerId);
         }
     }
 
@@ -0,0 +1,71 @@
+package com.company.validator;
+
+import com.company.dtos.ValidationErrorDto;
+import com.company.dtos.ValidationReportDto;
+import com.company.exception.InvalidDataException;
+import com.company.model.ValidationErrorKind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Receives the problems found while parsing and validating an upload. The fail-fast report
+ * throws InvalidDataException on the first problem; a collecting report records the first
+ * maxErrors problems and only counts the rest, so its memory stays bounded however bad the
+ * file is.
+ */
+public final class ValidationReport {
+
+    private static final ValidationReport FAIL_FAST = new ValidationReport(0, true);
+
+    private final int maxErrors;
+    private final boolean failFast;
+    private final List<ValidationErrorDto> errors = new ArrayList<>();
+    private long errorCount;
+
+    private ValidationReport(int maxErrors, boolean failFast) {
+        this.maxErrors = maxErrors;
+        this.failFast = failFast;
+    }
+
+    public static ValidationReport failFast() {
+        return FAIL_FAST;
+    }
+
+    public static ValidationReport collecting(int maxErrors) {
+        return new ValidationReport(Math.max(0, maxErrors), false);
+    }
+
+    /**
+     * Reports a problem, row being the CSV row or 0 when it does not belong to a single row
+     */
+    public void reject(long row, String column, ValidationErrorKind kind, String employeeId, String message) {
+        if (failFast) {
+            throw new InvalidDataException(message);
+        }
+        errorCount++;
+        if (errors.size() < maxErrors) {
+            errors.add(ValidationErrorDto.builder()
+                    .row(row > 0 ? row : null)
+                    .column(column)
+                    .kind(kind)
+                    .employeeId(employeeId)
+                    .message(message)
+                    .build());
+        }
+    }
+
+    public long errorCount() {
+        return errorCount;
+    }
+
+    public ValidationReportDto toDto(long rows) {
+        return ValidationReportDto.builder()
+                .valid(errorCount == 0)
+                .rows(rows)
+                .errorCount(errorCount)
+                .errors(List.copyOf(errors))
+                .truncated(errorCount > errors.size())
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.company;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalyzeMainTest {
+
+    private static final String CSV = "id,name,salary,manager_id\n" +
+            "1,CEO,100000,\n" +
+            "2,\"Lead, Sales\",95000,1\n" +
+            "3,Manager,60000,2\n" +
+            "4,Manager,45000,3\n" +
+            "5,Manager,37000,4\n" +
+            "6,Rep,30000,5\n";
+
+    @TempDir
+    Path directory;
+
+    private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+
+    private int run(String... args) {
+        return AnalyzeMain.run(args, new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(stdout, true, StandardCharsets.UTF_8));
+    }
+
+    private String output() {
+        return stdout.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void run_withCsvFormat_shouldWriteOneRowPerIssue() {
+        assertEquals(0, run("-", "--format=csv"));
+
+        String[] rows = output().split("\n");
+        assertEquals("check,id,name,salary,average_subordinate_salary,expected_salary,salary_difference," +
+                "reporting_line_depth,excess", rows[0]);
+        assertEquals(4, rows.length);
+        assertEquals("UNDERPAID,1,CEO,100000.0,95000.0,114000.0,-14000.0,,", rows[1]);
+        assertEquals("OVERPAID,2,\"Lead, Sales\",95000.0,60000.0,90000.0,5000.0,,", rows[2]);
+        assertEquals("LONG_REPORTING_LINES,6,Rep,,,,,5,1", rows[3]);
+    }
+
+    @Test
+    void run_withJsonFormatAndChecks_shouldWriteSelectedAnalyses() throws IOException {
+        Path file = directory.resolve("employees.csv");
+        Files.writeString(file, CSV);
+
+        assertEquals(0, run(file.toString(), "--checks=overpaid"));
+
+        assertTrue(output().startsWith("{\"overpaidManagers\":[{\"managerId\":\"2\""));
+        assertFalse(output().contains("underpaidManagers"));
+    }
+
+    @Test
+    void run_shouldSignalIssuesAndErrorsInExitCode() {
+        assertEquals(2, run("-", "--fail-on-issues", "--checks=OVERPAID"));
+        assertEquals(0, run("-", "--checks=OVERPAID", "--analyzer.limits.max-employees=6"));
+        assertEquals(1, run("-", "--analyzer.limits.max-employees=5"));
+        assertEquals(1, run(directory.resolve("employees.xlsx").toString()));
+        assertEquals(1, run("-", "--checks=SPAN"));
+        assertEquals(1, run());
+    }
+}
@@ -0,0 +1,161 @@
+package com.company.batch;
+
+import com.company.cache.OrgHierarchyCache;
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.BatchResultDto;
+import com.company.metrics.PipelineMetrics;
+import com.company.model.AnalysisType;
+import com.company.service.AnalysisAdmission;
+import com.company.service.AnalysisExecutor;
+import com.company.service.OrgAnalyzerService;
+import com.company.validator.CsvValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchAnalyzerTest {
+
+    private static final String SMALL_ORG = "id,name,salary,manager_id\n" +
+            "1,CEO,100000,\n" +
+            "2,Lead,90000,1\n";
+
+    @TempDir
+    Path directory;
+
+    private BatchAnalyzer batchAnalyzer;
+
+    @BeforeEach
+    void setUp() {
+        AnalyzerProperties properties = new AnalyzerProperties();
+        properties.getBatch().setWorkers(3);
+        properties.getBatch().setReadAhead(2);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OrgAnalyzerService service = new OrgAnalyzerService();
+        service.csvValidator = new CsvValidator(properties);
+        service.hierarchyCache = new OrgHierarchyCache(properties);
+        service.analysisExecutor = new AnalysisExecutor(properties);
+        service.metrics = new PipelineMetrics(registry);
+        service.admission = new AnalysisAdmission(properties, registry);
+        batchAnalyzer = new BatchAnalyzer(properties, service, service.csvValidator);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchAnalyzer.shutdown();
+    }
+
+    private static String org(int subsidiary) {
+        StringBuilder csv = new StringBuilder("id,name,salary,manager_id\n1,CEO,100000,\n");
+        // every subsidiary has a different number of underpaid managers
+        for (int i = 0; i < subsidiary; i++) {
+            csv.append(10 + i).append(",Manager,50000,1\n");
+            csv.append(100 + i).append(",Employee,60000,").append(10 + i).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Map<String, BatchResultDto> byFile(List<BatchResultDto> results) {
+        Map<String, BatchResultDto> byFile = new TreeMap<>();
+        for (BatchResultDto result : results) {
+            assertNull(byFile.put(result.getFile(), result), "one result per file");
+        }
+        return byFile;
+    }
+
+    @Test
+    void analyzeZip_shouldAnalyzeEveryCsvEntryAndReportFailedOnes() throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            for (int subsidiary = 1; subsidiary <= 20; subsidiary++) {
+                zip.putNextEntry(new ZipEntry("subsidiaries/org-" + subsidiary + ".csv"));
+                zip.write(org(subsidiary).getBytes(StandardCharsets.UTF_8));
+            }
+            zip.putNextEntry(new ZipEntry("compressed.csv.gz"));
+            zip.write(gzip(SMALL_ORG));
+            zip.putNextEntry(new ZipEntry("broken.csv"));
+            zip.write("id,name,salary,manager_id\n1,CEO,100000,\n2,Lead,90000,7\n".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("README.txt"));
+            zip.write("not an org".getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<BatchResultDto> results = new CopyOnWriteArrayList<>();
+        BatchSummary summary = batchAnalyzer.analyzeZip(new ByteArrayInputStream(archive.toByteArray()),
+                EnumSet.of(AnalysisType.UNDERPAID), results::add);
+
+        assertEquals(new BatchSummary(22, 1), summary);
+        Map<String, BatchResultDto> byFile = byFile(results);
+        assertEquals(22, byFile.size());
+        for (int subsidiary = 1; subsidiary <= 20; subsidiary++) {
+            BatchResultDto result = byFile.get("subsidiaries/org-" + subsidiary + ".csv");
+            assertNull(result.getError());
+            assertEquals(subsidiary, result.getAnalysis().getUnderpaidManagers().size());
+            assertNull(result.getAnalysis().getOverpaidManagers());
+        }
+        assertEquals(1, byFile.get("compressed.csv.gz").getAnalysis().getUnderpaidManagers().size());
+        assertNull(byFile.get("broken.csv").getAnalysis());
+        assertTrue(byFile.get("broken.csv").getError().contains("7"));
+    }
+
+    @Test
+    void analyzeDirectory_shouldAnalyzeCsvFilesInTheDirectory() throws IOException {
+        Files.writeString(directory.resolve("a.csv"), org(2));
+        Files.write(directory.resolve("b.csv.gz"), gzip(SMALL_ORG));
+        Files.writeString(directory.resolve("notes.txt"), "ignored");
+        Files.createDirectory(directory.resolve("nested.csv"));
+
+        List<BatchResultDto> results = new CopyOnWriteArrayList<>();
+        BatchSummary summary = batchAnalyzer.analyzeDirectory(directory, Collections.emptySet(), results::add);
+
+        assertEquals(new BatchSummary(2, 0), summary);
+        Map<String, BatchResultDto> byFile = byFile(results);
+        assertEquals(2, byFile.get("a.csv").getAnalysis().getUnderpaidManagers().size());
+        assertNotNull(byFile.get("b.csv.gz").getAnalysis().getLongReportingLines());
+    }
+
+    @Test
+    void analyzeDirectory_whenSinkFails_shouldStopAndRethrow() throws IOException {
+        for (int subsidiary = 1; subsidiary <= 10; subsidiary++) {
+            Files.writeString(directory.resolve("org-" + subsidiary + ".csv"), org(subsidiary));
+        }
+
+        IllegalStateException failure = new IllegalStateException("client went away");
+        List<BatchResultDto> results = new CopyOnWriteArrayList<>();
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> batchAnalyzer.analyzeDirectory(directory, Collections.emptySet(), result -> {
+                    results.add(result);
+                    throw failure;
+                }));
+
+        assertSame(failure, thrown);
+        assertEquals(1, results.size());
+    }
+}
@@ -0,0 +1,47 @@
+package com.company.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedLruCacheTest {
+
+    @Test
+    void put_overEntryLimit_shouldEvictLeastRecentlyUsed() {
+        BoundedLruCache<String, String> cache = new BoundedLruCache<>(2, Long.MAX_VALUE, String::length);
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void put_overWeightLimit_shouldEvictUntilWithinBudget() {
+        BoundedLruCache<String, String> cache = new BoundedLruCache<>(10, 10, String::length);
+
+        cache.put("a", "12345");
+        cache.put("b", "12345");
+        cache.put("c", "123");
+
+        assertNull(cache.get("a"));
+        assertEquals(8, cache.getTotalWeight());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void put_entryHeavierThanBudget_shouldNotBeStored() {
+        BoundedLruCache<String, String> cache = new BoundedLruCache<>(10, 4, String::length);
+
+        cache.put("a", "12345");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getMisses());
+    }
+}
@@ -1,24 +1,47 @@
 package com.company.controller;
 
+import com.company.dtos.OrgAnalysisDto;
 import com.company.dtos.ReportingLineDto;
 import com.company.dtos.SalaryIssueDto;
+import com.company.dtos.SalaryIssuePageDto;
+import com.company.dtos.ValidationErrorDto;
+import com.company.dtos.ValidationReportDto;
+import com.company.exception.InvalidDataException;
+import com.company.model.AnalysisType;
+import com.company.model.RuleSet;
+import com.company.model.SalaryIssueSort;
+import com.company.model.ValidationErrorKind;
+import com.company.parser.Compression;
 import com.company.service.OrgAnalyzerService;
+import com.company.service.RuleSets;
+import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(AnalyzerController.class)
@@ -30,6 +53,9 @@ class AnalyzerControllerTest {
     @MockBean
     private OrgAnalyzerService analyzerService;
 
+    @MockBean
+    private RuleSets ruleSets;
+
     private MockMultipartFile csvFile;
 
     @BeforeEach
@@ -42,6 +68,30 @@ class AnalyzerControllerTest {
         );
     }
 
+    @Test
+    void validate_shouldReturnReportWithEveryProblem() throws Exception {
+        ValidationReportDto report = ValidationReportDto.builder()
+                .valid(false)
+                .rows(2)
+                .errorCount(1)
+                .errors(List.of(ValidationErrorDto.builder()
+                        .row(3L)
+                        .column("salary")
+                        .kind(ValidationErrorKind.NEGATIVE_SALARY)
+                        .employeeId("2")
+                        .message("Invalid negative salary value for employee Manager (ID: 2)")
+                        .build()))
+                .build();
+        when(analyzerService.validate(any())).thenReturn(report);
+
+        mockMvc.perform(multipart("/api/v1/validation")
+                        .file(csvFile))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(false))
+                .andExpect(jsonPath("$.errors[0].row").value(3))
+                .andExpect(jsonPath("$.errors[0].kind").value("NEGATIVE_SALARY"));
+    }
+
     @Test
     void getUnderpaidManagers_shouldReturnOkResponse() throws Exception {
 
@@ -183,4 +233,231 @@ class AnalyzerControllerTest {
         verify(analyzerService, times(1)).getLongReportingLines(any());
     }
 
-}
\ No newline at end of file
+    @Test
+    void analyze_shouldReturnSelectedAnalyses() throws Exception {
+        SalaryIssueDto underpaidManager = new SalaryIssueDto();
+        underpaidManager.setManagerId("3");
+        underpaidManager.setSalaryDifference(-13200);
+
+        OrgAnalysisDto analysis = OrgAnalysisDto.builder()
+                .underpaidManagers(Collections.singletonList(underpaidManager))
+                .longReportingLines(Collections.emptyList())
+                .build();
+
+        when(analyzerService.analyze(any(), eq(EnumSet.of(AnalysisType.UNDERPAID, AnalysisType.LONG_REPORTING_LINES))))
+                .thenReturn(analysis);
+
+        mockMvc.perform(multipart("/api/v1/analysis")
+                        .file(csvFile)
+                        .param("checks", "UNDERPAID,LONG_REPORTING_LINES"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.underpaidManagers[0].managerId").value("3"))
+                .andExpect(jsonPath("$.longReportingLines").isEmpty())
+                .andExpect(jsonPath("$.overpaidManagers").doesNotExist());
+
+        verify(analyzerService, times(1)).analyze(any(), any());
+    }
+
+    @Test
+    void getOverpaidManagers_withLimitAndSort_shouldReturnPageWithNextCursor() throws Exception {
+        SalaryIssueDto overpaidManager = new SalaryIssueDto();
+        overpaidManager.setManagerId("2");
+        when(analyzerService.getSalaryIssuePage(any(), eq(AnalysisType.OVERPAID), eq(SalaryIssueSort.RELATIVE),
+                eq(5), eq(null)))
+                .thenReturn(SalaryIssuePageDto.builder()
+                        .issues(List.of(overpaidManager))
+                        .nextCursor("abc")
+                        .build());
+
+        mockMvc.perform(multipart("/api/v1/managers/overpaid")
+                        .file(csvFile)
+                        .param("limit", "5")
+                        .param("sortBy", "RELATIVE"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "abc"))
+                .andExpect(jsonPath("$[0].managerId").value("2"));
+
+        verify(analyzerService, never()).getOverpaidManagers(any());
+    }
+
+    @Test
+    void analyze_withRulesPart_shouldAnalyzeAgainstCompiledRules() throws Exception {
+        RuleSet compiled = RuleSet.builder(1.0, 2.0, 6).build("hash");
+        when(ruleSets.compile(any())).thenReturn(compiled);
+        when(analyzerService.analyzeWithRules(any(), any(), eq(compiled)))
+                .thenReturn(OrgAnalysisDto.builder().longReportingLines(Collections.emptyList()).build());
+
+        mockMvc.perform(multipart("/api/v1/analysis")
+                        .file(csvFile)
+                        .file(new MockMultipartFile("rules", "", MediaType.APPLICATION_JSON_VALUE,
+                                "{\"maxReportingDepth\": 6}".getBytes()))
+                        .param("checks", "LONG_REPORTING_LINES"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.longReportingLines").isEmpty());
+
+        verify(ruleSets).compile(argThat(rules -> rules.getMaxReportingDepth() == 6));
+        verify(analyzerService, never()).analyze(any(), any());
+    }
+
+    @Test
+    void analyze_withRawCsvBody_shouldStreamBodyIntoAnalysis() throws Exception {
+        OrgAnalysisDto analysis = OrgAnalysisDto.builder()
+                .overpaidManagers(Collections.emptyList())
+                .build();
+        when(analyzerService.analyzeStream(any(), anyLong(), eq(Compression.GZIP), eq(EnumSet.of(AnalysisType.OVERPAID))))
+                .thenReturn(analysis);
+
+        mockMvc.perform(post("/api/v1/analysis")
+                        .contentType("text/csv")
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .param("checks", "OVERPAID")
+                        .content(new byte[]{1, 2, 3}))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.overpaidManagers").isEmpty());
+
+        verify(analyzerService, never()).analyze(any(), any());
+    }
+
+    @Test
+    void analyze_withRawCsvBodyAndRuleSet_shouldAnalyzeAgainstNamedRules() throws Exception {
+        RuleSet named = RuleSet.builder(1.0, 2.0, 6).build("named");
+        when(ruleSets.named("strict")).thenReturn(named);
+        when(analyzerService.analyzeStreamWithRules(any(), anyLong(), eq(Compression.NONE), any(), eq(named)))
+                .thenReturn(OrgAnalysisDto.builder().longReportingLines(Collections.emptyList()).build());
+
+        mockMvc.perform(post("/api/v1/analysis")
+                        .contentType("text/csv")
+                        .param("ruleSet", "strict")
+                        .content("id,name,salary,manager_id\n1,CEO,200000,\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.longReportingLines").isEmpty());
+
+        verify(analyzerService, never()).analyzeStream(any(), anyLong(), any(), any());
+    }
+
+    @Test
+    void analyze_withRawCsvBodyAndRulesHeader_shouldAnalyzeAgainstCompiledRules() throws Exception {
+        RuleSet compiled = RuleSet.builder(1.0, 2.0, 3).build("hash");
+        when(ruleSets.compile(any())).thenReturn(compiled);
+        when(analyzerService.analyzeStreamWithRules(any(), anyLong(), eq(Compression.NONE), any(), eq(compiled)))
+                .thenReturn(OrgAnalysisDto.builder().longReportingLines(Collections.emptyList()).build());
+
+        mockMvc.perform(post("/api/v1/analysis")
+                        .contentType("text/csv")
+                        .header("X-Analyzer-Rules", "{\"maxReportingDepth\": 3}")
+                        .content("id,name,salary,manager_id\n1,CEO,200000,\n"))
+                .andExpect(status().isOk());
+
+        verify(ruleSets).compile(argThat(rules -> rules.getMaxReportingDepth() == 3));
+        verify(analyzerService, never()).analyzeStream(any(), anyLong(), any(), any());
+    }
+
+    @Test
+    void analyze_withRawCsvBodyAndRulesParameter_shouldReject() {
+        ServletException thrown = assertThrows(ServletException.class, () ->
+                mockMvc.perform(post("/api/v1/analysis")
+                        .contentType("text/csv")
+                        .param("rules", "{}")
+                        .content("id,name,salary,manager_id\n1,CEO,200000,\n")));
+
+        assertInstanceOf(InvalidDataException.class, thrown.getCause());
+        verify(analyzerService, never()).analyzeStream(any(), anyLong(), any(), any());
+    }
+
+    @Test
+    void getUnderpaidManagers_withRawCsvBody_shouldReturnUnderpaidOnly() throws Exception {
+        SalaryIssueDto underpaidManager = new SalaryIssueDto();
+        underpaidManager.setManagerId("3");
+        when(analyzerService.analyzeStream(any(), anyLong(), eq(Compression.NONE), eq(EnumSet.of(AnalysisType.UNDERPAID))))
+                .thenReturn(OrgAnalysisDto.builder()
+                        .underpaidManagers(Collections.singletonList(underpaidManager))
+                        .build());
+
+        mockMvc.perform(post("/api/v1/managers/underpaid")
+                        .contentType("text/csv")
+                        .content("id,name,salary,manager_id\n1,CEO,200000,\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].managerId").value("3"));
+    }
+
+    @Test
+    void getUnderpaidManagers_acceptingNdjson_shouldStreamOneRecordPerLine() throws Exception {
+        SalaryIssueDto first = SalaryIssueDto.builder().managerId("3").salaryDifference(-13200).build();
+        SalaryIssueDto second = SalaryIssueDto.builder().managerId("4").salaryDifference(-100).build();
+
+        when(analyzerService.streamUnderpaidManagers(any())).thenReturn(Stream.of(first, second));
+
+        MvcResult result = mockMvc.perform(multipart("/api/v1/managers/underpaid")
+                        .file(csvFile)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"managerId\":\"3\",\"managerName\":null,\"managerSalary\":0.0,\"averageSubordinateSalary\":0.0,\"expectedSalary\":0.0,\"salaryDifference\":-13200.0}\n" +
+                        "{\"managerId\":\"4\",\"managerName\":null,\"managerSalary\":0.0,\"averageSubordinateSalary\":0.0,\"expectedSalary\":0.0,\"salaryDifference\":-100.0}\n"));
+
+        verify(analyzerService, never()).getUnderpaidManagers(any());
+    }
+
+    @Test
+    void getOverpaidManagers_acceptingNdjsonWithLimit_shouldStreamOnePage() throws Exception {
+        SalaryIssueDto overpaidManager = SalaryIssueDto.builder().managerId("2").salaryDifference(500).build();
+        when(analyzerService.getSalaryIssuePage(any(), eq(AnalysisType.OVERPAID), eq(null), eq(1), eq("abc")))
+                .thenReturn(SalaryIssuePageDto.builder()
+                        .issues(List.of(overpaidManager))
+                        .nextCursor("def")
+                        .build());
+
+        MvcResult result = mockMvc.perform(multipart("/api/v1/managers/overpaid")
+                        .file(csvFile)
+                        .param("limit", "1")
+                        .param("cursor", "abc")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "def"))
+                .andExpect(content().string(
+                        "{\"managerId\":\"2\",\"managerName\":null,\"managerSalary\":0.0,\"averageSubordinateSalary\":0.0,\"expectedSalary\":0.0,\"salaryDifference\":500.0}\n"));
+
+        verify(analyzerService, never()).streamOverpaidManagers(any());
+    }
+
+    @Test
+    void getUnderpaidManagers_withRawCsvBodyAndLimit_shouldRejectPaging() {
+        ServletException thrown = assertThrows(ServletException.class, () ->
+                mockMvc.perform(post("/api/v1/managers/underpaid")
+                        .contentType("text/csv")
+                        .param("limit", "5")
+                        .content("id,name,salary,manager_id\n1,CEO,200000,\n")));
+
+        assertInstanceOf(InvalidDataException.class, thrown.getCause());
+        verify(analyzerService, never()).analyzeStream(any(), anyLong(), any(), any());
+    }
+
+    @Test
+    void getLongReportingLines_acceptingNdjson_shouldStreamRecords() throws Exception {
+        ReportingLineDto reportingLine = ReportingLineDto.builder()
+                .employeeId("22").employeeName("Employee22").reportingLineDepth(6).excess(2).build();
+
+        when(analyzerService.streamLongReportingLines(any())).thenReturn(Stream.of(reportingLine));
+
+        MvcResult result = mockMvc.perform(multipart("/api/v1/employees/long-reporting-lines")
+                        .file(csvFile)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        "{\"employeeId\":\"22\",\"employeeName\":\"Employee22\",\"reportingLineDepth\":6,\"excess\":2}\n"));
+    }
+}
@@ -0,0 +1,167 @@
+package com.company.job;
+
+import com.company.cache.OrgHierarchyCache;
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.JobDto;
+import com.company.exception.InvalidDataException;
+import com.company.exception.JobNotFoundException;
+import com.company.metrics.PipelineMetrics;
+import com.company.model.JobStatus;
+import com.company.service.AnalysisAdmission;
+import com.company.service.AnalysisExecutor;
+import com.company.service.OrgAnalyzerService;
+import com.company.validator.CsvValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisJobsTest {
+
+    @TempDir
+    Path directory;
+
+    private AnalyzerProperties properties;
+    private OrgAnalyzerService service;
+    private AnalysisJobs jobs;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AnalyzerProperties();
+        properties.getJobs().setDirectory(directory.toString());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service = new OrgAnalyzerService();
+        service.csvValidator = new CsvValidator(properties);
+        service.hierarchyCache = new OrgHierarchyCache(properties);
+        service.analysisExecutor = new AnalysisExecutor(properties);
+        service.metrics = new PipelineMetrics(registry);
+        service.admission = new AnalysisAdmission(properties, registry);
+        jobs = new AnalysisJobs(properties, service, service.csvValidator);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobs.shutdown();
+    }
+
+    private static MockMultipartFile csv(String content) {
+        return new MockMultipartFile("file", "employees.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private JobDto awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        JobDto job = jobs.describe(id);
+        while (job.getStatus() != JobStatus.SUCCEEDED && job.getStatus() != JobStatus.FAILED) {
+            assertTrue(System.nanoTime() < deadline, "job did not finish in time");
+            Thread.sleep(10);
+            job = jobs.describe(id);
+        }
+        return job;
+    }
+
+    @Test
+    void submit_shouldRunAnalysisInBackgroundAndReportProgress() throws Exception {
+        JobDto submitted = jobs.submit(csv("id,name,salary,manager_id\n" +
+                "1,CEO,200000,\n" +
+                "2,CFO,50000,1\n" +
+                "3,Dev,45000,2\n"), null);
+        assertNotNull(submitted.getId());
+
+        JobDto finished = awaitFinished(submitted.getId());
+
+        assertEquals(JobStatus.SUCCEEDED, finished.getStatus());
+        assertEquals(3, finished.getRowsParsed());
+        assertNull(finished.getStage());
+        assertEquals("1", finished.getResult().getOverpaidManagers().get(0).getManagerId());
+        try (Stream<Path> spooled = Files.list(directory)) {
+            assertEquals(0, spooled.count());
+        }
+    }
+
+    @Test
+    void submit_withInvalidFile_shouldFailJobWithReason() throws Exception {
+        JobDto submitted = jobs.submit(csv("id,name,salary,manager_id\n1,CEO,200000,\n2,CFO,50000,9\n"), null);
+
+        JobDto finished = awaitFinished(submitted.getId());
+
+        assertEquals(JobStatus.FAILED, finished.getStatus());
+        assertTrue(finished.getError().contains("non-existent manager"));
+        assertNull(finished.getResult());
+    }
+
+    @Test
+    void evictExpired_shouldDropJobsFinishedLongerThanTtlAgo() throws Exception {
+        properties.getJobs().setTtl(Duration.ZERO);
+        jobs.shutdown();
+        jobs = new AnalysisJobs(properties, service, service.csvValidator);
+        JobDto submitted = jobs.submit(csv("id,name,salary,manager_id\n1,CEO,200000,\n"), null);
+        awaitFinished(submitted.getId());
+
+        Thread.sleep(5);
+        jobs.evictExpired();
+
+        assertThrows(JobNotFoundException.class, () -> jobs.describe(submitted.getId()));
+    }
+
+    @Test
+    void submit_beyondMaxFinished_shouldDropOldestFinishedJobs() throws Exception {
+        properties.getJobs().setMaxFinished(2);
+        jobs.shutdown();
+        jobs = new AnalysisJobs(properties, service, service.csvValidator);
+        String[] ids = new String[3];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = jobs.submit(csv("id,name,salary,manager_id\n1,CEO,200000,\n"), null).getId();
+            awaitFinished(ids[i]);
+        }
+
+        assertThrows(JobNotFoundException.class, () -> jobs.describe(ids[0]));
+        assertEquals(JobStatus.SUCCEEDED, jobs.describe(ids[1]).getStatus());
+        assertEquals(JobStatus.SUCCEEDED, jobs.describe(ids[2]).getStatus());
+    }
+
+    @Test
+    void delete_shouldForgetJob() throws IOException, InterruptedException {
+        JobDto submitted = jobs.submit(csv("id,name,salary,manager_id\n1,CEO,200000,\n"), null);
+        awaitFinished(submitted.getId());
+
+        jobs.delete(submitted.getId());
+
+        assertThrows(JobNotFoundException.class, () -> jobs.describe(submitted.getId()));
+        assertThrows(JobNotFoundException.class, () -> jobs.delete(submitted.getId()));
+    }
+
+    @Test
+    void submit_withWrongFileType_shouldRejectBeforeSpooling() throws IOException {
+        MockMultipartFile spreadsheet = new MockMultipartFile("file", "employees.xlsx", "application/octet-stream",
+                "id,name,salary,manager_id\n1,CEO,200000,\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(InvalidDataException.class, () -> jobs.submit(spreadsheet, null));
+        try (Stream<Path> spooled = Files.list(directory)) {
+            assertEquals(0, spooled.count());
+        }
+    }
+
+    @Test
+    void delete_rightAfterSubmit_shouldCancelQueuedJob() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            JobDto submitted = jobs.submit(csv("id,name,salary,manager_id\n1,CEO,200000,\n"), null);
+
+            jobs.delete(submitted.getId());
+
+            assertThrows(JobNotFoundException.class, () -> jobs.describe(submitted.getId()));
+        }
+    }
+}
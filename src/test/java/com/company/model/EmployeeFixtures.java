@@ -0,0 +1,33 @@
+package com.company.model;
+
+import com.company.parser.EmployeeCsvParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Employees of the model tests, parsed from CSV rows like an upload
+ */
+final class EmployeeFixtures {
+
+    private EmployeeFixtures() {
+    }
+
+    /**
+     * Employees of the given {@code id,name,salary,manager_id} rows, in row order
+     */
+    static Map<String, Employee> employees(String... rows) {
+        String csv = "id,name,salary,manager_id\n" + String.join("\n", rows) + "\n";
+        Map<String, Employee> employees = new LinkedHashMap<>();
+        try {
+            new EmployeeCsvParser().parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), employees);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return employees;
+    }
+}
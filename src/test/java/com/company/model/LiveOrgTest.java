@@ -0,0 +1,190 @@
+package com.company.model;
+
+import com.company.exception.InvalidDataException;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveOrgTest {
+
+    private static Employee employee(String id, double salary, String managerId) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setName("Name " + id);
+        employee.setSalary(salary);
+        employee.setManagerId(managerId);
+        return employee;
+    }
+
+    private static Map<String, Employee> org(Employee... employees) {
+        Map<String, Employee> map = new LinkedHashMap<>();
+        for (Employee employee : employees) {
+            map.put(employee.getId(), employee);
+        }
+        return map;
+    }
+
+    private static Set<String> ids(OrgView org, int[] employees) {
+        Set<String> ids = new TreeSet<>();
+        for (int employee : employees) {
+            ids.add(org.id(employee));
+        }
+        return ids;
+    }
+
+    private static Set<String> scan(OrgGraph org, BiPredicate<OrgView, Integer> rule) {
+        Set<String> ids = new TreeSet<>();
+        for (int employee = 0; employee < org.size(); employee++) {
+            if (rule.test(org, employee)) {
+                ids.add(org.id(employee));
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    void changeSalary_shouldRecheckEmployeeAndManager() {
+        LiveOrg live = LiveOrg.of(OrgGraph.of(org(
+                employee("1", 110000, null),
+                employee("2", 100000, "1"),
+                employee("3", 60000, "2"))));
+        assertEquals(Set.of("1"), ids(live, live.underpaidManagers()));
+        assertEquals(Set.of("2"), ids(live, live.overpaidManagers()));
+
+        live.changeSalary("2", 80000);
+
+        assertEquals(Set.of(), ids(live, live.underpaidManagers()));
+        assertEquals(Set.of(), ids(live, live.overpaidManagers()));
+        assertEquals(80000, live.averageSubordinateSalary(0));
+    }
+
+    @Test
+    void move_shouldUpdateDepthsOfWholeSubtree() {
+        LiveOrg live = LiveOrg.of(OrgGraph.of(org(
+                employee("1", 100, null),
+                employee("2", 100, "1"),
+                employee("3", 100, "2"),
+                employee("4", 100, "3"),
+                employee("5", 100, "4"),
+                employee("6", 100, "1"),
+                employee("7", 100, "6"))));
+        assertEquals(Set.of(), ids(live, live.longReportingLines()));
+
+        live.move("6", "5");
+
+        assertEquals(Set.of("6", "7"), ids(live, live.longReportingLines()));
+        assertEquals(6, live.depth(6));
+
+        live.move("3", "");
+
+        assertEquals(Set.of(), ids(live, live.longReportingLines()));
+        assertEquals(0, live.depth(2));
+        assertEquals(4, live.depth(6));
+    }
+
+    @Test
+    void move_underOwnSubtree_shouldBeRejected() {
+        LiveOrg live = LiveOrg.of(OrgGraph.of(org(
+                employee("1", 100, null),
+                employee("2", 100, "1"),
+                employee("3", 100, "2"))));
+
+        assertThrows(InvalidDataException.class, () -> live.move("2", "3"));
+        assertThrows(InvalidDataException.class, () -> live.move("2", "2"));
+        assertThrows(InvalidDataException.class, () -> live.move("9", "1"));
+    }
+
+    @Test
+    void remove_shouldPromoteSubordinatesToManager() {
+        LiveOrg live = LiveOrg.of(OrgGraph.of(org(
+                employee("1", 100, null),
+                employee("2", 100, "1"),
+                employee("3", 50, "2"),
+                employee("4", 70, "2"))));
+
+        live.remove("2");
+
+        assertEquals(3, live.employees());
+        assertEquals(2, live.subordinateCount(0));
+        assertEquals(60, live.averageSubordinateSalary(0));
+        assertEquals(1, live.depth(2));
+        assertThrows(InvalidDataException.class, () -> live.remove("2"));
+
+        live.add("5", "Hire", 80, "1");
+        assertEquals(4, live.employees());
+        assertEquals(3, live.subordinateCount(0));
+    }
+
+    @Test
+    void randomDeltas_shouldMatchFullReanalysis() {
+        Random random = new Random(7);
+        Map<String, Employee> expected = new LinkedHashMap<>();
+        expected.put("0", employee("0", 500, null));
+        for (int i = 1; i < 200; i++) {
+            expected.put(String.valueOf(i), employee(String.valueOf(i), 50 + random.nextInt(400),
+                    String.valueOf(random.nextInt(i))));
+        }
+        LiveOrg live = LiveOrg.of(OrgGraph.of(copy(expected)));
+        int nextId = 200;
+
+        for (int step = 0; step < 2000; step++) {
+            List<String> present = new ArrayList<>(expected.keySet());
+            String id = present.get(random.nextInt(present.size()));
+            String other = present.get(random.nextInt(present.size()));
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    String hire = String.valueOf(nextId++);
+                    double salary = 50 + random.nextInt(400);
+                    live.add(hire, "Name " + hire, salary, id);
+                    expected.put(hire, employee(hire, salary, id));
+                }
+                case 1 -> {
+                    if (present.size() > 1) {
+                        live.remove(id);
+                        String managerId = expected.remove(id).getManagerId();
+                        expected.values().stream()
+                                .filter(e -> id.equals(e.getManagerId()))
+                                .forEach(e -> e.setManagerId(managerId));
+                    }
+                }
+                case 2 -> {
+                    if (!isInSubtree(expected, other, id)) {
+                        live.move(id, other);
+                        expected.get(id).setManagerId(other);
+                    } else {
+                        assertThrows(InvalidDataException.class, () -> live.move(id, other));
+                    }
+                }
+                default -> {
+                    double salary = 50 + random.nextInt(400);
+                    live.changeSalary(id, salary);
+                    expected.get(id).setSalary(salary);
+                }
+            }
+        }
+
+        OrgGraph rebuilt = OrgGraph.of(copy(expected));
+        assertEquals(expected.size(), live.employees());
+        assertEquals(scan(rebuilt, OrgRules::isUnderpaid), ids(live, live.underpaidManagers()));
+        assertEquals(scan(rebuilt, OrgRules::isOverpaid), ids(live, live.overpaidManagers()));
+        assertEquals(scan(rebuilt, OrgRules::hasLongReportingLine), ids(live, live.longReportingLines()));
+    }
+
+    private static boolean isInSubtree(Map<String, Employee> employees, String id, String top) {
+        for (String current = id; current != null; current = employees.get(current).getManagerId()) {
+            if (current.equals(top)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, Employee> copy(Map<String, Employee> employees) {
+        Map<String, Employee> copy = new LinkedHashMap<>();
+        employees.values().forEach(e -> copy.put(e.getId(), employee(e.getId(), e.getSalary(), e.getManagerId())));
+        return copy;
+    }
+}
@@ -0,0 +1,145 @@
+package com.company.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.company.model.EmployeeFixtures.employees;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrgGraphTest {
+
+    @Test
+    void of_shouldLinkSubordinatesAndCalculateDepths() {
+        OrgGraph org = OrgGraph.of(employees(
+                "10,CEO,300000,",
+                "20,CFO,150000,10",
+                "30,Accountant,60000,20",
+                "40,Clerk,40000,20"));
+
+        assertEquals(4, org.size());
+        assertEquals("20", org.id(1));
+        assertEquals("CFO", org.name(1));
+        assertEquals(OrgGraph.NO_PARENT, org.parent(0));
+        assertEquals(1, org.parent(2));
+
+        assertEquals(2, org.subordinateCount(1));
+        assertEquals(2, org.subordinate(1, 0));
+        assertEquals(3, org.subordinate(1, 1));
+        assertEquals(50000, org.averageSubordinateSalary(1));
+        assertEquals(0, org.averageSubordinateSalary(3));
+
+        assertEquals(0, org.depth(0));
+        assertEquals(1, org.depth(1));
+        assertEquals(2, org.depth(3));
+    }
+
+    @Test
+    void of_shouldAggregateSubordinateAndSubtreeSalaries() {
+        OrgGraph org = OrgGraph.of(employees(
+                "10,CEO,300000,",
+                "20,CFO,150000,10",
+                "30,Accountant,60000,20",
+                "40,Clerk,40000,20",
+                "50,CTO,170000,10"));
+
+        assertEquals(320000, org.subordinateSalarySum(0));
+        assertEquals(160000, org.averageSubordinateSalary(0));
+        assertEquals(100000, org.subordinateSalarySum(1));
+
+        assertEquals(720000, org.subtreeSalarySum(0));
+        assertEquals(144000, org.averageSubtreeSalary(0));
+        assertEquals(40000, org.subtreeMinSalary(0));
+        assertEquals(300000, org.subtreeMaxSalary(0));
+        assertEquals(250000, org.subtreeSalarySum(1));
+        assertEquals(40000, org.subtreeMinSalary(1));
+        assertEquals(150000, org.subtreeMaxSalary(1));
+        assertEquals(40000, org.subtreeSalarySum(3));
+    }
+
+    @Test
+    void of_shouldKeepNonAsciiNamesAndIds() {
+        OrgGraph org = OrgGraph.of(employees("ä1,Zoë Müller,100000,"));
+
+        assertEquals("ä1", org.id(0));
+        assertEquals("Zoë Müller", org.name(0));
+    }
+
+    @Test
+    void estimatedBytes_shouldStaySmallPerEmployee() {
+        String[] rows = new String[10_000];
+        rows[0] = "0,Employee 0,100000,";
+        for (int i = 1; i < rows.length; i++) {
+            rows[i] = i + ",Employee " + i + ",50000," + (i - 1) / 10;
+        }
+
+        OrgGraph org = OrgGraph.of(employees(rows));
+
+        assertTrue(org.estimatedBytes() / org.size() < 64, "bytes per employee: " + org.estimatedBytes() / org.size());
+    }
+
+    @Test
+    void of_withSeveralRoots_shouldCalculateDepthsForEveryTree() {
+        OrgGraph org = OrgGraph.of(employees(
+                "1,CEO A,300000,",
+                "2,Report A,100000,1",
+                "3,CEO B,300000,",
+                "4,Report B,100000,3",
+                "5,Report B2,90000,4"));
+
+        assertArrayEquals(new int[]{0, 2}, org.roots());
+        assertEquals(1, org.depth(3));
+        assertEquals(2, org.depth(4));
+        assertEquals(0, org.unreachable().length);
+        assertTrue(org.cycles().isEmpty());
+    }
+
+    @Test
+    void of_withManagerCycle_shouldReportCycleAndUnreachableEmployees() {
+        OrgGraph org = OrgGraph.of(employees(
+                "1,CEO,300000,",
+                "2,A,100000,4",
+                "3,B,100000,2",
+                "4,C,100000,3",
+                "5,Below cycle,50000,2"));
+
+        assertEquals(1, org.cycles().size());
+        assertEquals(3, org.cycles().get(0).length);
+        assertArrayEquals(new int[]{1, 2, 3, 4}, org.unreachable());
+        assertEquals(OrgGraph.UNREACHABLE, org.depth(4));
+        assertEquals(0, org.depth(0));
+    }
+
+    @Test
+    void of_withVeryDeepChain_shouldNotOverflowStack() {
+        String[] rows = new String[200_000];
+        rows[0] = "0,Employee 0,100000,";
+        for (int i = 1; i < rows.length; i++) {
+            rows[i] = i + ",Employee " + i + ",50000," + (i - 1);
+        }
+
+        OrgGraph org = OrgGraph.of(employees(rows));
+
+        assertEquals(rows.length - 1, org.depth(rows.length - 1));
+    }
+
+    @Test
+    void of_shouldIndexEmployeesInPreorderSoSubtreesAreContiguous() {
+        OrgGraph org = OrgGraph.of(employees(
+                "5,Report B1,50000,3",
+                "4,Report A1,50000,2",
+                "3,VP B,100000,1",
+                "2,VP A,100000,1",
+                "1,CEO,300000,"));
+
+        String[] preorder = new String[org.size()];
+        for (int i = 0; i < org.size(); i++) {
+            preorder[i] = org.id(i);
+        }
+        assertArrayEquals(new String[]{"1", "3", "5", "2", "4"}, preorder);
+        assertEquals(5, org.subtreeSize(0));
+        assertEquals(2, org.subtreeSize(1));
+        assertEquals(1, org.parent(2));
+        assertEquals(3, org.parent(4));
+    }
+}
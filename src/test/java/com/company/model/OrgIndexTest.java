@@ -0,0 +1,147 @@
+package com.company.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.company.model.EmployeeFixtures.employees;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrgIndexTest {
+
+    private static OrgIndex sampleIndex() {
+        return OrgIndex.of(OrgGraph.of(employees(
+                "10,CEO,300000,",
+                "20,CFO,150000,10",
+                "30,Accountant,60000,20",
+                "40,Clerk,40000,20",
+                "50,CTO,170000,10",
+                "60,Engineer,90000,50",
+                "70,Intern,20000,60",
+                "80,Chair,100000,")));
+    }
+
+    @Test
+    void indexOf_shouldFindEveryIdAndRejectUnknownOnes() {
+        OrgIndex index = sampleIndex();
+
+        for (int employee = 0; employee < index.org().size(); employee++) {
+            assertEquals(employee, index.indexOf(index.org().id(employee)));
+        }
+        assertEquals(-1, index.indexOf("99"));
+        assertEquals(-1, index.indexOf("1"));
+        assertEquals(-1, index.indexOf(""));
+    }
+
+    @Test
+    void subtree_shouldBeContiguousRangeUnderManager() {
+        OrgIndex index = sampleIndex();
+        int cfo = index.indexOf("20");
+        int cto = index.indexOf("50");
+
+        assertEquals(cfo + 3, index.subtreeEnd(cfo));
+        assertTrue(index.isInSubtree(cfo, index.indexOf("40")));
+        assertTrue(index.isInSubtree(index.indexOf("10"), index.indexOf("70")));
+        assertFalse(index.isInSubtree(cfo, index.indexOf("70")));
+        assertFalse(index.isInSubtree(cto, index.indexOf("10")));
+        assertFalse(index.isInSubtree(index.indexOf("10"), index.indexOf("80")));
+    }
+
+    @Test
+    void reportingChainAndManagers_shouldFollowManagersToRoot() {
+        OrgIndex index = sampleIndex();
+        int intern = index.indexOf("70");
+
+        int[] chain = index.reportingChain(intern);
+        assertArrayEquals(new int[]{intern, index.indexOf("60"), index.indexOf("50"), index.indexOf("10")}, chain);
+        assertEquals(intern, index.manager(intern, 0));
+        assertEquals(index.indexOf("50"), index.manager(intern, 2));
+        assertEquals(index.indexOf("10"), index.manager(intern, 3));
+        assertEquals(OrgGraph.NO_PARENT, index.manager(intern, 4));
+    }
+
+    @Test
+    void lowestCommonManager_shouldHandleSiblingsAncestorsAndSeparateRoots() {
+        OrgIndex index = sampleIndex();
+
+        assertEquals(index.indexOf("20"), index.lowestCommonManager(index.indexOf("30"), index.indexOf("40")));
+        assertEquals(index.indexOf("10"), index.lowestCommonManager(index.indexOf("40"), index.indexOf("70")));
+        assertEquals(index.indexOf("50"), index.lowestCommonManager(index.indexOf("70"), index.indexOf("50")));
+        assertEquals(OrgGraph.NO_PARENT, index.lowestCommonManager(index.indexOf("30"), index.indexOf("80")));
+    }
+
+    @Test
+    void spanOfControl_shouldCountManagersByDirectReports() {
+        OrgIndex index = sampleIndex();
+
+        assertEquals(Map.of(1, 2, 2, 2), index.spanOfControl());
+        assertEquals(4, index.managerCount());
+        int[] wide = index.managersWithSpanAtLeast(2);
+        assertEquals(List.of("10", "20"), List.of(index.org().id(wide[0]), index.org().id(wide[1])).stream().sorted().toList());
+        assertEquals(0, index.managersWithSpanAtLeast(3).length);
+    }
+
+    @Test
+    void spanRank_shouldPositionManagersWidestSpanFirstThenByIndex() {
+        OrgIndex index = sampleIndex();
+        int cfo = index.indexOf("20");
+        int cto = index.indexOf("50");
+
+        int[] all = index.managersBySpan(0, index.managerCount());
+        assertEquals(List.of("10", "20", "50", "60"),
+                List.of(index.org().id(all[0]), index.org().id(all[1]), index.org().id(all[2]), index.org().id(all[3])));
+        assertEquals(2, index.spanRank(2, cfo));
+        assertEquals(3, index.spanRank(1, cto));
+        assertEquals(4, index.spanRank(1, Integer.MAX_VALUE));
+        assertEquals(0, index.spanRank(3, Integer.MAX_VALUE));
+        assertArrayEquals(new int[]{index.indexOf("60")}, index.managersBySpan(index.spanRank(1, cto), 4));
+    }
+
+    @Test
+    void lookups_shouldMatchParentWalksOnRandomOrg() {
+        Random random = new Random(7);
+        Map<String, Employee> employees = new LinkedHashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            Employee employee = new Employee();
+            employee.setId("e" + i);
+            employee.setName("Employee" + i);
+            employee.setSalary(1000);
+            // mostly deep chains with some branching, so the lifting tables have several levels
+            employee.setManagerId(i == 0 ? null : "e" + Math.max(0, i - 1 - random.nextInt(3)));
+            employees.put(employee.getId(), employee);
+        }
+        OrgGraph org = OrgGraph.of(employees);
+        OrgIndex index = OrgIndex.of(org);
+
+        for (int check = 0; check < 500; check++) {
+            int a = random.nextInt(org.size());
+            int b = random.nextInt(org.size());
+            int k = random.nextInt(org.depth(a) + 2);
+
+            int walked = a;
+            for (int step = 0; step < k && walked != OrgGraph.NO_PARENT; step++) {
+                walked = org.parent(walked);
+            }
+            assertEquals(walked, index.manager(a, k));
+
+            int common = a;
+            while (!isUnder(org, b, common)) {
+                common = org.parent(common);
+            }
+            assertEquals(common, index.lowestCommonManager(a, b));
+            assertEquals(isUnder(org, b, a), index.isInSubtree(a, b));
+        }
+    }
+
+    private static boolean isUnder(OrgGraph org, int employee, int manager) {
+        for (int e = employee; e != OrgGraph.NO_PARENT; e = org.parent(e)) {
+            if (e == manager) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+package com.company.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSetTest {
+
+    private static int[] employees(RuleSet.Matches matches) {
+        return IntStream.range(0, matches.size()).map(matches::employee).toArray();
+    }
+
+    private static String[] ids(OrgGraph org, RuleSet.Matches matches) {
+        return Arrays.stream(employees(matches)).mapToObj(org::id).toArray(String[]::new);
+    }
+
+    @Test
+    void defaultRules_shouldMatchBuiltInChecksOnRandomOrg() {
+        Random random = new Random(11);
+        Map<String, Employee> input = new LinkedHashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            Employee employee = new Employee();
+            employee.setId(String.valueOf(i));
+            employee.setName("E" + i);
+            employee.setSalary(30000 + random.nextInt(170000));
+            employee.setManagerId(i == 0 ? null : String.valueOf(random.nextInt(i)));
+            input.put(employee.getId(), employee);
+        }
+        OrgGraph org = OrgGraph.of(input);
+
+        RuleSet.Findings findings = RuleSet.DEFAULT.evaluate(org);
+
+        assertArrayEquals(IntStream.range(0, org.size()).filter(e -> OrgRules.isUnderpaid(org, e)).toArray(),
+                employees(findings.underpaid()));
+        assertArrayEquals(IntStream.range(0, org.size()).filter(e -> OrgRules.isOverpaid(org, e)).toArray(),
+                employees(findings.overpaid()));
+        assertArrayEquals(IntStream.range(0, org.size()).filter(e -> OrgRules.hasLongReportingLine(org, e)).toArray(),
+                employees(findings.longReportingLines()));
+    }
+
+    @Test
+    void innermostSubtreeRule_shouldOverrideLevelAndDefaultRules() {
+        OrgGraph org = OrgGraph.of(EmployeeFixtures.employees(
+                "1,CEO,100000,",
+                "2,VP Sales,100000,1",
+                "3,Rep,100000,2",
+                "4,VP Eng,100000,1",
+                "5,Lead,100000,4",
+                "6,Dev,50000,5",
+                "7,Intern,10000,6"));
+
+        RuleSet rules = RuleSet.builder(1.2, 1.5, 4)
+                // directors at level 1 may earn the same as their reports
+                .level(1, 0.9, 1.1)
+                // engineering bands are tighter below VP Eng, the lead's team is flat
+                .subtree("4", 1.0, 1.4, 2)
+                .subtree("5", 1.5, 3.0, null)
+                .build("test");
+
+        RuleSet.Findings findings = rules.evaluate(org);
+
+        // CEO: default band, 100000 < 1.2 * 100000
+        // VP Sales: level band, fits; VP Eng: subtree band 1.0..1.4, fits
+        // Lead: inner band 1.5..3.0 over 50000 fits, Dev: inner band caps them at 3.0 * 10000
+        assertArrayEquals(new String[]{"1"}, ids(org, findings.underpaid()));
+        assertArrayEquals(new String[]{"6"}, ids(org, findings.overpaid()));
+        assertEquals(30000, findings.overpaid().limit(0));
+        // depth limit of 2 under VP Eng applies to the whole subtree, including the lead's team
+        assertArrayEquals(new String[]{"6", "7"}, ids(org, findings.longReportingLines()));
+        assertEquals(2, findings.longReportingLines().limit(1));
+    }
+
+    @Test
+    void subtreeRuleForUnknownManager_shouldBeIgnored() {
+        OrgGraph org = OrgGraph.of(EmployeeFixtures.employees(
+                "1,CEO,90000,",
+                "2,Lead,80000,1"));
+
+        RuleSet rules = RuleSet.builder(1.2, 1.5, 4)
+                .subtree("99", 0, 10, 0)
+                .build("test");
+
+        assertArrayEquals(new String[]{"1"}, ids(org, rules.evaluate(org).underpaid()));
+        assertEquals(0, rules.evaluate(org).longReportingLines().size());
+    }
+}
@@ -0,0 +1,166 @@
+package com.company.parser;
+
+import com.company.exception.InvalidDataException;
+import com.company.dtos.ValidationErrorDto;
+import com.company.model.Employee;
+import com.company.model.ValidationErrorKind;
+import com.company.validator.ValidationReport;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeCsvParserTest {
+
+    private final EmployeeCsvParser parser = new EmployeeCsvParser();
+
+    private Map<String, Employee> parse(String csv) throws IOException {
+        return parser.parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void parse_shouldMapColumnsByHeaderName() throws IOException {
+        Map<String, Employee> employees = parse("manager_id,salary,name,id,team\n" +
+                ",200000,CEO,1,Board\n" +
+                "1,100000.50,CFO,2,Finance\n");
+
+        assertEquals(2, employees.size());
+        Employee cfo = employees.get("2");
+        assertEquals("CFO", cfo.getName());
+        assertEquals(100000.50, cfo.getSalary());
+        assertEquals("1", cfo.getManagerId());
+        assertNull(employees.get("1").getManagerId());
+    }
+
+    @Test
+    void parse_shouldHandleQuotesWhitespaceBomAndCrlf() throws IOException {
+        Map<String, Employee> employees = parse("\uFEFFid, name, salary, manager_id\r\n" +
+                "1, \"Smith, \"\"Jo\"\"\",  150000,\r\n" +
+                "\r\n" +
+                "2,\"Line\nBreak\",-5,1");
+
+        assertEquals(2, employees.size());
+        assertEquals("Smith, \"Jo\"", employees.get("1").getName());
+        assertEquals(150000, employees.get("1").getSalary());
+        assertEquals("Line\nBreak", employees.get("2").getName());
+        assertEquals(-5, employees.get("2").getSalary());
+    }
+
+    @Test
+    void parse_shouldMatchDoubleParsingForSalaryFormats() throws IOException {
+        String[] salaries = {"0", "0.1", "12345.678", "99999999999.99", "1e5", "1234567890123456789", "007.50"};
+        StringBuilder csv = new StringBuilder("id,name,salary,manager_id\n");
+        for (int i = 0; i < salaries.length; i++) {
+            csv.append(i).append(",E").append(i).append(',').append(salaries[i]).append(",\n");
+        }
+
+        Map<String, Employee> employees = parse(csv.toString());
+
+        for (int i = 0; i < salaries.length; i++) {
+            assertEquals(Double.parseDouble(salaries[i]), employees.get(String.valueOf(i)).getSalary(), salaries[i]);
+        }
+    }
+
+    @Test
+    void parse_shouldHandleRowsSpanningReadBuffers() throws IOException {
+        StringBuilder csv = new StringBuilder("id,name,salary,manager_id\n1,CEO,300000,\n");
+        for (int i = 2; i <= 20000; i++) {
+            csv.append(i).append(",\"Employee ").append(i).append("\",").append(50000 + i).append(",1\n");
+        }
+
+        Map<String, Employee> employees = parse(csv.toString());
+
+        assertEquals(20000, employees.size());
+        assertEquals("Employee 12345", employees.get("12345").getName());
+        assertEquals(62345, employees.get("12345").getSalary());
+    }
+
+    @Test
+    void parse_withWrongFieldCount_shouldReportRow() {
+        InvalidDataException e = assertThrows(InvalidDataException.class,
+                () -> parse("id,name,salary,manager_id\n1,CEO,200000,\n2,CFO\n"));
+
+        assertTrue(e.getMessage().contains("row 3"));
+    }
+
+    @Test
+    void parse_withInvalidSalary_shouldThrow() {
+        assertThrows(InvalidDataException.class,
+                () -> parse("id,name,salary,manager_id\n1,CEO,lots,\n"));
+    }
+
+    @Test
+    void parse_withDuplicateId_shouldRejectInsteadOfOverwriting() {
+        InvalidDataException e = assertThrows(InvalidDataException.class,
+                () -> parse("id,name,salary,manager_id\n1,CEO,200000,\n2,CFO,150000,1\n2,Other,90000,1\n"));
+
+        assertTrue(e.getMessage().contains("Duplicate employee ID 2"));
+        assertTrue(e.getMessage().contains("row 4"));
+    }
+
+    @Test
+    void parse_withRowValidator_shouldCheckEachRowBeforeInsertingIt() throws IOException {
+        Map<String, Employee> employees = new HashMap<>();
+        List<String> checked = new ArrayList<>();
+
+        parser.parse(new ByteArrayInputStream("id,name,salary,manager_id\n1,CEO,200000,\n2,CFO,150000,1\n"
+                .getBytes(StandardCharsets.UTF_8)), employees, (employee, row) -> {
+            assertFalse(employees.containsKey(employee.getId()));
+            checked.add(employee.getId() + "@" + row);
+        });
+
+        assertEquals(List.of("1@2", "2@3"), checked);
+        assertEquals(2, employees.size());
+    }
+
+    @Test
+    void parse_withCollectingReport_shouldSkipBadRowsAndCarryOn() throws IOException {
+        Map<String, Employee> employees = new HashMap<>();
+        ValidationReport report = ValidationReport.collecting(10);
+
+        parser.parse(new ByteArrayInputStream(("id,name,salary,manager_id\n1,CEO,200000,\n1,Again,1,\n" +
+                ",Nobody,1,1\n3,Short\n4,Dev,\"50000\n").getBytes(StandardCharsets.UTF_8)), employees,
+                (employee, row) -> {
+                }, report);
+
+        assertEquals(Set.of("1"), employees.keySet());
+        assertEquals("CEO", employees.get("1").getName());
+        assertEquals(List.of(ValidationErrorKind.DUPLICATE_ID, ValidationErrorKind.MISSING_ID,
+                        ValidationErrorKind.MALFORMED_ROW, ValidationErrorKind.MALFORMED_ROW),
+                report.toDto(parser.rows()).getErrors().stream().map(ValidationErrorDto::getKind).toList());
+        assertEquals(4, parser.rows());
+    }
+
+    @Test
+    void stopStoring_shouldKeepCountingRowsWithoutGrowingTheMap() throws IOException {
+        StringBuilder csv = new StringBuilder("id,name,salary,manager_id\n");
+        for (int i = 1; i <= 100; i++) {
+            csv.append(i).append(",E").append(i).append(",1000,\n");
+        }
+        Map<String, Employee> employees = new HashMap<>();
+        List<String> validated = new ArrayList<>();
+
+        parser.parse(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), employees,
+                (employee, row) -> {
+                    validated.add(employee.getId());
+                    if (employees.size() == 10) {
+                        parser.stopStoring();
+                    }
+                });
+
+        assertEquals(10, employees.size());
+        assertEquals(100, validated.size());
+        assertEquals(100, parser.rows());
+
+        // the next parse stores again
+        assertEquals(100, parse(csv.toString()).size());
+    }
+}
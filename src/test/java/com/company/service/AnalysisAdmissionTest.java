@@ -0,0 +1,106 @@
+package com.company.service;
+
+import com.company.config.AnalyzerProperties;
+import com.company.exception.AnalysisRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisAdmissionTest {
+
+    private static final long LARGE = DataSize.ofMegabytes(5).toBytes();
+
+    private final AnalyzerProperties properties = new AnalyzerProperties();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        properties.getAdmission().setMaxConcurrent(1);
+        properties.getAdmission().setMaxQueued(1);
+        properties.getAdmission().setMaxWait(Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        threads.shutdownNow();
+    }
+
+    @Test
+    void admit_whenSaturated_shouldQueueThenRejectWithRetryHint() throws Exception {
+        AnalysisAdmission admission = new AnalysisAdmission(properties, registry);
+        CountDownLatch running = new CountDownLatch(1);
+        Future<String> first = threads.submit(() -> admission.admit(LARGE, () -> {
+            running.countDown();
+            await(release);
+            return "first";
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        Future<String> queued = threads.submit(() -> admission.admit(LARGE, () -> "queued"));
+        waitUntil(() -> registry.get("analyzer.admission.queued").gauge().value() == 1);
+
+        AnalysisRejectedException e = assertThrows(AnalysisRejectedException.class,
+                () -> admission.admit(LARGE, () -> "rejected"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+        assertEquals(String.valueOf(e.getRetryAfterSeconds()), e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1, registry.get("analyzer.admission.rejected").counter().count());
+    }
+
+    @Test
+    void admit_smallUpload_shouldBypassSaturatedCapacity() throws Exception {
+        properties.getAdmission().setMaxQueued(0);
+        AnalysisAdmission admission = new AnalysisAdmission(properties, registry);
+        CountDownLatch running = new CountDownLatch(1);
+        threads.submit(() -> admission.admit(LARGE, () -> {
+            running.countDown();
+            return await(release);
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        assertThrows(AnalysisRejectedException.class, () -> admission.admit(LARGE, () -> "large"));
+        assertEquals("small", admission.admit(DataSize.ofKilobytes(10).toBytes(), () -> "small"));
+    }
+
+    @Test
+    void admit_afterMaxWait_shouldReject() {
+        properties.getAdmission().setMaxWait(Duration.ofMillis(50));
+        AnalysisAdmission admission = new AnalysisAdmission(properties, registry);
+
+        assertThrows(AnalysisRejectedException.class, () -> admission.admit(LARGE,
+                () -> admission.admit(LARGE, () -> "nested")));
+        assertEquals("free again", admission.admit(LARGE, () -> "free again"));
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void waitUntil(Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.call()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached in time");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.company.service;
+
+import com.company.config.AnalyzerProperties;
+import com.company.model.Employee;
+import com.company.model.OrgGraph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisExecutorTest {
+
+    private AnalysisExecutor parallelExecutor;
+
+    private static OrgGraph randomOrg(int size) {
+        Random random = new Random(7);
+        Map<String, Employee> employees = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            Employee employee = new Employee();
+            employee.setId(String.valueOf(i));
+            employee.setName("Employee" + i);
+            employee.setSalary(40000 + random.nextInt(100000));
+            // a second root at 1 makes the org a forest
+            employee.setManagerId(i <= 1 ? null : String.valueOf(random.nextInt(i)));
+            employees.put(employee.getId(), employee);
+        }
+        return OrgGraph.of(employees);
+    }
+
+    private AnalysisExecutor executor(boolean parallel, int threshold) {
+        AnalyzerProperties properties = new AnalyzerProperties();
+        properties.getParallel().setEnabled(parallel);
+        properties.getParallel().setThreshold(threshold);
+        properties.getParallel().setParallelism(4);
+        return new AnalysisExecutor(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (parallelExecutor != null) {
+            parallelExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void select_inParallel_shouldMatchSequentialResults() {
+        OrgGraph org = randomOrg(50_000);
+        parallelExecutor = executor(true, 100);
+        AnalysisExecutor sequentialExecutor = executor(false, 100);
+
+        IntPredicate deep = employee -> org.depth(employee) > 4;
+        IntPredicate highEarner = employee -> org.salary(employee) > org.averageSubordinateSalary(employee) * 1.5
+                && org.subordinateCount(employee) > 0;
+
+        assertArrayEquals(sequentialExecutor.select(org, deep), parallelExecutor.select(org, deep));
+        assertArrayEquals(sequentialExecutor.select(org, highEarner), parallelExecutor.select(org, highEarner));
+        assertTrue(parallelExecutor.select(org, deep).length > 0);
+    }
+
+    @Test
+    void select_shouldReturnIndicesInAscendingOrder() {
+        OrgGraph org = randomOrg(5_000);
+        parallelExecutor = executor(true, 10);
+
+        int[] selected = parallelExecutor.select(org, employee -> employee % 3 == 0);
+
+        assertEquals((5_000 + 2) / 3, selected.length);
+        for (int i = 1; i < selected.length; i++) {
+            assertTrue(selected[i - 1] < selected[i]);
+        }
+    }
+}
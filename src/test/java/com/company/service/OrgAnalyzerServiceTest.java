@@ -1,23 +1,46 @@
 package com.company.service;
 
+import com.company.cache.OrgHierarchyCache;
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.OrgAnalysisDto;
 import com.company.dtos.ReportingLineDto;
 import com.company.dtos.SalaryIssueDto;
+import com.company.dtos.SalaryIssuePageDto;
+import com.company.dtos.ValidationReportDto;
+import com.company.exception.InvalidDataException;
+import com.company.metrics.PipelineMetrics;
+import com.company.model.AnalysisType;
 import com.company.model.Employee;
+import com.company.model.OrgGraph;
+import com.company.model.SalaryIssueSort;
+import com.company.parser.Compression;
 import com.company.validator.CsvValidator;
+import com.github.luben.zstd.ZstdOutputStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -29,6 +52,20 @@ class OrgAnalyzerServiceTest {
     @Mock
     private CsvValidator csvValidator;
 
+    @Spy
+    private OrgHierarchyCache hierarchyCache = new OrgHierarchyCache(new AnalyzerProperties());
+
+    @Spy
+    private AnalysisExecutor analysisExecutor = new AnalysisExecutor(new AnalyzerProperties());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private PipelineMetrics metrics = new PipelineMetrics(meterRegistry);
+
+    @Spy
+    private AnalysisAdmission admission = new AnalysisAdmission(new AnalyzerProperties(), meterRegistry);
+
     @InjectMocks
     private OrgAnalyzerService orgAnalyzerService;
 
@@ -61,9 +98,10 @@ class OrgAnalyzerServiceTest {
                 csvContent.getBytes(StandardCharsets.UTF_8)
         );
 
-        // Mock the validator to avoid validation errors
-        doNothing().when(csvValidator).validateFile(any(MultipartFile.class));
-        doNothing().when(csvValidator).validateEmployeeData(any(Map.class));
+        // Mock the validator to avoid validation errors; tests that fail early or swap the
+        // validator do not reach these
+        lenient().doNothing().when(csvValidator).validateFile(any(MultipartFile.class));
+        lenient().doNothing().when(csvValidator).validateManagerReferences(any(Map.class));
     }
 
     @Test
@@ -77,7 +115,7 @@ class OrgAnalyzerServiceTest {
 
         // Verify validator was called
         verify(csvValidator).validateFile(mockCsvFile);
-        verify(csvValidator).validateEmployeeData(any(Map.class));
+        verify(csvValidator).validateManagerReferences(any(Map.class));
     }
 
     @Test
@@ -92,7 +130,7 @@ class OrgAnalyzerServiceTest {
 
         // Verify validator was called
         verify(csvValidator).validateFile(mockCsvFile);
-        verify(csvValidator).validateEmployeeData(any(Map.class));
+        verify(csvValidator).validateManagerReferences(any(Map.class));
     }
 
     @Test
@@ -106,7 +144,47 @@ class OrgAnalyzerServiceTest {
 
         // Verify validator was called
         verify(csvValidator).validateFile(mockCsvFile);
-        verify(csvValidator).validateEmployeeData(any(Map.class));
+        verify(csvValidator).validateManagerReferences(any(Map.class));
+    }
+
+    @Test
+    void getUnderpaidManagers_shouldRecordStageTimersAndRowCounts() {
+        orgAnalyzerService.getUnderpaidManagers(mockCsvFile);
+
+        assertEquals(1, meterRegistry.get("analyzer.pipeline.stage").tag("stage", "parse").timer().count());
+        assertEquals(1, meterRegistry.get("analyzer.pipeline.stage").tag("stage", "build-hierarchy").timer().count());
+        assertEquals(1, meterRegistry.get("analyzer.pipeline.stage").tag("stage", "analyze").timer().count());
+        assertEquals(csvContent.lines().count() - 1, meterRegistry.get("analyzer.rows.parsed").counter().count());
+        assertEquals(0, meterRegistry.get("analyzer.uploads.rejected").counter().count());
+        assertEquals(1, meterRegistry.get("analyzer.request.allocated").tag("operation", "underpaid").summary().count());
+    }
+
+    @Test
+    void loadOrgForSnapshot_shouldBeAdmittedAndMetered() {
+        OrgGraph org = orgAnalyzerService.loadOrgForSnapshot(mockCsvFile);
+
+        assertEquals(csvContent.lines().count() - 1, org.size());
+        verify(admission).admit(eq(mockCsvFile.getSize()), any());
+        assertEquals(1, meterRegistry.get("analyzer.request.allocated").tag("operation", "snapshot").summary().count());
+    }
+
+    @Test
+    void getUnderpaidManagers_withInvalidRow_shouldCountRejectedUpload() {
+        MultipartFile invalid = new MockMultipartFile("employees.csv", "employees.csv", "text/csv",
+                "id,name,salary,manager_id\n1,CEO,lots,\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(InvalidDataException.class, () -> orgAnalyzerService.getUnderpaidManagers(invalid));
+        assertEquals(1, meterRegistry.get("analyzer.uploads.rejected").counter().count());
+    }
+
+    @Test
+    void validate_shouldCountEveryProblemInTheReport() throws IOException {
+        when(csvValidator.validateAll(any())).thenReturn(ValidationReportDto.builder().errorCount(10_000).build());
+
+        orgAnalyzerService.validate(mockCsvFile);
+
+        assertEquals(10_000, meterRegistry.get("analyzer.validation.errors").counter().count());
+        assertEquals(0, meterRegistry.get("analyzer.uploads.rejected").counter().count());
     }
 
     @Test
@@ -179,18 +257,235 @@ class OrgAnalyzerServiceTest {
     }
 
     @Test
-    void parseEmployeesFromFile_shouldHandleFileReadingError() throws IOException {
-        // Create a mock file that will throw an exception when read
-        MultipartFile badFile = mock(MultipartFile.class);
-        when(badFile.getInputStream()).thenThrow(new IOException("Failed to read file"));
+    void analyze_withNoSelection_shouldRunAllAnalysesOnSingleParse() {
+        // When
+        OrgAnalysisDto analysis = orgAnalyzerService.analyze(mockCsvFile, null);
+
+        // Then
+        assertEquals(3, analysis.getUnderpaidManagers().size());
+        assertEquals(2, analysis.getOverpaidManagers().size());
+        assertEquals(1, analysis.getLongReportingLines().size());
+
+        // File is validated and parsed only once
+        verify(csvValidator, times(1)).validateFile(mockCsvFile);
+        verify(csvValidator, times(1)).validateManagerReferences(any(Map.class));
+    }
+
+    @Test
+    void analyze_withSelectedChecks_shouldSkipUnselectedAnalyses() {
+        // When
+        OrgAnalysisDto analysis = orgAnalyzerService.analyze(mockCsvFile,
+                EnumSet.of(AnalysisType.OVERPAID, AnalysisType.LONG_REPORTING_LINES));
+
+        // Then
+        assertNull(analysis.getUnderpaidManagers());
+        assertEquals(2, analysis.getOverpaidManagers().size());
+        assertEquals(1, analysis.getLongReportingLines().size());
+    }
+
+    @Test
+    void repeatedUpload_shouldBeServedFromCacheWithoutParsingAgain() {
+        MultipartFile sameContent = new MockMultipartFile(
+                "copy.csv",
+                "copy.csv",
+                "text/csv",
+                csvContent.getBytes(StandardCharsets.UTF_8)
+        );
+
+        // When
+        List<SalaryIssueDto> first = orgAnalyzerService.getUnderpaidManagers(mockCsvFile);
+        List<SalaryIssueDto> second = orgAnalyzerService.getUnderpaidManagers(sameContent);
+        List<ReportingLineDto> longLines = orgAnalyzerService.getLongReportingLines(sameContent);
+
+        // Then
+        assertEquals(first, second);
+        assertEquals(1, longLines.size());
+        verify(csvValidator, times(1)).validateManagerReferences(any(Map.class));
+        assertEquals(1, hierarchyCache.getStats().getMisses());
+        assertEquals(2, hierarchyCache.getStats().getHits());
+    }
+
+    @Test
+    void disabledCache_shouldParseEveryUpload() {
+        AnalyzerProperties properties = new AnalyzerProperties();
+        properties.getCache().setEnabled(false);
+        orgAnalyzerService.hierarchyCache = new OrgHierarchyCache(properties);
+
+        // When
+        orgAnalyzerService.getUnderpaidManagers(mockCsvFile);
+        orgAnalyzerService.getOverpaidManagers(mockCsvFile);
+
+        // Then
+        verify(csvValidator, times(2)).validateManagerReferences(any(Map.class));
+        assertEquals(0, orgAnalyzerService.hierarchyCache.getStats().getHits());
+    }
+
+    @Test
+    void streamMethods_shouldProduceSameRecordsAsListMethods() {
+        // When
+        List<SalaryIssueDto> underpaid = orgAnalyzerService.streamUnderpaidManagers(mockCsvFile)
+                .collect(Collectors.toList());
+        List<SalaryIssueDto> overpaid = orgAnalyzerService.streamOverpaidManagers(mockCsvFile)
+                .collect(Collectors.toList());
+        List<ReportingLineDto> longLines = orgAnalyzerService.streamLongReportingLines(mockCsvFile)
+                .collect(Collectors.toList());
+
+        // Then
+        assertEquals(orgAnalyzerService.getUnderpaidManagers(mockCsvFile), underpaid);
+        assertEquals(orgAnalyzerService.getOverpaidManagers(mockCsvFile), overpaid);
+        assertEquals(orgAnalyzerService.getLongReportingLines(mockCsvFile), longLines);
+    }
+
+    @Test
+    void analyzeStream_withGzipBody_shouldMatchUploadedFileAnalysis() throws IOException {
+        when(csvValidator.limitSize(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(csvContent.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // When
+        OrgAnalysisDto streamed = orgAnalyzerService.analyzeStream(
+                new ByteArrayInputStream(compressed.toByteArray()), compressed.size(), Compression.GZIP, null);
+        OrgAnalysisDto uploaded = orgAnalyzerService.analyze(mockCsvFile, null);
+
+        // Then the file upload is served from the org cached by the stream
+        assertEquals(uploaded, streamed);
+        assertEquals(1, hierarchyCache.getStats().getHits());
+        verify(csvValidator, times(1)).validateManagerReferences(any(Map.class));
+    }
+
+    @Test
+    void analyze_withGzipFile_shouldShareCachedOrgWithPlainStreamedBody() throws IOException {
+        when(csvValidator.limitSize(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(csvContent.getBytes(StandardCharsets.UTF_8));
+        }
+        MultipartFile gzipFile = new MockMultipartFile("employees.csv.gz", "employees.csv.gz",
+                "application/gzip", compressed.toByteArray());
+
+        // When
+        OrgAnalysisDto uploaded = orgAnalyzerService.analyze(gzipFile, null);
+        OrgAnalysisDto streamed = orgAnalyzerService.analyzeStream(
+                new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)), csvContent.length(),
+                Compression.NONE, null);
+
+        // Then both are keyed on the decompressed content
+        assertEquals(uploaded, streamed);
+        assertEquals(1, hierarchyCache.getStats().getHits());
+        verify(csvValidator, times(1)).validateManagerReferences(any(Map.class));
+    }
+
+    @Test
+    void analyzeStream_overSizeLimit_shouldRejectBody() {
+        AnalyzerProperties properties = new AnalyzerProperties();
+        properties.getLimits().setMaxFileSize(DataSize.ofBytes(64));
+        orgAnalyzerService.csvValidator = new CsvValidator(properties);
+
+        // When / Then
+        assertThrows(InvalidDataException.class, () -> orgAnalyzerService.analyzeStream(
+                new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)), -1, Compression.NONE, null));
+    }
+
+    @Test
+    void analyzeStream_withCorruptGzip_shouldRejectBody() {
+        // When / Then
+        assertThrows(InvalidDataException.class, () -> orgAnalyzerService.analyzeStream(
+                new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)), -1, Compression.GZIP, null));
+    }
+
+    @Test
+    void analyze_withTruncatedGzipFile_shouldRejectUpload() throws IOException {
+        when(csvValidator.limitSize(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(csvContent.getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] truncated = Arrays.copyOf(compressed.toByteArray(), compressed.size() / 2);
+        MultipartFile corrupt = new MockMultipartFile("file", "employees.csv.gz", "application/gzip", truncated);
+
+        // When / Then
+        InvalidDataException e = assertThrows(InvalidDataException.class,
+                () -> orgAnalyzerService.analyze(corrupt, null));
+        assertTrue(e.getMessage().startsWith("Failed to read the CSV file"));
+    }
+
+    @Test
+    void analyze_withZstdFile_shouldMatchPlainFile() throws IOException {
+        when(csvValidator.limitSize(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ZstdOutputStream zstd = new ZstdOutputStream(compressed)) {
+            zstd.write(csvContent.getBytes(StandardCharsets.UTF_8));
+        }
+        MultipartFile zstdFile = new MockMultipartFile(
+                "employees.csv.zst",
+                "employees.csv.zst",
+                "application/zstd",
+                compressed.toByteArray()
+        );
 
         // When
-        List<SalaryIssueDto> result = orgAnalyzerService.getUnderpaidManagers(badFile);
+        OrgAnalysisDto fromZstd = orgAnalyzerService.analyze(zstdFile, null);
+        OrgAnalysisDto fromPlain = orgAnalyzerService.analyze(mockCsvFile, null);
 
         // Then
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
+        assertEquals(fromPlain, fromZstd);
+        verify(csvValidator).limitSize(any());
+    }
+
+    @Test
+    void salaryIssuePages_shouldWalkEveryIssueInRankingOrder() {
+        List<SalaryIssueDto> all = new ArrayList<>(orgAnalyzerService.getUnderpaidManagers(mockCsvFile));
+        all.sort(Comparator.comparingDouble((SalaryIssueDto issue) -> Math.abs(issue.getSalaryDifference())).reversed());
+
+        // When
+        List<SalaryIssueDto> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            SalaryIssuePageDto page = orgAnalyzerService.getSalaryIssuePage(
+                    mockCsvFile, AnalysisType.UNDERPAID, SalaryIssueSort.ABSOLUTE, 1, cursor);
+            assertTrue(page.getIssues().size() <= 1);
+            paged.addAll(page.getIssues());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // Then
+        assertTrue(all.size() > 1);
+        assertEquals(all, paged);
+    }
+
+    @Test
+    void salaryIssuePage_withoutSort_shouldKeepFileOrderAndRejectForeignCursor() {
+        List<SalaryIssueDto> all = orgAnalyzerService.getOverpaidManagers(mockCsvFile);
+
+        // When
+        SalaryIssuePageDto first = orgAnalyzerService.getSalaryIssuePage(mockCsvFile, AnalysisType.OVERPAID, null, 1, null);
+        SalaryIssuePageDto rest = orgAnalyzerService.getSalaryIssuePage(
+                mockCsvFile, AnalysisType.OVERPAID, null, 10, first.getNextCursor());
+
+        // Then
+        assertEquals(all.subList(0, 1), first.getIssues());
+        assertEquals(all.subList(1, all.size()), rest.getIssues());
+        assertNull(rest.getNextCursor());
+        assertThrows(InvalidDataException.class, () -> orgAnalyzerService.getSalaryIssuePage(
+                mockCsvFile, AnalysisType.UNDERPAID, SalaryIssueSort.RELATIVE, 1, first.getNextCursor()));
+    }
+
+    @Test
+    void parseEmployeesFromFile_withFileReadingError_shouldRejectUpload() throws IOException {
+        // Create a mock file that will throw an exception when read
+        MultipartFile badFile = mock(MultipartFile.class);
+        IOException failure = new IOException("Failed to read file");
+        when(badFile.getInputStream()).thenThrow(failure);
+
+        // When
+        InvalidDataException e = assertThrows(InvalidDataException.class,
+                () -> orgAnalyzerService.getUnderpaidManagers(badFile));
 
+        // Then the read error is reported, not an empty file
+        assertTrue(e.getMessage().startsWith("Failed to read the CSV file"));
+        assertSame(failure, e.getCause());
 
         verify(csvValidator).validateFile(badFile);
     }
@@ -0,0 +1,79 @@
+package com.company.service;
+
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.EmployeeDto;
+import com.company.dtos.EmployeePageDto;
+import com.company.exception.InvalidDataException;
+import com.company.model.OrgGraph;
+import com.company.parser.EmployeeCsvParser;
+import com.company.snapshot.SnapshotStore;
+import com.company.validator.CsvValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrgQueryServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private OrgQueryService queryService;
+    private String snapshotId;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        AnalyzerProperties properties = new AnalyzerProperties();
+        properties.getSnapshots().setDirectory(directory.toString());
+        SnapshotStore store = new SnapshotStore(properties, new CsvValidator(properties));
+
+        String csv = "id,name,salary,manager_id\n" +
+                "1,CEO,300000,\n" +
+                "2,CFO,150000,1\n" +
+                "3,Accountant,60000,2\n" +
+                "4,Clerk,40000,2\n" +
+                "5,CTO,170000,1\n" +
+                "6,Engineer,90000,5\n" +
+                "7,Intern,20000,6\n" +
+                "8,Chair,100000,\n" +
+                "9,Secretary,50000,8\n";
+        OrgGraph org = OrgGraph.of(new EmployeeCsvParser().parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+        snapshotId = store.create("org", org).getId();
+        queryService = new OrgQueryService(store);
+    }
+
+    @Test
+    void managersWithDirectReports_shouldPageWidestSpanFirstUntilNoCursorIsLeft() {
+        List<String> managers = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            EmployeePageDto page = queryService.managersWithDirectReports(snapshotId, 1, 2, cursor);
+            assertTrue(page.getEmployees().size() <= 2);
+            page.getEmployees().stream().map(EmployeeDto::getId).forEach(managers::add);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(List.of("1", "2", "5", "6", "8"), managers);
+    }
+
+    @Test
+    void managersWithDirectReports_withCursorOfAnotherQuery_shouldReject() {
+        String cursor = queryService.managersWithDirectReports(snapshotId, 1, 1, null).getNextCursor();
+
+        assertThrows(InvalidDataException.class,
+                () -> queryService.managersWithDirectReports(snapshotId, 2, 1, cursor));
+        assertThrows(InvalidDataException.class,
+                () -> queryService.managersWithDirectReports(snapshotId, 1, 0, null));
+    }
+}
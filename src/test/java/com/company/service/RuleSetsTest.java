@@ -0,0 +1,77 @@
+package com.company.service;
+
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.LevelRuleDto;
+import com.company.dtos.RuleSetDto;
+import com.company.dtos.SubtreeRuleDto;
+import com.company.exception.InvalidDataException;
+import com.company.model.RuleSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSetsTest {
+
+    private static RuleSetDto rules(List<LevelRuleDto> levels, List<SubtreeRuleDto> subtrees) {
+        return RuleSetDto.builder().maxReportingDepth(6).levels(levels).subtrees(subtrees).build();
+    }
+
+    @Test
+    void compile_withEqualRulesInAnyOrder_shouldReuseCompiledPlan() {
+        RuleSets ruleSets = new RuleSets(new AnalyzerProperties());
+        LevelRuleDto first = new LevelRuleDto(1, 1.0, 1.3);
+        LevelRuleDto second = new LevelRuleDto(2, 1.1, 1.4);
+        SubtreeRuleDto sales = SubtreeRuleDto.builder().managerId("7").maxReportingDepth(3).build();
+
+        RuleSet compiled = ruleSets.compile(rules(List.of(first, second), List.of(sales)));
+
+        assertSame(compiled, ruleSets.compile(rules(List.of(second, first), List.of(sales))));
+        assertNotEquals(compiled.hash(), ruleSets.compile(rules(List.of(first), List.of(sales))).hash());
+    }
+
+    @Test
+    void compile_withInvalidRules_shouldThrow() {
+        RuleSets ruleSets = new RuleSets(new AnalyzerProperties());
+
+        assertThrows(InvalidDataException.class, () -> ruleSets.compile(
+                RuleSetDto.builder().minSalaryMultiplier(1.6).maxSalaryMultiplier(1.5).build()));
+        assertThrows(InvalidDataException.class, () -> ruleSets.compile(rules(
+                List.of(new LevelRuleDto(1, 1.0, 1.3), new LevelRuleDto(1, 1.1, 1.2)), List.of())));
+        assertThrows(InvalidDataException.class, () -> ruleSets.compile(rules(List.of(),
+                List.of(SubtreeRuleDto.builder().managerId("7").minSalaryMultiplier(1.0).build()))));
+        assertThrows(InvalidDataException.class, () -> ruleSets.compile(rules(List.of(),
+                List.of(SubtreeRuleDto.builder().managerId("7").build()))));
+    }
+
+    @Test
+    void compile_withMissingRulesOrKeys_shouldRejectInsteadOfFailingToSort() {
+        RuleSets ruleSets = new RuleSets(new AnalyzerProperties());
+        LevelRuleDto level = new LevelRuleDto(1, 1.0, 1.3);
+        SubtreeRuleDto subtree = SubtreeRuleDto.builder().managerId("7").maxReportingDepth(3).build();
+
+        assertThrows(InvalidDataException.class, () -> ruleSets.compile(
+                rules(Arrays.asList(level, null), List.of())));
+        assertThrows(InvalidDataException.class, () -> ruleSets.compile(
+                rules(List.of(level, new LevelRuleDto(null, 1.0, 1.3)), List.of())));
+        assertThrows(InvalidDataException.class, () -> ruleSets.compile(
+                rules(List.of(), Arrays.asList(null, subtree))));
+        assertThrows(InvalidDataException.class, () -> ruleSets.compile(
+                rules(List.of(), List.of(subtree, SubtreeRuleDto.builder().maxReportingDepth(3).build()))));
+    }
+
+    @Test
+    void named_shouldServeConfiguredRuleSetsAndRejectBadOnesAtStartup() {
+        AnalyzerProperties properties = new AnalyzerProperties();
+        properties.getRuleSets().put("emea", RuleSetDto.builder().maxReportingDepth(6).build());
+        RuleSets ruleSets = new RuleSets(properties);
+
+        assertSame(ruleSets.named("emea"), ruleSets.compile(RuleSetDto.builder().maxReportingDepth(6).build()));
+        assertThrows(InvalidDataException.class, () -> ruleSets.named("apac"));
+
+        properties.getRuleSets().put("broken", RuleSetDto.builder().maxReportingDepth(-1).build());
+        assertThrows(IllegalStateException.class, () -> new RuleSets(properties));
+    }
+}
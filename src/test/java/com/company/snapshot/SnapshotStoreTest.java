@@ -0,0 +1,239 @@
+package com.company.snapshot;
+
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.EmployeeDeltaDto;
+import com.company.dtos.SnapshotDto;
+import com.company.exception.InvalidDataException;
+import com.company.exception.SnapshotNotFoundException;
+import com.company.model.DeltaType;
+import com.company.model.LiveOrg;
+import com.company.model.OrgGraph;
+import com.company.model.OrgIndex;
+import com.company.parser.EmployeeCsvParser;
+import com.company.validator.CsvValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private AnalyzerProperties properties;
+    private OrgGraph org;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new AnalyzerProperties();
+        properties.getSnapshots().setDirectory(directory.toString());
+
+        String csv = "id,name,salary,manager_id\n" +
+                "1,CEO,200000,\n" +
+                "2,CFO,150000,1\n" +
+                "3,Zoë,80000.5,2\n" +
+                "4,Loop,70000,3\n";
+        org = OrgGraph.of(new EmployeeCsvParser().parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private SnapshotStore newStore() {
+        return new SnapshotStore(properties, new CsvValidator(properties));
+    }
+
+    @Test
+    void load_afterRestart_shouldReadSnapshotBackFromDisk() {
+        SnapshotDto snapshot = newStore().create("nightly", org);
+
+        SnapshotStore restarted = newStore();
+        OrgGraph loaded = restarted.load(snapshot.getId());
+
+        assertEquals("nightly", restarted.describe(snapshot.getId()).getName());
+        assertEquals(4, restarted.describe(snapshot.getId()).getEmployees());
+        assertEquals(org.size(), loaded.size());
+        for (int i = 0; i < org.size(); i++) {
+            assertEquals(org.id(i), loaded.id(i));
+            assertEquals(org.name(i), loaded.name(i));
+            assertEquals(org.salary(i), loaded.salary(i));
+            assertEquals(org.parent(i), loaded.parent(i));
+            assertEquals(org.depth(i), loaded.depth(i));
+        }
+    }
+
+    @Test
+    void load_overResidentLimit_shouldEvictAndReloadLazily() {
+        properties.getSnapshots().setMaxResident(1);
+        SnapshotStore store = newStore();
+        SnapshotDto first = store.create("first", org);
+        SnapshotDto second = store.create("second", org);
+
+        OrgGraph loaded = store.load(first.getId());
+        assertNotNull(store.load(second.getId()));
+        assertNotSame(loaded, store.load(first.getId()));
+    }
+
+    @Test
+    void load_columnarSnapshot_shouldBeMappedOutsideTheHeap() {
+        SnapshotDto snapshot = newStore().create("mapped", org);
+
+        OrgGraph mapped = newStore().load(snapshot.getId());
+
+        assertTrue(mapped.estimatedBytes() < org.estimatedBytes());
+        for (int i = 0; i < org.size(); i++) {
+            assertEquals(org.subtreeSize(i), mapped.subtreeSize(i));
+            assertEquals(org.subordinateCount(i), mapped.subordinateCount(i));
+            assertEquals(org.averageSubordinateSalary(i), mapped.averageSubordinateSalary(i));
+            assertEquals(org.subtreeSalarySum(i), mapped.subtreeSalarySum(i));
+        }
+        assertArrayEquals(org.roots(), mapped.roots());
+    }
+
+    @Test
+    void applyDeltas_shouldSurviveRestartThroughJournal() {
+        SnapshotDto snapshot = newStore().create("live", org);
+        SnapshotStore store = newStore();
+
+        SnapshotDto updated = store.applyDeltas(snapshot.getId(), List.of(
+                EmployeeDeltaDto.builder().op(DeltaType.ADD).id("5").name("Hire").salary(50000.0).managerId("4").build(),
+                EmployeeDeltaDto.builder().op(DeltaType.SALARY).id("2").salary(99000.0).build()));
+        assertEquals(5, updated.getEmployees());
+        assertThrows(InvalidDataException.class, () -> store.applyDeltas(snapshot.getId(), List.of(
+                EmployeeDeltaDto.builder().op(DeltaType.REMOVE).id("4").build(),
+                EmployeeDeltaDto.builder().op(DeltaType.MOVE).id("1").managerId("3").build())));
+
+        SnapshotStore restarted = newStore();
+        LiveOrg replayed = (LiveOrg) restarted.query(snapshot.getId());
+
+        assertEquals(4, replayed.employees());
+        assertEquals(4, restarted.describe(snapshot.getId()).getEmployees());
+        assertEquals(99000, replayed.averageSubordinateSalary(0));
+        assertEquals(3, replayed.depth(4));
+    }
+
+    @Test
+    void applyDeltas_withHireAnUploadWouldReject_shouldRejectIt() {
+        properties.getLimits().setMaxEmployees(5);
+        SnapshotStore store = newStore();
+        String id = store.create("checked", org).getId();
+
+        assertThrows(InvalidDataException.class, () -> store.applyDeltas(id, List.of(
+                EmployeeDeltaDto.builder().op(DeltaType.ADD).id("5").salary(50000.0).managerId("1").build())));
+        assertThrows(InvalidDataException.class, () -> store.applyDeltas(id, List.of(
+                EmployeeDeltaDto.builder().op(DeltaType.ADD).id("5").name("").salary(50000.0).managerId("1").build())));
+        assertThrows(InvalidDataException.class, () -> store.applyDeltas(id, List.of(
+                EmployeeDeltaDto.builder().op(DeltaType.ADD).id("5").name("Self").salary(50000.0).managerId("5").build())));
+
+        store.applyDeltas(id, List.of(
+                EmployeeDeltaDto.builder().op(DeltaType.ADD).id("5").name("Hire").salary(50000.0).managerId("1").build()));
+        InvalidDataException overLimit = assertThrows(InvalidDataException.class, () -> store.applyDeltas(id, List.of(
+                EmployeeDeltaDto.builder().op(DeltaType.ADD).id("6").name("Hire").salary(50000.0).managerId("1").build())));
+        assertTrue(overLimit.getMessage().contains("maximum limit of 5"));
+        InvalidDataException duplicate = assertThrows(InvalidDataException.class, () -> store.applyDeltas(id, List.of(
+                EmployeeDeltaDto.builder().op(DeltaType.ADD).id("5").name("Again").salary(50000.0).managerId("1").build())));
+        assertTrue(duplicate.getMessage().contains("Duplicate"));
+        assertEquals(5, store.describe(id).getEmployees());
+    }
+
+    @Test
+    void applyDeltas_overJournalLimit_shouldCompactJournalIntoSnapshot() {
+        properties.getSnapshots().setMaxJournalDeltas(2);
+        SnapshotStore store = newStore();
+        String id = store.create("compacted", org).getId();
+        Path journal = directory.resolve(id + ".journal");
+
+        store.applyDeltas(id, List.of(
+                EmployeeDeltaDto.builder().op(DeltaType.ADD).id("5").name("Hire").salary(50000.0).managerId("4").build(),
+                EmployeeDeltaDto.builder().op(DeltaType.SALARY).id("2").salary(99000.0).build()));
+        assertTrue(Files.exists(journal));
+        SnapshotDto updated = store.applyDeltas(id, List.of(
+                EmployeeDeltaDto.builder().op(DeltaType.MOVE).id("5").managerId("1").build()));
+
+        assertFalse(Files.exists(journal));
+        assertEquals(5, updated.getEmployees());
+        assertEquals("compacted", updated.getName());
+        OrgGraph restarted = assertInstanceOf(OrgGraph.class, newStore().query(id));
+        assertEquals(5, restarted.size());
+        assertEquals(99000, restarted.salary(indexOf(restarted, "2")));
+        assertEquals(1, restarted.depth(indexOf(restarted, "5")));
+    }
+
+    @Test
+    void newStore_afterInterruptedCompaction_shouldFinishOrDiscardIt() throws IOException {
+        SnapshotStore store = newStore();
+        String finished = store.create("finished", org).getId();
+        String discarded = store.create("discarded", org).getId();
+        for (String id : List.of(finished, discarded)) {
+            store.applyDeltas(id, List.of(EmployeeDeltaDto.builder().op(DeltaType.SALARY).id("2").salary(99000.0).build()));
+            LiveOrg updated = (LiveOrg) store.query(id);
+            SnapshotFormat.write(directory.resolve(id + ".compacted"), store.describe(id), updated.toGraph());
+        }
+        // the journal is deleted before the compacted file is moved in place
+        Files.delete(directory.resolve(finished + ".journal"));
+
+        SnapshotStore restarted = newStore();
+
+        OrgGraph compacted = assertInstanceOf(OrgGraph.class, restarted.query(finished));
+        assertEquals(99000, compacted.salary(indexOf(compacted, "2")));
+        OrgGraph replayed = assertInstanceOf(LiveOrg.class, restarted.query(discarded)).toGraph();
+        assertEquals(99000, replayed.salary(indexOf(replayed, "2")));
+        try (Stream<Path> left = Files.list(directory)) {
+            assertTrue(left.noneMatch(path -> path.toString().endsWith(".compacted")));
+        }
+    }
+
+    private static int indexOf(OrgGraph graph, String id) {
+        for (int i = 0; i < graph.size(); i++) {
+            if (graph.id(i).equals(id)) {
+                return i;
+            }
+        }
+        throw new AssertionError("No employee " + id);
+    }
+
+    @Test
+    void index_shouldBeRebuiltAfterDeltas() {
+        SnapshotStore store = newStore();
+        SnapshotDto snapshot = store.create("indexed", org);
+
+        OrgIndex stored = store.index(snapshot.getId());
+        assertSame(stored, store.index(snapshot.getId()));
+        assertEquals(3, stored.subtreeEnd(stored.indexOf("1")) - stored.indexOf("1") - 1);
+
+        store.applyDeltas(snapshot.getId(), List.of(
+                EmployeeDeltaDto.builder().op(DeltaType.ADD).id("5").name("Hire").salary(50000.0).managerId("1").build(),
+                EmployeeDeltaDto.builder().op(DeltaType.MOVE).id("4").managerId("1").build()));
+        OrgIndex updated = store.index(snapshot.getId());
+
+        assertNotSame(stored, updated);
+        assertEquals(updated.indexOf("1"), updated.lowestCommonManager(updated.indexOf("4"), updated.indexOf("3")));
+        assertEquals(Map.of(1, 1, 3, 1), updated.spanOfControl());
+    }
+
+    @Test
+    void load_withUnknownOrMalformedId_shouldThrowNotFound() {
+        SnapshotStore store = newStore();
+
+        assertThrows(SnapshotNotFoundException.class, () -> store.load("00000000-0000-0000-0000-000000000000"));
+        assertThrows(SnapshotNotFoundException.class, () -> store.load("../etc/passwd"));
+    }
+
+    @Test
+    void delete_shouldRemoveSnapshot() {
+        SnapshotStore store = newStore();
+        SnapshotDto snapshot = store.create("gone", org);
+
+        store.delete(snapshot.getId());
+
+        assertThrows(SnapshotNotFoundException.class, () -> store.load(snapshot.getId()));
+    }
+}
@@ -0,0 +1,242 @@
+package com.company.validator;
+
+import com.company.config.AnalyzerProperties;
+import com.company.dtos.ValidationReportDto;
+import com.company.exception.InvalidDataException;
+import com.company.model.Employee;
+import com.company.model.OrgGraph;
+import com.company.parser.Compression;
+import com.company.parser.EmployeeCsvParser;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvValidatorTest {
+
+    private final AnalyzerProperties properties = new AnalyzerProperties();
+    private final CsvValidator csvValidator = new CsvValidator(properties);
+
+    private static Map<String, Employee> org(int size) {
+        Map<String, Employee> employees = new HashMap<>();
+        for (int i = 1; i <= size; i++) {
+            Employee employee = new Employee();
+            employee.setId(String.valueOf(i));
+            employee.setName("Employee" + i);
+            employee.setSalary(50000);
+            employee.setManagerId(i == 1 ? null : "1");
+            employees.put(employee.getId(), employee);
+        }
+        return employees;
+    }
+
+    @Test
+    void validateEmployeeData_overDefaultLimit_shouldThrow() {
+        InvalidDataException e = assertThrows(InvalidDataException.class,
+                () -> csvValidator.validateEmployeeData(org(1001)));
+
+        assertTrue(e.getMessage().contains("maximum limit of 1000"));
+    }
+
+    @Test
+    void validateEmployeeData_inLargeOrgMode_shouldUseLargeOrgLimits() {
+        properties.setLargeOrgMode(true);
+
+        assertDoesNotThrow(() -> csvValidator.validateEmployeeData(org(50_000)));
+
+        properties.getLargeOrgLimits().setMaxEmployees(10_000);
+        assertThrows(InvalidDataException.class, () -> csvValidator.validateEmployeeData(org(10_001)));
+    }
+
+    @Test
+    void validateFile_overConfiguredSize_shouldThrow() {
+        properties.getLimits().setMaxFileSize(DataSize.ofBytes(10));
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv",
+                "id,name,salary,manager_id\n".getBytes());
+
+        assertThrows(InvalidDataException.class, () -> csvValidator.validateFile(file));
+    }
+
+    @Test
+    void validateFile_shouldAcceptCompressedCsvOnly() {
+        for (String name : List.of("employees.csv", "employees.CSV.GZ", "employees.csv.zst")) {
+            csvValidator.validateFile(new MockMultipartFile("file", name, "text/csv", new byte[]{1}));
+        }
+        MockMultipartFile gzipNotCsv = new MockMultipartFile("file", "employees.txt.gz", "text/csv", new byte[]{1});
+        assertThrows(InvalidDataException.class, () -> csvValidator.validateFile(gzipNotCsv));
+    }
+
+    @Test
+    void limitSize_shouldStopDecompressionAtMaxFileSize() throws IOException {
+        properties.getLimits().setMaxFileSize(DataSize.ofKilobytes(64));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(new byte[1024 * 1024]);
+        }
+
+        InputStream in = csvValidator.limitSize(Compression.GZIP.decompress(
+                new ByteArrayInputStream(compressed.toByteArray())));
+
+        assertThrows(InvalidDataException.class, () -> in.transferTo(OutputStream.nullOutputStream()));
+    }
+
+    @Test
+    void validateHierarchy_withManagerCycle_shouldThrow() {
+        Map<String, Employee> employees = org(4);
+        employees.get("2").setManagerId("4");
+        employees.get("3").setManagerId("2");
+        employees.get("4").setManagerId("3");
+
+        csvValidator.validateEmployeeData(employees);
+        InvalidDataException e = assertThrows(InvalidDataException.class,
+                () -> csvValidator.validateHierarchy(OrgGraph.of(employees)));
+
+        assertTrue(e.getMessage().contains("1 manager cycle(s)"));
+        assertTrue(e.getMessage().contains("3 employees"));
+    }
+
+    @Test
+    void validateEmployee_whileParsing_shouldStopAtLimitAndCheckFields() {
+        properties.getLimits().setMaxEmployees(2);
+        Map<String, Employee> employees = org(3);
+        employees.get("2").setManagerId("2");
+
+        Map<String, Employee> read = new HashMap<>();
+
+        assertDoesNotThrow(() -> csvValidator.validateEmployee(employees.get("1"), read));
+        read.put("1", employees.get("1"));
+        assertThrows(InvalidDataException.class, () -> csvValidator.validateEmployee(employees.get("2"), read));
+        read.put("2", employees.get("2"));
+        InvalidDataException e = assertThrows(InvalidDataException.class,
+                () -> csvValidator.validateEmployee(employees.get("3"), read));
+        assertTrue(e.getMessage().contains("maximum limit of 2"));
+    }
+
+    @Test
+    void parse_withDuplicateIdAtLimit_shouldReportDuplicateNotLimit() {
+        properties.getLimits().setMaxEmployees(2);
+        String csv = "id,name,salary,manager_id\n" +
+                "1,CEO,100000,\n" +
+                "2,Dev,50000,1\n" +
+                "2,Again,50000,1\n";
+        Map<String, Employee> employees = new HashMap<>();
+
+        InvalidDataException e = assertThrows(InvalidDataException.class, () -> new EmployeeCsvParser().parse(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), employees,
+                (employee, row) -> csvValidator.validateEmployee(employee, employees)));
+        assertTrue(e.getMessage().contains("Duplicate employee ID 2"), e.getMessage());
+    }
+
+    @Test
+    void validateManagerReferences_withUnknownManager_shouldThrow() {
+        Map<String, Employee> employees = org(3);
+        employees.get("3").setManagerId("9");
+
+        InvalidDataException e = assertThrows(InvalidDataException.class,
+                () -> csvValidator.validateManagerReferences(employees));
+
+        assertTrue(e.getMessage().contains("non-existent manager with ID: 9"));
+        assertThrows(InvalidDataException.class, () -> csvValidator.validateManagerReferences(new HashMap<>()));
+    }
+
+    @Test
+    void validateAll_shouldReportEveryProblemWithItsRow() throws IOException {
+        ValidationReportDto report = csvValidator.validateAll(csv("id,name,salary,manager_id\n" +
+                "1,CEO,200000,\n" +
+                "2,,150000,1\n" +
+                "3,Dev,lots,9\n" +
+                "2,Copy,100,1\n" +
+                "4,Short\n" +
+                "5,Loop,100,6\n" +
+                "6,Loop,-1,5\n"));
+
+        assertFalse(report.isValid());
+        assertEquals(7, report.getRows());
+        assertEquals(List.of(
+                        "3:name:MISSING_NAME", "4:salary:INVALID_SALARY", "5:id:DUPLICATE_ID",
+                        "6:null:MALFORMED_ROW", "8:salary:NEGATIVE_SALARY", "4:manager_id:UNKNOWN_MANAGER",
+                        "null:manager_id:MANAGER_CYCLE"),
+                report.getErrors().stream()
+                        .map(error -> error.getRow() + ":" + error.getColumn() + ":" + error.getKind())
+                        .toList());
+        assertFalse(report.isTruncated());
+    }
+
+    @Test
+    void validateAll_withNaNOrInfiniteSalary_shouldRejectRows() throws IOException {
+        ValidationReportDto report = csvValidator.validateAll(csv("id,name,salary,manager_id\n" +
+                "1,CEO,200000,\n" +
+                "2,Odd,NaN,1\n" +
+                "3,Rich,Infinity,1\n" +
+                "4,Poor,-Infinity,1\n"));
+
+        assertEquals(List.of("3:salary:INVALID_SALARY", "4:salary:INVALID_SALARY", "5:salary:NEGATIVE_SALARY"),
+                report.getErrors().stream()
+                        .map(error -> error.getRow() + ":" + error.getColumn() + ":" + error.getKind())
+                        .toList());
+        Map<String, Employee> employees = org(1);
+        employees.get("1").setSalary(Double.NaN);
+        assertThrows(InvalidDataException.class, () -> csvValidator.validateEmployee(employees.get("1"), new HashMap<>()));
+    }
+
+    @Test
+    void validateAll_overErrorCap_shouldCountButNotListTheRest() throws IOException {
+        properties.getValidation().setMaxReportedErrors(3);
+        StringBuilder csv = new StringBuilder("id,name,salary,manager_id\n1,CEO,200000,\n");
+        for (int i = 2; i <= 50; i++) {
+            csv.append(i).append(",E").append(i).append(",-5,1\n");
+        }
+
+        ValidationReportDto report = csvValidator.validateAll(csv(csv.toString()));
+
+        assertEquals(49, report.getErrorCount());
+        assertEquals(3, report.getErrors().size());
+        assertTrue(report.isTruncated());
+    }
+
+    @Test
+    void validateAll_overEmployeeLimit_shouldReportOnceAndStopKeepingRows() throws IOException {
+        properties.getLimits().setMaxEmployees(3);
+        StringBuilder csv = new StringBuilder("id,name,salary,manager_id\n1,CEO,200000,\n");
+        for (int i = 2; i <= 10; i++) {
+            // rows past the limit report to managers that are not kept either
+            csv.append(i).append(",E").append(i).append(",1000,").append(i - 1).append('\n');
+        }
+        csv.append("11,Late,-5,1\n");
+
+        ValidationReportDto report = csvValidator.validateAll(csv(csv.toString()));
+
+        assertEquals(11, report.getRows());
+        assertEquals(List.of("5:null:TOO_MANY_EMPLOYEES", "12:salary:NEGATIVE_SALARY"),
+                report.getErrors().stream()
+                        .map(error -> error.getRow() + ":" + error.getColumn() + ":" + error.getKind())
+                        .toList());
+    }
+
+    @Test
+    void validateAll_withValidFile_shouldReportNoErrors() throws IOException {
+        ValidationReportDto report = csvValidator.validateAll(csv("id,name,salary,manager_id\n" +
+                "2,CFO,150000,1\n" +
+                "1,CEO,200000,\n"));
+
+        assertTrue(report.isValid());
+        assertEquals(0, report.getErrorCount());
+        assertTrue(report.getErrors().isEmpty());
+    }
+
+    private static InputStream csv(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+}